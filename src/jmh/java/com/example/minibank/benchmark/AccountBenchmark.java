@@ -0,0 +1,57 @@
+package com.example.minibank.benchmark;
+
+import com.example.minibank.model.Account;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the synchronized balance updates on {@link Account}, on a per-thread account and on one account
+ * shared by all benchmark threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBenchmark {
+
+    @State(Scope.Thread)
+    public static class OwnAccount {
+        Account account = newAccount();
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedAccount {
+        Account account = newAccount();
+    }
+
+    @Benchmark
+    public void deposit(OwnAccount state) {
+        state.account.deposit(1);
+    }
+
+    @Benchmark
+    public void withdrawAndDeposit(OwnAccount state) {
+        state.account.withdraw(1);
+        state.account.deposit(1);
+    }
+
+    @Benchmark
+    public void depositShared(SharedAccount state) {
+        state.account.deposit(1);
+    }
+
+    @Benchmark
+    public void withdrawAndDepositShared(SharedAccount state) {
+        state.account.withdraw(1);
+        state.account.deposit(1);
+    }
+
+    private static Account newAccount() {
+        Account account = new Account();
+        account.setBalance(1_000_000);
+
+        return account;
+    }
+}
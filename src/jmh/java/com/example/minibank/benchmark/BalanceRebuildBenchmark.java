@@ -0,0 +1,110 @@
+package com.example.minibank.benchmark;
+
+import com.example.minibank.MinibankApplication;
+import com.example.minibank.model.Account;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.LedgerEntryRepository;
+import com.example.minibank.service.BalanceProjectionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rebuilds every balance from {@code entries} ledger entries spread over {@code accounts} accounts, either
+ * replaying all of them or starting from snapshots taken when half of them were written. Run with one thread:
+ * a rebuild is a single pass over the whole ledger.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class BalanceRebuildBenchmark {
+
+    private static final int INSERT_BATCH_SIZE = 10_000;
+
+    @Param({"10000"})
+    private int accounts;
+
+    @Param({"1000000"})
+    private int entries;
+
+    private ConfigurableApplicationContext context;
+    private BalanceProjectionService balanceProjectionService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(MinibankApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "minibank.balance-snapshots.interval-ms=" + Long.MAX_VALUE,
+                        "logging.level.root=WARN"
+                )
+                .run();
+        balanceProjectionService = context.getBean(BalanceProjectionService.class);
+
+        List<Integer> accountIds = seedAccounts(context.getBean(AccountRepository.class));
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        seedEntries(jdbcTemplate, accountIds, 1, entries / 2);
+        balanceProjectionService.takeSnapshots(context.getBean(LedgerEntryRepository.class).findLastEntryId());
+        seedEntries(jdbcTemplate, accountIds, entries / 2 + 1, entries);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int rebuildFromEntries() {
+        return balanceProjectionService.rebuildBalances(false);
+    }
+
+    @Benchmark
+    public int rebuildFromSnapshots() {
+        return balanceProjectionService.rebuildBalances(true);
+    }
+
+    private List<Integer> seedAccounts(AccountRepository accountRepository) {
+        List<Account> seeded = new ArrayList<>(accounts);
+
+        for (int i = 0; i < accounts; i++) {
+            Account account = new Account();
+            account.setCode(UUID.randomUUID().toString());
+            seeded.add(account);
+        }
+
+        return accountRepository.saveAll(seeded).stream().map(Account::getId).toList();
+    }
+
+    // Written with plain JDBC batches, the entries are the fixture here rather than what is measured
+    private static void seedEntries(JdbcTemplate jdbcTemplate, List<Integer> accountIds, long fromId, long toId) {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+
+        for (long id = fromId; id <= toId; id++) {
+            Integer accountId = accountIds.get(ThreadLocalRandom.current().nextInt(accountIds.size()));
+            batch.add(new Object[]{id, accountId, "DEPOSIT", 1.0, createdAt});
+
+            if (batch.size() == INSERT_BATCH_SIZE || id == toId) {
+                jdbcTemplate.batchUpdate("INSERT INTO ledger_entries (id, account_id, type, amount, created_at) VALUES (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.minibank.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Runs the JMH benchmarks matching the first argument once per thread count in {@code -Djmh.threads}
+ * (comma separated) and writes each run's results as JSON to {@code -Djmh.resultDir}.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = args.length > 0 ? args[0] : ".*";
+        Path resultDir = Path.of(System.getProperty("jmh.resultDir", "target/jmh"));
+        int[] threadCounts = Arrays.stream(System.getProperty("jmh.threads", "1").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+
+        Files.createDirectories(resultDir);
+
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultDir.resolve("result-t" + threads + ".json").toString())
+                    .build();
+
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.minibank.benchmark;
+
+import com.example.minibank.model.UuidCodeConverter;
+import com.example.minibank.util.TimeOrderedUuid;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Inserts and lookups by code on an H2 table seeded with {@code rows} accounts, for the old and new code columns:
+ * <ul>
+ *     <li>{@code varchar_v4}: random UUID strings in an unindexed VARCHAR column (the old mapping)</li>
+ *     <li>{@code varchar_v4_indexed}: the same with a unique index, to show the cost of random inserts</li>
+ *     <li>{@code binary_v7_indexed}: time-ordered UUIDs in a uniquely indexed BINARY(16) column (the new mapping)</li>
+ * </ul>
+ * Inserts are measured in JDBC batches of {@value #BATCH_SIZE} rows and reported per row.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class CodeLookupBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final String URL = "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1";
+    private static final UuidCodeConverter CONVERTER = new UuidCodeConverter();
+
+    @Param({"varchar_v4", "varchar_v4_indexed", "binary_v7_indexed"})
+    private String mapping;
+
+    @Param({"1000000"})
+    private int rows;
+
+    private Connection setUpConnection;
+    private final AtomicInteger nextId = new AtomicInteger();
+    // One code out of each seeded batch, spread over the whole table, to look up
+    private final List<String> sample = new ArrayList<>();
+
+    /**
+     * A connection of each thread's own, as a JDBC connection is not meant to be shared between threads.
+     */
+    @State(Scope.Thread)
+    public static class Session {
+
+        private Connection connection;
+        private PreparedStatement insert;
+        private PreparedStatement select;
+
+        @Setup(Level.Trial)
+        public void setUp() throws SQLException {
+            connection = DriverManager.getConnection(URL, "sa", "");
+            connection.setAutoCommit(false);
+            insert = connection.prepareStatement("INSERT INTO accounts (id, code, balance) VALUES (?, ?, 0)");
+            select = connection.prepareStatement("SELECT id, balance FROM accounts WHERE code = ?");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        setUpConnection = DriverManager.getConnection(URL, "sa", "");
+
+        try (Statement statement = setUpConnection.createStatement()) {
+            statement.execute("CREATE TABLE accounts (id INT PRIMARY KEY, code " + columnType() + " NOT NULL, balance DOUBLE)");
+
+            if (!mapping.equals("varchar_v4")) {
+                statement.execute("CREATE UNIQUE INDEX idx_accounts_code ON accounts (code)");
+            }
+        }
+
+        setUpConnection.setAutoCommit(false);
+        try (PreparedStatement insert = setUpConnection.prepareStatement("INSERT INTO accounts (id, code, balance) VALUES (?, ?, 0)")) {
+            for (int i = 0; i < rows; i += BATCH_SIZE) {
+                sample.add(insertBatch(setUpConnection, insert).get(0));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = setUpConnection.createStatement()) {
+            statement.execute("DROP TABLE accounts");
+        }
+
+        setUpConnection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<String> insert(Session session) throws SQLException {
+        return insertBatch(session.connection, session.insert);
+    }
+
+    @Benchmark
+    public int lookup(Session session) throws SQLException {
+        setCode(session.select, 1, sample.get(ThreadLocalRandom.current().nextInt(sample.size())));
+
+        try (ResultSet resultSet = session.select.executeQuery()) {
+            if (!resultSet.next()) {
+                throw new IllegalStateException("Seeded code not found");
+            }
+
+            return resultSet.getInt(1);
+        }
+    }
+
+    private List<String> insertBatch(Connection connection, PreparedStatement insert) throws SQLException {
+        List<String> codes = new ArrayList<>(BATCH_SIZE);
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            String code = mapping.startsWith("binary") ? TimeOrderedUuid.generate().toString() : UUID.randomUUID().toString();
+            insert.setInt(1, nextId.incrementAndGet());
+            setCode(insert, 2, code);
+            insert.addBatch();
+            codes.add(code);
+        }
+
+        insert.executeBatch();
+        connection.commit();
+
+        return codes;
+    }
+
+    private void setCode(PreparedStatement statement, int index, String code) throws SQLException {
+        if (mapping.startsWith("binary")) {
+            statement.setBytes(index, CONVERTER.convertToDatabaseColumn(code));
+        } else {
+            statement.setString(index, code);
+        }
+    }
+
+    private String columnType() {
+        return mapping.startsWith("binary") ? "BINARY(16)" : "VARCHAR(255)";
+    }
+}
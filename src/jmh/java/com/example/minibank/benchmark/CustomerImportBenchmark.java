@@ -0,0 +1,114 @@
+package com.example.minibank.benchmark;
+
+import com.example.minibank.MinibankApplication;
+import com.example.minibank.controller.response.CustomerImportReport;
+import com.example.minibank.model.Customer;
+import com.example.minibank.service.CustomerImportService;
+import com.example.minibank.service.CustomerService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Enumeration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time per customer when importing {@value #IMPORTED_CUSTOMERS} customers from a CSV stream, compared with
+ * creating them one by one through {@link CustomerService}, against an embedded H2 database. The CSV is generated
+ * as it is read, so the file is never held in memory. Run with one thread: an import is a single pass over the file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class CustomerImportBenchmark {
+
+    private static final int IMPORTED_CUSTOMERS = 100_000;
+
+    @Param({"true", "false"})
+    private boolean openAccounts;
+
+    private ConfigurableApplicationContext context;
+    private CustomerService customerService;
+    private CustomerImportService customerImportService;
+    // Every customer gets an email of its own across invocations, so none is rejected as a duplicate
+    private final AtomicLong nextCustomer = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(MinibankApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN"
+                )
+                .run();
+        customerService = context.getBean(CustomerService.class);
+        customerImportService = context.getBean(CustomerImportService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Customer createOneByOne() {
+        Customer customer = new Customer();
+        customer.setName("Single Customer");
+        customer.setEmail("customer-" + nextCustomer.getAndIncrement() + "@example.com");
+        customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+
+        customer = customerService.createCustomer(customer);
+        if (openAccounts) {
+            customerService.openNewAccount(customer.getCode());
+        }
+
+        return customer;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IMPORTED_CUSTOMERS)
+    public CustomerImportReport importCsv() throws IOException {
+        CustomerImportReport importReport = customerImportService.importCustomers(
+                generateCsv(nextCustomer.getAndAdd(IMPORTED_CUSTOMERS)), CustomerImportService.Format.CSV, openAccounts);
+
+        if (importReport.getImported() != IMPORTED_CUSTOMERS) {
+            throw new IllegalStateException("Imported " + importReport.getImported() + " of " + IMPORTED_CUSTOMERS + " customers");
+        }
+
+        return importReport;
+    }
+
+    private static InputStream generateCsv(long firstCustomer) {
+        return new SequenceInputStream(new Enumeration<>() {
+            private int row = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return row < IMPORTED_CUSTOMERS;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                String line = (row++ < 0)
+                        ? "name,email,dateOfBirth\n"
+                        : "Imported Customer " + row + ",customer-" + (firstCustomer + row - 1) + "@example.com,1990-01-01\n";
+
+                return new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+}
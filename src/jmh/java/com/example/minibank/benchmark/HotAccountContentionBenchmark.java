@@ -0,0 +1,123 @@
+package com.example.minibank.benchmark;
+
+import com.example.minibank.MinibankApplication;
+import com.example.minibank.controller.request.TransferRequest;
+import com.example.minibank.exception.AccountTransactionException;
+import com.example.minibank.model.Account;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.service.AccountService;
+import com.example.minibank.service.OptimisticConcurrencyControl;
+import com.example.minibank.service.StripedBalanceService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transfers into a single hot account whose balance is split into {@code stripes} stripes, against an embedded
+ * H2 database. Every thread sends from an account of its own, so the receiver is the only account contended for;
+ * 0 stripes leaves it unstriped. Run with many threads, e.g.
+ * {@code -Djmh.include=HotAccountContention -Djmh.threads=16}. Optimistic retries and failed transfers are printed
+ * at the end of each trial, which fails if the receiver's balance does not match the transfers that succeeded.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HotAccountContentionBenchmark {
+
+    private static final double INITIAL_BALANCE = 1_000_000;
+
+    @Param({"0", "2", "4", "8", "16"})
+    private int stripes;
+
+    @Param({"optimistic"})
+    private String concurrencyControl;
+
+    private ConfigurableApplicationContext context;
+    private AccountRepository accountRepository;
+    private AccountService accountService;
+    private String receiverCode;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @State(Scope.Thread)
+    public static class Sender {
+
+        private String code;
+
+        @Setup(Level.Trial)
+        public void setUp(HotAccountContentionBenchmark benchmark) {
+            code = benchmark.seedAccount(INITIAL_BALANCE);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(MinibankApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;LOCK_TIMEOUT=10000",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.datasource.hikari.maximum-pool-size=64",
+                        "minibank.transfers.concurrency-control=" + concurrencyControl,
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN"
+                )
+                .run();
+        accountRepository = context.getBean(AccountRepository.class);
+        accountService = context.getBean(AccountService.class);
+        receiverCode = seedAccount(0);
+
+        context.getBean(StripedBalanceService.class).setStripes(receiverCode, stripes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long retries = context.getBeanProvider(OptimisticConcurrencyControl.class)
+                .stream()
+                .mapToLong(OptimisticConcurrencyControl::getRetryCount)
+                .sum();
+        double received = accountService.getAccount(receiverCode).getTotalBalance();
+
+        System.out.printf("%nstripes=%d: %d transfers, %d retries, %d failed%n",
+                stripes, completed.sum(), retries, failed.sum());
+
+        context.close();
+
+        if (received != completed.sum()) {
+            throw new IllegalStateException("Money was lost or created: received " + received + " in " + completed.sum() + " transfers");
+        }
+    }
+
+    @Benchmark
+    public boolean transfer(Sender sender) {
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setReceiverAccountCode(receiverCode);
+        transferRequest.setAmount(1);
+
+        try {
+            accountService.transfer(sender.code, transferRequest);
+            completed.increment();
+            return true;
+        } catch (AccountTransactionException e) {
+            // Optimistic retries exhausted under contention
+            failed.increment();
+            return false;
+        }
+    }
+
+    private String seedAccount(double balance) {
+        Account account = new Account();
+        account.setCode(UUID.randomUUID().toString());
+        account.setBalance(balance);
+
+        return accountRepository.save(account).getCode();
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.minibank.benchmark;
+
+import com.example.minibank.MinibankApplication;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Transfer;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.TransferRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /accounts/{code}} over HTTP with and without open-session-in-view, against a connection pool much
+ * smaller than the number of client threads. With it, a connection stays checked out while the response is
+ * written and lazy loads during rendering check out more, so fewer requests fit through the pool. Run with more
+ * threads than {@code poolSize}, e.g. {@code -Djmh.include=OpenSessionInView -Djmh.threads=16}. Connection
+ * checkouts per request and hold and wait times from Hikari are printed at the end of each trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OpenSessionInViewBenchmark {
+
+    private static final int ACCOUNTS = 100;
+
+    @Param({"true", "false"})
+    private boolean openInView;
+
+    @Param({"4"})
+    private int poolSize;
+
+    // Transfers sent and received per account, which is what makes its response slow to write
+    @Param({"100"})
+    private int transfers;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private List<String> codes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(MinibankApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:osiv",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.open-in-view=" + openInView,
+                        "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN"
+                )
+                .run();
+        httpClient = HttpClient.newHttpClient();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        codes = seed(context.getBean(AccountRepository.class), context.getBean(TransferRepository.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        Timer usage = meterRegistry.get("hikaricp.connections.usage").timer();
+        Timer acquire = meterRegistry.get("hikaricp.connections.acquire").timer();
+        long requests = meterRegistry.get("http.server.requests").timers().stream().mapToLong(Timer::count).sum();
+
+        System.out.printf("%nopenInView=%s: %.2f connection checkouts per request, held %.2f ms on average, "
+                        + "%.2f ms waiting for one on average%n",
+                openInView, (double) acquire.count() / requests, usage.mean(TimeUnit.MILLISECONDS),
+                acquire.mean(TimeUnit.MILLISECONDS));
+
+        context.close();
+    }
+
+    @Benchmark
+    public int getAccount() throws IOException, InterruptedException {
+        String code = codes.get(ThreadLocalRandom.current().nextInt(codes.size()));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/accounts/" + code)).GET().build();
+
+        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+
+        if (status != 200) {
+            throw new IllegalStateException("GET /accounts/" + code + " returned " + status);
+        }
+
+        return status;
+    }
+
+    private List<String> seed(AccountRepository accountRepository, TransferRepository transferRepository) {
+        List<Account> accounts = new ArrayList<>(ACCOUNTS);
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account account = new Account();
+            account.setCode(UUID.randomUUID().toString());
+            account.setBalance(1_000_000);
+            accounts.add(account);
+        }
+
+        accounts = accountRepository.saveAll(accounts);
+
+        // Each account sends to the next one, so every account has as many sent as received transfers
+        for (int i = 0; i < ACCOUNTS; i++) {
+            List<Transfer> sent = new ArrayList<>(transfers);
+
+            for (int j = 0; j < transfers; j++) {
+                Transfer transfer = new Transfer();
+                transfer.setCode(UUID.randomUUID().toString());
+                transfer.setAmount(1);
+                transfer.setRemarks("Benchmark transfer " + j);
+                transfer.setSenderAccount(accounts.get(i));
+                transfer.setReceiverAccount(accounts.get((i + 1) % ACCOUNTS));
+                sent.add(transfer);
+            }
+
+            transferRepository.saveAll(sent);
+        }
+
+        return accounts.stream().map(Account::getCode).toList();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.minibank.benchmark;
+
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Customer;
+import com.example.minibank.model.Transfer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of an {@link Account} as returned by the API, with its customer and transfer lists.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"0", "10", "100", "1000"})
+    private int transfers;
+
+    private ObjectMapper objectMapper;
+    private Account account;
+
+    @Setup
+    public void setUp() {
+        // Same configuration as the ObjectMapper Spring Boot creates
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        Customer customer = new Customer();
+        customer.setCode(UUID.randomUUID().toString());
+        customer.setName("Jane Doe");
+        customer.setEmail("jane@example.com");
+        customer.setDateOfBirth(LocalDate.of(1990, 6, 15));
+        customer.setCreatedAt(LocalDateTime.now());
+        customer.setUpdatedAt(LocalDateTime.now());
+
+        account = new Account();
+        account.setCode(UUID.randomUUID().toString());
+        account.setBalance(1000);
+        account.setCustomer(customer);
+        account.setCreatedAt(LocalDateTime.now());
+        account.setUpdatedAt(LocalDateTime.now());
+        account.setSentTransfers(newTransfers(transfers / 2));
+        account.setReceivedTransfers(newTransfers(transfers - transfers / 2));
+    }
+
+    @Benchmark
+    public byte[] serializeAccount() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(account);
+    }
+
+    private static List<Transfer> newTransfers(int count) {
+        List<Transfer> transfers = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            Transfer transfer = new Transfer();
+            transfer.setCode(UUID.randomUUID().toString());
+            transfer.setAmount(10 + i);
+            transfer.setRemarks("Transfer " + i);
+            transfer.setCreatedAt(LocalDateTime.now());
+            transfers.add(transfer);
+        }
+
+        return transfers;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.minibank.benchmark;
+
+import com.example.minibank.MinibankApplication;
+import com.example.minibank.controller.request.DepositRequest;
+import com.example.minibank.controller.request.TransferRequest;
+import com.example.minibank.exception.AccountTransactionException;
+import com.example.minibank.model.Account;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.service.AccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link AccountService} calls against an embedded H2 database, between accounts picked at random
+ * out of {@code accounts}. Fewer accounts means more contention at higher thread counts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferBenchmark {
+
+    private static final double INITIAL_BALANCE = 1_000_000_000;
+
+    @Param({"10", "1000", "10000"})
+    private int accounts;
+
+    @Param({"optimistic", "pessimistic"})
+    private String concurrencyControl;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private List<String> codes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(MinibankApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;LOCK_TIMEOUT=10000",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.datasource.hikari.maximum-pool-size=64",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "spring.jpa.properties.hibernate.order_updates=true",
+                        "minibank.transfers.concurrency-control=" + concurrencyControl,
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        // Optimistic version conflicts are retried, their batch errors are just noise here
+                        "logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF"
+                )
+                .run();
+        accountService = context.getBean(AccountService.class);
+        codes = seedAccounts(context.getBean(AccountRepository.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sender = random.nextInt(codes.size());
+        int receiver = (sender + 1 + random.nextInt(codes.size() - 1)) % codes.size();
+
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setReceiverAccountCode(codes.get(receiver));
+        transferRequest.setAmount(1);
+
+        try {
+            accountService.transfer(codes.get(sender), transferRequest);
+            return true;
+        } catch (AccountTransactionException e) {
+            // Optimistic retries exhausted under contention
+            return false;
+        }
+    }
+
+    @Benchmark
+    public Account deposit() {
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setAmount(1);
+
+        try {
+            return accountService.deposit(codes.get(ThreadLocalRandom.current().nextInt(codes.size())), depositRequest);
+        } catch (AccountTransactionException e) {
+            return null;
+        }
+    }
+
+    private List<String> seedAccounts(AccountRepository accountRepository) {
+        List<Account> seeded = new ArrayList<>(accounts);
+
+        for (int i = 0; i < accounts; i++) {
+            Account account = new Account();
+            account.setCode(UUID.randomUUID().toString());
+            account.setBalance(INITIAL_BALANCE);
+            seeded.add(account);
+        }
+
+        return accountRepository.saveAll(seeded).stream().map(Account::getCode).toList();
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.minibank.benchmark;
+
+import com.example.minibank.MinibankApplication;
+import com.example.minibank.controller.request.TransferRequest;
+import com.example.minibank.exception.AccountTransactionException;
+import com.example.minibank.model.Account;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.service.AccountService;
+import com.example.minibank.service.OptimisticConcurrencyControl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the transfer concurrency control strategies under contention against an embedded H2 database.
+ * Every thread transfers between accounts picked at random out of a pool of {@code accounts}, so both directions
+ * of the same account pair are exercised concurrently. Run with many threads, e.g.
+ * {@code -Djmh.include=TransferContention -Djmh.threads=16}. Optimistic retries and transfers that failed after
+ * the last retry are reported as secondary results, and a trial fails if money was lost or created.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferContentionBenchmark {
+
+    private static final double INITIAL_BALANCE = 1_000_000;
+
+    @Param({"optimistic", "pessimistic"})
+    private String concurrencyControl;
+
+    @Param({"4"})
+    private int accounts;
+
+    private ConfigurableApplicationContext context;
+    private AccountRepository accountRepository;
+    private AccountService accountService;
+    private List<String> codes;
+    // The retry count already reported, as the strategy only counts retries across all threads
+    private final AtomicLong reportedRetries = new AtomicLong();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public long retries;
+        public long failed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retries = 0;
+            failed = 0;
+        }
+
+        // The first thread done with an iteration takes the retries of all of them, they add up across threads
+        @TearDown(Level.Iteration)
+        public void takeRetries(TransferContentionBenchmark benchmark) {
+            retries = benchmark.takeRetries();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(MinibankApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;LOCK_TIMEOUT=10000",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.datasource.hikari.maximum-pool-size=64",
+                        "spring.jpa.properties.hibernate.order_updates=true",
+                        "minibank.transfers.concurrency-control=" + concurrencyControl,
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        // Optimistic version conflicts are retried, their batch errors are just noise here
+                        "logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF"
+                )
+                .run();
+        accountRepository = context.getBean(AccountRepository.class);
+        accountService = context.getBean(AccountService.class);
+        codes = seedAccounts();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        double total = accountRepository.findAll().stream().mapToDouble(Account::getBalance).sum();
+        context.close();
+
+        if (total != INITIAL_BALANCE * accounts) {
+            throw new IllegalStateException("Money was lost or created: total balance is " + total);
+        }
+    }
+
+    @Benchmark
+    public boolean transfer(Counters counters) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int sender = random.nextInt(codes.size());
+        int receiver = (sender + 1 + random.nextInt(codes.size() - 1)) % codes.size();
+
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setReceiverAccountCode(codes.get(receiver));
+        transferRequest.setAmount(1);
+
+        try {
+            accountService.transfer(codes.get(sender), transferRequest);
+            return true;
+        } catch (AccountTransactionException e) {
+            // Optimistic retries exhausted under contention
+            counters.failed++;
+            return false;
+        }
+    }
+
+    private long takeRetries() {
+        long retries = context.getBeanProvider(OptimisticConcurrencyControl.class)
+                .stream()
+                .mapToLong(OptimisticConcurrencyControl::getRetryCount)
+                .sum();
+
+        return retries - reportedRetries.getAndSet(retries);
+    }
+
+    private List<String> seedAccounts() {
+        List<Account> seeded = new ArrayList<>(accounts);
+
+        for (int i = 0; i < accounts; i++) {
+            Account account = new Account();
+            account.setCode(UUID.randomUUID().toString());
+            account.setBalance(INITIAL_BALANCE);
+            seeded.add(account);
+        }
+
+        return accountRepository.saveAll(seeded).stream().map(Account::getCode).toList();
+    }
+}
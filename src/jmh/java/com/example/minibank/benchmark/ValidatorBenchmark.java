@@ -0,0 +1,51 @@
+package com.example.minibank.benchmark;
+
+import com.example.minibank.controller.request.DepositRequest;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Customer;
+import com.example.minibank.validator.AccountTransactionValidator;
+import com.example.minibank.validator.CustomerValidator;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ValidatorBenchmark {
+
+    private DepositRequest depositRequest;
+    private Account account;
+    private Customer customer;
+
+    @Setup
+    public void setUp() {
+        depositRequest = new DepositRequest();
+        depositRequest.setAmount(500);
+
+        account = new Account();
+        account.setBalance(1000);
+
+        customer = new Customer();
+        customer.setDateOfBirth(LocalDate.of(1990, 6, 15));
+    }
+
+    @Benchmark
+    public void validateDepositAmount() {
+        AccountTransactionValidator.validateDepositAmount(depositRequest);
+    }
+
+    @Benchmark
+    public void validateTransferAmount() {
+        AccountTransactionValidator.validateTransferAmount(account, 500);
+    }
+
+    @Benchmark
+    public void validateAge() {
+        CustomerValidator.validateAge(customer);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.minibank.benchmark;
+
+import com.example.minibank.controller.response.CursorPage;
+import com.example.minibank.controller.response.TransferHistoryItem;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A page of {@code GET /accounts/{code}/transfers/history} in each format a client can ask for, optionally
+ * gzipped as the server does above its compression threshold. Measures the server writing a page and the client
+ * reading it into a tree; payload sizes are printed once per trial. For example
+ * {@code -Djmh.include=WireFormat -Djmh.threads=1}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    @Param({"50", "500"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private CursorPage<TransferHistoryItem> page;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Same builder Spring Boot configures its ObjectMapper with, on the format's factory
+        objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+
+        page = new CursorPage<>(newHistory(pageSize), CursorPage.encodeCursor(LocalDateTime.now(), pageSize));
+        payload = write();
+
+        System.out.printf("%n%s%s, %d transfers: %d bytes%n", format, gzip ? "+gzip" : "", pageSize, payload.length);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        if (!gzip) {
+            return objectMapper.writeValueAsBytes(page);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(out, page);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public JsonNode read() throws IOException {
+        if (!gzip) {
+            return objectMapper.readTree(payload);
+        }
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return objectMapper.readTree(in);
+        }
+    }
+
+    private static List<TransferHistoryItem> newHistory(int count) {
+        List<TransferHistoryItem> history = new ArrayList<>(count);
+        LocalDateTime createdAt = LocalDateTime.now();
+
+        for (int i = 0; i < count; i++) {
+            history.add(new TransferHistoryItem(i, UUID.randomUUID().toString(),
+                    (i % 2 == 0 ? TransferHistoryItem.Direction.SENT : TransferHistoryItem.Direction.RECEIVED).name(),
+                    UUID.randomUUID().toString(), 10 + i, "Transfer " + i, createdAt.minusSeconds(i)));
+        }
+
+        return history;
+    }
+}
@@ -1,18 +1,43 @@
 package com.example.minibank.controller.api;
 
+import com.example.minibank.controller.request.BatchTransferRequest;
 import com.example.minibank.controller.request.DepositRequest;
 import com.example.minibank.controller.request.TransferRequest;
+import com.example.minibank.controller.response.AccountBalance;
+import com.example.minibank.controller.response.AccountSummary;
+import com.example.minibank.controller.response.ActivityItem;
+import com.example.minibank.controller.response.BatchTransferResponse;
+import com.example.minibank.controller.response.CursorPage;
+import com.example.minibank.controller.response.EntityTags;
+import com.example.minibank.controller.response.SparseFieldset;
+import com.example.minibank.controller.response.TransferHistoryItem;
+import com.example.minibank.controller.response.TransferStatus;
 import com.example.minibank.service.AccountService;
+import com.example.minibank.service.AsyncTransferService;
+import com.example.minibank.service.BalanceProjectionService;
+import com.example.minibank.service.IdempotencyService;
+import com.example.minibank.service.TransferExportService;
 import com.example.minibank.model.Account;
 import com.example.minibank.model.Transfer;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.validation.Valid;
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping(path = "/accounts")
@@ -20,24 +45,70 @@ import java.util.Map;
 public class AccountController {
 
     private final AccountService accountService;
+    private final TransferExportService transferExportService;
+    private final IdempotencyService idempotencyService;
+    private final AsyncTransferService asyncTransferService;
+    private final BalanceProjectionService balanceProjectionService;
 
     @Autowired
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService,
+                             TransferExportService transferExportService,
+                             IdempotencyService idempotencyService,
+                             AsyncTransferService asyncTransferService,
+                             BalanceProjectionService balanceProjectionService) {
         this.accountService = accountService;
+        this.transferExportService = transferExportService;
+        this.idempotencyService = idempotencyService;
+        this.asyncTransferService = asyncTransferService;
+        this.balanceProjectionService = balanceProjectionService;
     }
 
     @GetMapping
-    public ResponseEntity<List<Account>> getAllAccounts() {
-        List<Account> accountsList = accountService.getAllAccounts();
-
-        return new ResponseEntity<>(accountsList, HttpStatus.OK);
+    public ResponseEntity<CursorPage<AccountSummary>> getAllAccounts(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "${minibank.pagination.default-page-size:50}") int limit,
+            @RequestParam(name = "updatedSince", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince) {
+        CursorPage<AccountSummary> accountsPage = accountService.getAccounts(cursor, limit, updatedSince);
+        // The balance is part of the tag, as crediting a striped account's stripes does not change its version
+        String eTag = EntityTags.weak(accountsPage,
+                account -> account.getId() + ":" + account.getVersion() + "." + account.getCustomerVersion() + ":" + account.getBalance());
+
+        // A matching If-None-Match is answered with 304 by Spring, without serializing the page
+        return ResponseEntity.ok().eTag(eTag).body(accountsPage);
     }
 
     @GetMapping(path = "{code}")
-    public ResponseEntity<Account> getAccount(@PathVariable("code") String code) {
-        Account account = accountService.getAccount(code);
+    public ResponseEntity<MappingJacksonValue> getAccount(
+            @PathVariable("code") String code,
+            @RequestParam(name = "include", required = false) Set<String> include,
+            @RequestParam(name = "fields", required = false) Set<String> fields,
+            WebRequest request) {
+        SparseFieldset fieldset = SparseFieldset.forAccount(include, fields);
+        Optional<String> eTag = accountService.getAccountVersions(code)
+                .map(versions -> fieldset.getView().includesCustomer()
+                        ? EntityTags.strong(request, versions.getAccount(), versions.getCustomer())
+                        : EntityTags.strong(request, versions.getAccount()));
+
+        // Answered from the versions alone, before the account is loaded; also sets the ETag of a full response
+        if (eTag.isPresent() && request.checkNotModified(eTag.get())) {
+            return null;
+        }
+
+        Account account = accountService.getAccount(code, fieldset.getView());
+
+        return new ResponseEntity<>(fieldset.render(account), HttpStatus.OK);
+    }
+
+    /**
+     * The balance as of {@code at}, or now, computed from the ledger rather than read from the account.
+     */
+    @GetMapping(path = "{code}/balance")
+    public ResponseEntity<AccountBalance> getBalance(
+            @PathVariable("code") String code,
+            @RequestParam(name = "at", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        AccountBalance balance = balanceProjectionService.getBalanceAt(code, (at != null) ? at : LocalDateTime.now());
 
-        return new ResponseEntity<>(account, HttpStatus.OK);
+        return new ResponseEntity<>(balance, HttpStatus.OK);
     }
 
     @GetMapping(path = "{code}/transfers")
@@ -47,18 +118,101 @@ public class AccountController {
         return new ResponseEntity<>(transfers, HttpStatus.OK);
     }
 
+    @GetMapping(path = "{code}/transfers/history")
+    public ResponseEntity<CursorPage<TransferHistoryItem>> getTransferHistory(
+            @PathVariable("code") String code,
+            @RequestParam(name = "direction", required = false) TransferHistoryItem.Direction direction,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "${minibank.pagination.default-page-size:50}") int limit) {
+        CursorPage<TransferHistoryItem> history = accountService.getTransferHistory(code, direction, from, to, cursor, limit);
+
+        return new ResponseEntity<>(history, HttpStatus.OK);
+    }
+
+    @GetMapping(path = "{code}/activity")
+    public ResponseEntity<CursorPage<ActivityItem>> getActivity(
+            @PathVariable("code") String code,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "${minibank.pagination.default-page-size:50}") int limit) {
+        CursorPage<ActivityItem> activity = accountService.getActivity(code, cursor, limit);
+
+        return new ResponseEntity<>(activity, HttpStatus.OK);
+    }
+
+    @GetMapping(path = "{code}/transfers/export")
+    public ResponseEntity<StreamingResponseBody> exportTransfers(
+            @PathVariable("code") String code,
+            @RequestParam(name = "format", defaultValue = "ndjson") String format) {
+        TransferExportService.Format exportFormat = TransferExportService.Format.fromName(format);
+        Integer accountId = accountService.getAccountId(code);
+
+        StreamingResponseBody body = outputStream -> transferExportService.export(accountId, exportFormat, outputStream);
+
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transfers-" + code + "." + exportFormat.getFileExtension() + "\"")
+                .body(body);
+    }
+
     @PostMapping(path = "{code}/transfers")
-    public ResponseEntity<Void> transferAmount(@PathVariable("code") String code, @RequestBody TransferRequest transferRequest) {
-        accountService.transfer(code, transferRequest);
+    public ResponseEntity<Void> transferAmount(
+            @PathVariable("code") String code,
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody TransferRequest transferRequest) {
+        return idempotencyService.execute(idempotencyKey, "POST /accounts/" + code + "/transfers", transferRequest, Void.class, () -> {
+            accountService.transfer(code, transferRequest);
+
+            return ResponseEntity.noContent().build();
+        });
+    }
 
-        return ResponseEntity.noContent().build();
+    /**
+     * Queues the transfer and answers right away with its code; the transfer is applied shortly after. Poll
+     * the status at the returned location.
+     */
+    @PostMapping(path = "{code}/transfers/async")
+    public ResponseEntity<TransferStatus> submitTransfer(
+            @PathVariable("code") String code,
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody TransferRequest transferRequest) {
+        return idempotencyService.execute(idempotencyKey, "POST /accounts/" + code + "/transfers/async", transferRequest, TransferStatus.class, () -> {
+            TransferStatus status = asyncTransferService.submit(code, transferRequest);
+            URI location = ServletUriComponentsBuilder.fromCurrentRequestUri()
+                    .pathSegment(status.getTransferCode())
+                    .build()
+                    .toUri();
+
+            return ResponseEntity.accepted().location(location).body(status);
+        });
     }
 
-    @PutMapping(path = "{code}/deposit")
-    public ResponseEntity<Account> depositAmount(@PathVariable("code") String code, @RequestBody DepositRequest depositRequest) {
-        Account account = accountService.deposit(code, depositRequest);
+    @GetMapping(path = "{code}/transfers/async/{transferCode}")
+    public ResponseEntity<TransferStatus> getTransferStatus(@PathVariable("code") String code,
+                                                            @PathVariable("transferCode") String transferCode) {
+        TransferStatus status = asyncTransferService.getStatus(code, transferCode);
+
+        return new ResponseEntity<>(status, HttpStatus.OK);
+    }
+
+    @PostMapping(path = "{code}/transfers/batch")
+    public ResponseEntity<BatchTransferResponse> transferBatch(@PathVariable("code") String code, @Valid @RequestBody BatchTransferRequest batchTransferRequest) {
+        BatchTransferResponse response = accountService.transferBatch(code, batchTransferRequest);
 
-        return new ResponseEntity<>(account, HttpStatus.OK);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @PutMapping(path = "{code}/deposit")
+    public ResponseEntity<Account> depositAmount(
+            @PathVariable("code") String code,
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody DepositRequest depositRequest) {
+        return idempotencyService.execute(idempotencyKey, "PUT /accounts/" + code + "/deposit", depositRequest, Account.class, () -> {
+            Account account = accountService.deposit(code, depositRequest);
+
+            return new ResponseEntity<>(account, HttpStatus.OK);
+        });
     }
 
 }
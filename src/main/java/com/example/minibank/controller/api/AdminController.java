@@ -0,0 +1,114 @@
+package com.example.minibank.controller.api;
+
+import com.example.minibank.service.BalanceProjectionService;
+import com.example.minibank.service.CodeLookupCache;
+import com.example.minibank.service.StripedBalanceService;
+import com.example.minibank.tracing.RequestTrace;
+import com.example.minibank.tracing.SlowRequestLog;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping(path = "/admin")
+@Tag(name = "Admin API", description = "Operational APIs. Inspect cache usage and slow requests, rebuild balances, stripe hot accounts")
+public class AdminController {
+
+    private final CodeLookupCache codeLookupCache;
+    private final SlowRequestLog slowRequestLog;
+    private final BalanceProjectionService balanceProjectionService;
+    private final StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    public AdminController(CodeLookupCache codeLookupCache, SlowRequestLog slowRequestLog,
+                           BalanceProjectionService balanceProjectionService, StripedBalanceService stripedBalanceService) {
+        this.codeLookupCache = codeLookupCache;
+        this.slowRequestLog = slowRequestLog;
+        this.balanceProjectionService = balanceProjectionService;
+        this.stripedBalanceService = stripedBalanceService;
+    }
+
+    @GetMapping("caches")
+    public ResponseEntity<Map<String, Map<String, Object>>> getCacheStats() {
+        Map<String, Long> sizes = codeLookupCache.getSizes();
+        Map<String, Map<String, Object>> caches = new LinkedHashMap<>();
+
+        codeLookupCache.getStats().forEach((name, stats) -> caches.put(name, describe(stats, sizes.get(name))));
+
+        return new ResponseEntity<>(caches, HttpStatus.OK);
+    }
+
+    @GetMapping("traces")
+    public ResponseEntity<List<RequestTrace>> getSlowestRequests() {
+        return new ResponseEntity<>(slowRequestLog.getSlowest(), HttpStatus.OK);
+    }
+
+    @DeleteMapping("traces")
+    public ResponseEntity<Void> clearSlowestRequests() {
+        slowRequestLog.clear();
+
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Recomputes every account balance from the ledger, from the latest snapshots unless {@code from=entries}.
+     * Pause deposits and transfers while it runs.
+     */
+    @PostMapping("balances/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildBalances(@RequestParam(name = "from", defaultValue = "snapshots") String from) {
+        boolean fromSnapshots = switch (from) {
+            case "snapshots" -> true;
+            case "entries" -> false;
+            default -> throw new IllegalArgumentException("Balances are rebuilt from snapshots or entries, not " + from);
+        };
+
+        long start = System.nanoTime();
+        int accounts = balanceProjectionService.rebuildBalances(fromSnapshots);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("accounts", accounts);
+        result.put("from", from);
+        result.put("durationMs", (System.nanoTime() - start) / 1_000_000);
+
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * Splits the balance of a hot account into {@code count} stripes, which concurrent credits spread over, or
+     * merges them back with a count below 2.
+     */
+    @PutMapping("accounts/{code}/stripes")
+    public ResponseEntity<Map<String, Object>> setStripes(@PathVariable("code") String code,
+                                                          @RequestParam(name = "count") int count) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("code", code);
+        result.put("stripes", stripedBalanceService.setStripes(code, count));
+
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    private static Map<String, Object> describe(CacheStats stats, Long size) {
+        Map<String, Object> cache = new LinkedHashMap<>();
+        cache.put("size", size);
+        cache.put("hits", stats.hitCount());
+        cache.put("misses", stats.missCount());
+        cache.put("hitRate", stats.hitRate());
+        cache.put("evictions", stats.evictionCount());
+
+        return cache;
+    }
+}
@@ -1,5 +1,10 @@
 package com.example.minibank.controller.api;
 
+import com.example.minibank.controller.response.CursorPage;
+import com.example.minibank.controller.response.CustomerImportReport;
+import com.example.minibank.controller.response.CustomerSummary;
+import com.example.minibank.controller.response.EntityTags;
+import com.example.minibank.service.CustomerImportService;
 import com.example.minibank.service.CustomerService;
 import com.example.minibank.model.Account;
 import com.example.minibank.model.Customer;
@@ -7,34 +12,54 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springdoc.core.annotations.RouterOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 @RestController
 @RequestMapping(path = "/customers")
-@Tag(name = "Customer API", description = "Customer related APIs. Read, add, update and open new account for customers")
+@Tag(name = "Customer API", description = "Customer related APIs. Read, add, bulk import, update and open new account for customers")
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerImportService customerImportService;
 
     @Autowired
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, CustomerImportService customerImportService) {
         this.customerService = customerService;
+        this.customerImportService = customerImportService;
     }
 
     @GetMapping
-    public ResponseEntity<List<Customer>> getAllCustomers() {
-        List<Customer> customerList = customerService.getAllCustomers();
+    public ResponseEntity<CursorPage<CustomerSummary>> getAllCustomers(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "limit", defaultValue = "${minibank.pagination.default-page-size:50}") int limit,
+            @RequestParam(name = "updatedSince", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince) {
+        CursorPage<CustomerSummary> customerPage = customerService.getCustomers(cursor, limit, updatedSince);
+        String eTag = EntityTags.weak(customerPage, customer -> customer.getId() + ":" + customer.getVersion());
 
-        return new ResponseEntity<>(customerList, HttpStatus.OK);
+        // A matching If-None-Match is answered with 304 by Spring, without serializing the page
+        return ResponseEntity.ok().eTag(eTag).body(customerPage);
     }
 
     @GetMapping(path = "{code}")
-    public ResponseEntity<Customer> getCustomer(@PathVariable("code") String code) {
+    public ResponseEntity<Customer> getCustomer(@PathVariable("code") String code, WebRequest request) {
+        Optional<String> eTag = customerService.getCustomerVersion(code)
+                .map(version -> EntityTags.strong(request, version));
+
+        // Answered from the version alone, before the customer is loaded; also sets the ETag of a full response
+        if (eTag.isPresent() && request.checkNotModified(eTag.get())) {
+            return null;
+        }
+
         Customer customer = customerService.getCustomer(code);
 
         return new ResponseEntity<>(customer, HttpStatus.OK);
@@ -47,6 +72,21 @@ public class CustomerController {
         return new ResponseEntity<>(newlyAddedCustomer, HttpStatus.OK);
     }
 
+    /**
+     * Imports customers from a CSV file with a {@code name,email,dateOfBirth} header, or from NDJSON with one
+     * customer per line, as the request body is read. Answers with the rows that were rejected.
+     */
+    @PostMapping(path = "import")
+    public ResponseEntity<CustomerImportReport> importCustomers(
+            @RequestParam(name = "format", defaultValue = "ndjson") String format,
+            @RequestParam(name = "openAccounts", defaultValue = "false") boolean openAccounts,
+            InputStream body) throws IOException {
+        CustomerImportService.Format importFormat = CustomerImportService.Format.fromName(format);
+        CustomerImportReport report = customerImportService.importCustomers(body, importFormat, openAccounts);
+
+        return new ResponseEntity<>(report, HttpStatus.OK);
+    }
+
     @PutMapping(path = "{code}")
     public ResponseEntity<Customer> updateCustomer(@PathVariable("code") String code, @Valid @RequestBody Customer customer) {
         Customer updatedCustomer = customerService.updateCustomer(code, customer);
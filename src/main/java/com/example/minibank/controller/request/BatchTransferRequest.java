@@ -0,0 +1,45 @@
+package com.example.minibank.controller.request;
+
+import org.springframework.stereotype.Component;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Component
+public class BatchTransferRequest {
+
+    public static final int MAXIMUM_BATCH_SIZE = 10_000;
+
+    public enum Mode {
+        // Either every transfer in the batch is applied or none are
+        ALL_OR_NOTHING,
+        // Valid transfers are applied and invalid ones are reported as rejected
+        BEST_EFFORT
+    }
+
+    @NotNull(message = "Mode is required")
+    private Mode mode = Mode.ALL_OR_NOTHING;
+
+    @NotEmpty(message = "Transfers are required")
+    @Size(max = MAXIMUM_BATCH_SIZE, message = "A batch cannot contain more than " + MAXIMUM_BATCH_SIZE + " transfers")
+    private List<@Valid TransferRequest> transfers;
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public List<TransferRequest> getTransfers() {
+        return transfers;
+    }
+
+    public void setTransfers(List<TransferRequest> transfers) {
+        this.transfers = transfers;
+    }
+}
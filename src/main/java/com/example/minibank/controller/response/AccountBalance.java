@@ -0,0 +1,31 @@
+package com.example.minibank.controller.response;
+
+import java.time.LocalDateTime;
+
+/**
+ * The balance of an account at a point in time, computed from its ledger entries.
+ */
+public class AccountBalance {
+
+    private final String code;
+    private final double balance;
+    private final LocalDateTime at;
+
+    public AccountBalance(String code, double balance, LocalDateTime at) {
+        this.code = code;
+        this.balance = balance;
+        this.at = at;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+}
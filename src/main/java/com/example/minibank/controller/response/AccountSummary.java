@@ -0,0 +1,74 @@
+package com.example.minibank.controller.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * An account as listed by {@code GET /accounts}: its balance and owner, without transfers. Selected together
+ * with the owner's code and name in a single query; transfers are listed by {@code GET /accounts/{code}/transfers}.
+ */
+public class AccountSummary {
+
+    private final Integer id;
+    private final String code;
+    private final double balance;
+    private final String customerCode;
+    private final String customerName;
+    private final long version;
+    private final long customerVersion;
+    private final LocalDateTime updatedAt;
+    private final LocalDateTime createdAt;
+
+    public AccountSummary(Integer id, String code, double balance, String customerCode, String customerName,
+                          long version, long customerVersion, LocalDateTime updatedAt, LocalDateTime createdAt) {
+        this.id = id;
+        this.code = code;
+        this.balance = balance;
+        this.customerCode = customerCode;
+        this.customerName = customerName;
+        this.version = version;
+        this.customerVersion = customerVersion;
+        this.updatedAt = updatedAt;
+        this.createdAt = createdAt;
+    }
+
+    @JsonIgnore
+    public Integer getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public String getCustomerCode() {
+        return customerCode;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public long getCustomerVersion() {
+        return customerVersion;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.minibank.controller.response;
+
+import com.example.minibank.model.LedgerEntry;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * One balance change of an account in its activity feed: a deposit, or a transfer sent or received, with the
+ * other party. Amounts are signed, as in the ledger.
+ */
+public class ActivityItem {
+
+    private final Long id;
+    private final LedgerEntry.Type type;
+    private final String code;
+    private final String counterpartyAccountCode;
+    private final double amount;
+    private final String remarks;
+    private final LocalDateTime createdAt;
+
+    // Both parties of a transfer are selected, the counterparty is the one the entry was not written for
+    public ActivityItem(Long id, LedgerEntry.Type type, double amount, String depositCode, String transferCode,
+                        String senderAccountCode, String receiverAccountCode, String remarks, LocalDateTime createdAt) {
+        this.id = id;
+        this.type = type;
+        this.code = (type == LedgerEntry.Type.DEPOSIT) ? depositCode : transferCode;
+        this.counterpartyAccountCode = switch (type) {
+            case DEPOSIT -> null;
+            case TRANSFER_OUT -> receiverAccountCode;
+            case TRANSFER_IN -> senderAccountCode;
+        };
+        this.amount = amount;
+        this.remarks = remarks;
+        this.createdAt = createdAt;
+    }
+
+    @JsonIgnore
+    public Long getId() {
+        return id;
+    }
+
+    public LedgerEntry.Type getType() {
+        return type;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getCounterpartyAccountCode() {
+        return counterpartyAccountCode;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public String getRemarks() {
+        return remarks;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
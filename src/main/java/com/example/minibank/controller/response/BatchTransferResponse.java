@@ -0,0 +1,71 @@
+package com.example.minibank.controller.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchTransferResponse {
+
+    public enum Status {
+        COMPLETED,
+        REJECTED,
+        // Valid on its own but not applied because another transfer in an all-or-nothing batch was rejected
+        NOT_APPLIED
+    }
+
+    private final List<Result> results = new ArrayList<>();
+    private boolean committed;
+
+    public void addResult(int index, Status status, String transferCode, String message) {
+        results.add(new Result(index, status, transferCode, message));
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    public void setCommitted(boolean committed) {
+        this.committed = committed;
+    }
+
+    public long getCompletedCount() {
+        return results.stream().filter(result -> result.getStatus() == Status.COMPLETED).count();
+    }
+
+    public long getRejectedCount() {
+        return results.stream().filter(result -> result.getStatus() == Status.REJECTED).count();
+    }
+
+    public static class Result {
+        private final int index;
+        private final Status status;
+        private final String transferCode;
+        private final String message;
+
+        public Result(int index, Status status, String transferCode, String message) {
+            this.index = index;
+            this.status = status;
+            this.transferCode = transferCode;
+            this.message = message;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public String getTransferCode() {
+            return transferCode;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
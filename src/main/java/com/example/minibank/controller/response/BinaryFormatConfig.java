@@ -0,0 +1,100 @@
+package com.example.minibank.controller.response;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+/**
+ * Smile and CBOR, binary encodings of the same data as the JSON responses, for clients that ask for one with
+ * {@code Accept}. The converters are added after the JSON one, so requests without {@code Accept} or with a
+ * wildcard still get JSON. Their object mappers come from Spring Boot's builder, so views, sparse fieldsets
+ * and dates are the same in every format.
+ */
+@Configuration
+public class BinaryFormatConfig implements WebMvcConfigurer {
+
+    public static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
+    public static final MediaType CBOR = new MediaType("application", "cbor");
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders;
+
+    @Autowired
+    public BinaryFormatConfig(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders) {
+        this.objectMapperBuilders = objectMapperBuilders;
+    }
+
+    /**
+     * Returns the binary format a request with this {@code Accept} header is answered in, or null for JSON.
+     */
+    public static MediaType binaryFormatOf(String accept) {
+        if (accept == null) {
+            return null;
+        }
+
+        try {
+            List<MediaType> acceptable = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(acceptable);
+
+            for (MediaType mediaType : acceptable) {
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    return null;
+                }
+                if (mediaType.isCompatibleWith(SMILE)) {
+                    return SMILE;
+                }
+                if (mediaType.isCompatibleWith(CBOR)) {
+                    return CBOR;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+
+        return null;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        int json = 0;
+
+        while (json < converters.size() && !(converters.get(json) instanceof MappingJackson2HttpMessageConverter)) {
+            json++;
+        }
+
+        // Built by Spring Boot's (prototype) builder, with the customizers applied, but on a binary factory
+        converters.add(Math.min(json + 1, converters.size()), new MappingJackson2SmileHttpMessageConverter(
+                objectMapperBuilders.getObject().factory(new SmileFactory()).build()));
+        converters.add(Math.min(json + 2, converters.size()), new MappingJackson2CborHttpMessageConverter(
+                objectMapperBuilders.getObject().factory(new CBORFactory()).build()));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Responses depend on Accept, which shared caches have to take into account
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+                return true;
+            }
+        });
+    }
+}
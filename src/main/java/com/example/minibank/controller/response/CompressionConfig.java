@@ -0,0 +1,43 @@
+package com.example.minibank.controller.response;
+
+import org.apache.coyote.http11.AbstractHttp11Protocol;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Response compression itself is configured with {@code server.compression.*}. By default Tomcat does not
+ * compress responses with a strong ETag, as the tag would then stand for two different byte sequences. Strong
+ * tags here carry the content coding (see {@link EntityTags#strong}), so compressing them is safe.
+ */
+@Configuration
+public class CompressionConfig implements WebServerFactoryCustomizer<TomcatServletWebServerFactory> {
+
+    /**
+     * Whether a request with this {@code Accept-Encoding} header is answered gzipped when compression applies.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public void customize(TomcatServletWebServerFactory factory) {
+        factory.addConnectorCustomizers(connector -> {
+            if (connector.getProtocolHandler() instanceof AbstractHttp11Protocol<?> protocol) {
+                protocol.setNoCompressionStrongETag(false);
+            }
+        });
+    }
+}
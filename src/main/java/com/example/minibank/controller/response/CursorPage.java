@@ -0,0 +1,127 @@
+package com.example.minibank.controller.response;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. {@code next} is an opaque cursor to pass back for the
+ * following page and is null on the last page.
+ */
+public class CursorPage<T> {
+
+    private static final String CURSOR_PREFIX = "id:";
+    private static final String TIME_CURSOR_PREFIX = "at:";
+
+    private final List<T> items;
+    private final String next;
+
+    public CursorPage(List<T> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code pageSize + 1}; the extra row only signals that
+     * another page exists.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int pageSize, Function<T, String> cursorExtractor) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+
+        List<T> items = rows.subList(0, pageSize);
+
+        return new CursorPage<>(items, cursorExtractor.apply(items.get(pageSize - 1)));
+    }
+
+    public static String encodeCursor(long id) {
+        return encode(CURSOR_PREFIX + id);
+    }
+
+    /**
+     * Cursor for listings ordered by creation time, with the id breaking ties between rows created at the same instant.
+     */
+    public static String encodeCursor(LocalDateTime createdAt, Integer id) {
+        return encode(TIME_CURSOR_PREFIX + createdAt + "|" + id);
+    }
+
+    /**
+     * Returns the id to continue after, or 0 to start from the beginning when no cursor is given.
+     */
+    public static int decodeCursor(String cursor) {
+        long id = decodeLongCursor(cursor);
+
+        if (id > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        return (int) id;
+    }
+
+    /**
+     * Like {@link #decodeCursor(String)}, for listings keyed by long ids.
+     */
+    public static long decodeLongCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+
+        try {
+            return Long.parseLong(decode(cursor, CURSOR_PREFIX));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Returns the position to continue before, or null to start from the newest row when no cursor is given.
+     */
+    public static TimeCursor decodeTimeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+
+        String[] parts = decode(cursor, TIME_CURSOR_PREFIX).split("\\|");
+
+        try {
+            return new TimeCursor(LocalDateTime.parse(parts[0]), Integer.parseInt(parts[1]));
+        } catch (DateTimeParseException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static String encode(String cursor) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor, String prefix) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+
+            if (!decoded.startsWith(prefix)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+
+            return decoded.substring(prefix.length());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public record TimeCursor(LocalDateTime createdAt, int id) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.minibank.controller.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CustomerImportReport {
+
+    // Every rejected row is counted, but only this many are listed, so a bad file cannot make the report unbounded
+    private final int maximumErrors;
+    private final List<RowError> errors = new ArrayList<>();
+    private long imported;
+    private long accountsOpened;
+    private long rejected;
+
+    public CustomerImportReport(int maximumErrors) {
+        this.maximumErrors = maximumErrors;
+    }
+
+    public void addImported(int customers, int accounts) {
+        imported += customers;
+        accountsOpened += accounts;
+    }
+
+    public void addError(long line, String message) {
+        rejected++;
+
+        if (errors.size() < maximumErrors) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getAccountsOpened() {
+        return accountsOpened;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public boolean isErrorsTruncated() {
+        return rejected > errors.size();
+    }
+
+    public static class RowError {
+        private final long line;
+        private final String message;
+
+        public RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.minibank.controller.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+
+/**
+ * A customer as listed by {@code GET /customers}, selected column by column so that listing never loads the
+ * customer's account.
+ */
+public class CustomerSummary {
+
+    private final Integer id;
+    private final String code;
+    private final String name;
+    private final String email;
+    private final LocalDate dateOfBirth;
+    private final long version;
+    private final LocalDateTime updatedAt;
+    private final LocalDateTime createdAt;
+
+    public CustomerSummary(Integer id, String code, String name, String email, LocalDate dateOfBirth,
+                           long version, LocalDateTime updatedAt, LocalDateTime createdAt) {
+        this.id = id;
+        this.code = code;
+        this.name = name;
+        this.email = email;
+        this.dateOfBirth = dateOfBirth;
+        this.version = version;
+        this.updatedAt = updatedAt;
+        this.createdAt = createdAt;
+    }
+
+    @JsonIgnore
+    public Integer getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public LocalDate getDateOfBirth() {
+        return dateOfBirth;
+    }
+
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Integer getAge() {
+        return Period.between(dateOfBirth, LocalDate.now()).getYears();
+    }
+}
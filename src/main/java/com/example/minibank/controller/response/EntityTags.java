@@ -0,0 +1,71 @@
+package com.example.minibank.controller.response;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * ETags built from entity versions rather than from response bodies, so they can be computed, and a matching
+ * {@code If-None-Match} answered, before anything is loaded or serialized.
+ */
+public final class EntityTags {
+
+    // Enough of the digest to make an accidental collision between two pages of the same listing implausible
+    private static final int WEAK_TAG_BYTES = 12;
+
+    private EntityTags() {
+    }
+
+    /**
+     * Strong ETag of a single resource from the versions of every row its representation is built from. The
+     * query string selects the representation and is part of the resource, so it is not part of the tag. The
+     * negotiated format and content coding are: the bytes of a Smile or a gzipped response differ from the
+     * plain JSON ones. A response below the compression threshold is tagged as gzipped without being so, which
+     * only costs a 200 to a client that switches encodings.
+     */
+    public static String strong(WebRequest request, long... versions) {
+        MediaType binaryFormat = BinaryFormatConfig.binaryFormatOf(request.getHeader(HttpHeaders.ACCEPT));
+        String suffix = ((binaryFormat != null) ? "-" + binaryFormat.getSubtype() : "")
+                + (CompressionConfig.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING)) ? "-gzip" : "");
+
+        return Arrays.stream(versions)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(".", "\"", suffix + "\""));
+    }
+
+    /**
+     * Weak ETag of a listing page from the id and version of every item on it and the cursor to the next page.
+     * It changes when an item is added, removed or updated. Being weak, it is shared by the same page in every
+     * format.
+     */
+    public static <T> String weak(CursorPage<T> page, Function<T, String> versionOf) {
+        MessageDigest digest = sha256();
+
+        for (T item : page.getItems()) {
+            digest.update(versionOf.apply(item).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ',');
+        }
+
+        if (page.getNext() != null) {
+            digest.update(page.getNext().getBytes(StandardCharsets.UTF_8));
+        }
+
+        return "W/\"" + HexFormat.of().formatHex(digest.digest(), 0, WEAK_TAG_BYTES) + "\"";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
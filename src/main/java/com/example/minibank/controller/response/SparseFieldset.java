@@ -0,0 +1,82 @@
+package com.example.minibank.controller.response;
+
+import com.example.minibank.model.AccountView;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The parts of an account a client asked for: associations with {@code include=customer,transfers} and top-level
+ * fields with {@code fields=code,balance,updatedAt}. Without either, the whole account is rendered. The view also
+ * tells the service which associations it has to load.
+ */
+public class SparseFieldset {
+
+    public static final String FILTER = "sparseFieldset";
+
+    private static final List<String> INCLUDES = List.of("customer", "transfers");
+    private static final List<String> ACCOUNT_FIELDS = List.of(
+            "code", "balance", "updatedAt", "createdAt", "customer", "sentTransfers", "receivedTransfers");
+
+    private final AccountView view;
+    private final Set<String> fields;
+
+    private SparseFieldset(AccountView view, Set<String> fields) {
+        this.view = view;
+        this.fields = fields;
+    }
+
+    public static SparseFieldset forAccount(Set<String> include, Set<String> fields) {
+        requireKnown("include", include, INCLUDES);
+        requireKnown("field", fields, ACCOUNT_FIELDS);
+
+        if (include != null) {
+            return new SparseFieldset(AccountView.of(include.contains("customer"), include.contains("transfers")), fields);
+        }
+
+        if (fields != null) {
+            boolean transfers = fields.contains("sentTransfers") || fields.contains("receivedTransfers");
+            return new SparseFieldset(AccountView.of(fields.contains("customer"), transfers), fields);
+        }
+
+        return new SparseFieldset(AccountView.FULL, null);
+    }
+
+    public AccountView getView() {
+        return view;
+    }
+
+    public MappingJacksonValue render(Object body) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setSerializationView(view.getJsonView());
+
+        if (fields != null) {
+            value.setFilters(new SimpleFilterProvider().addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+        }
+
+        return value;
+    }
+
+    private static void requireKnown(String name, Set<String> values, List<String> known) {
+        if (values == null) {
+            return;
+        }
+
+        for (String value : values) {
+            if (!known.contains(value)) {
+                throw new IllegalArgumentException("Unknown " + name + ": " + value + ". Expected one of " + known);
+            }
+        }
+    }
+
+    /**
+     * Mixed into the types whose top-level fields can be selected. Other serializations pass every field.
+     */
+    @JsonFilter(FILTER)
+    public interface Filtered {
+    }
+}
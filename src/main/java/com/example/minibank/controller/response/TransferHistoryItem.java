@@ -0,0 +1,65 @@
+package com.example.minibank.controller.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+
+/**
+ * A transfer as seen from one account: whether it was sent or received and who the other party was.
+ */
+public class TransferHistoryItem {
+
+    public enum Direction {
+        SENT,
+        RECEIVED
+    }
+
+    private final Integer id;
+    private final String code;
+    private final Direction direction;
+    private final String counterpartyAccountCode;
+    private final double amount;
+    private final String remarks;
+    private final LocalDateTime createdAt;
+
+    // Direction is passed by name so that repository queries can select it as a string literal
+    public TransferHistoryItem(Integer id, String code, String direction, String counterpartyAccountCode,
+                               double amount, String remarks, LocalDateTime createdAt) {
+        this.id = id;
+        this.code = code;
+        this.direction = Direction.valueOf(direction);
+        this.counterpartyAccountCode = counterpartyAccountCode;
+        this.amount = amount;
+        this.remarks = remarks;
+        this.createdAt = createdAt;
+    }
+
+    @JsonIgnore
+    public Integer getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public String getCounterpartyAccountCode() {
+        return counterpartyAccountCode;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public String getRemarks() {
+        return remarks;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.minibank.controller.response;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Where a transfer submitted with {@code POST /accounts/{code}/transfers/async} is. A rejected transfer carries
+ * the reason it was rejected for; it was not applied and can be submitted again.
+ */
+public class TransferStatus {
+
+    public enum Status {
+        PENDING,
+        COMPLETED,
+        REJECTED
+    }
+
+    private final String transferCode;
+    private final Status status;
+    private final String reason;
+
+    @JsonCreator
+    public TransferStatus(@JsonProperty("transferCode") String transferCode,
+                          @JsonProperty("status") Status status,
+                          @JsonProperty("reason") String reason) {
+        this.transferCode = transferCode;
+        this.status = status;
+        this.reason = reason;
+    }
+
+    public static TransferStatus pending(String transferCode) {
+        return new TransferStatus(transferCode, Status.PENDING, null);
+    }
+
+    public static TransferStatus completed(String transferCode) {
+        return new TransferStatus(transferCode, Status.COMPLETED, null);
+    }
+
+    public static TransferStatus rejected(String transferCode, String reason) {
+        return new TransferStatus(transferCode, Status.REJECTED, reason);
+    }
+
+    public String getTransferCode() {
+        return transferCode;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.minibank.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -15,9 +16,29 @@ import java.util.Optional;
 @RestControllerAdvice
 public class ControllerExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public ControllerExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(CustomerNotFoundException.class)
     @ResponseStatus(value = HttpStatus.NOT_FOUND)
     public ErrorMessage customerNotFoundException(CustomerNotFoundException ex, WebRequest request) {
+        countError(ex);
+
+        return new ErrorMessage(
+            HttpStatus.NOT_FOUND.value(),
+            LocalDateTime.now(),
+            ex.getMessage()
+        );
+    }
+
+    @ExceptionHandler(TransferNotFoundException.class)
+    @ResponseStatus(value = HttpStatus.NOT_FOUND)
+    public ErrorMessage transferNotFoundException(TransferNotFoundException ex, WebRequest request) {
+        countError(ex);
+
         return new ErrorMessage(
             HttpStatus.NOT_FOUND.value(),
             LocalDateTime.now(),
@@ -25,9 +46,23 @@ public class ControllerExceptionHandler {
         );
     }
 
+    @ExceptionHandler(TransferQueueFullException.class)
+    @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorMessage transferQueueFullException(TransferQueueFullException ex, WebRequest request) {
+        countError(ex);
+
+        return new ErrorMessage(
+            HttpStatus.SERVICE_UNAVAILABLE.value(),
+            LocalDateTime.now(),
+            ex.getMessage()
+        );
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(value = {MethodArgumentNotValidException.class})
     public ErrorMessage handleMethodArgNotValidException(MethodArgumentNotValidException ex, Locale locale) {
+        countError(ex);
+
         Optional<String> error = ex.getBindingResult()
                 .getFieldErrors()
                 .stream()
@@ -52,6 +87,8 @@ public class ControllerExceptionHandler {
     @ExceptionHandler(RuntimeException.class)
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
     public ErrorMessage globalRuntimeExceptionHandler(Exception ex, WebRequest request) {
+        countError(ex);
+
         return new ErrorMessage(
                 HttpStatus.BAD_REQUEST.value(),
                 LocalDateTime.now(),
@@ -62,10 +99,17 @@ public class ControllerExceptionHandler {
     @ExceptionHandler(Exception.class)
     @ResponseStatus(value = HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorMessage globalExceptionHandler(Exception ex, WebRequest request) {
+        countError(ex);
+
         return new ErrorMessage(
             HttpStatus.INTERNAL_SERVER_ERROR.value(),
             LocalDateTime.now(),
             ex.getMessage()
         );
     }
+
+    private void countError(Exception ex) {
+        // Tagged by exception type only, messages can contain request data
+        meterRegistry.counter("minibank.errors", "exception", ex.getClass().getSimpleName()).increment();
+    }
 }
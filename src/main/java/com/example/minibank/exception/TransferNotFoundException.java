@@ -0,0 +1,7 @@
+package com.example.minibank.exception;
+
+public class TransferNotFoundException extends RuntimeException {
+    public TransferNotFoundException() {
+        super("Transfer not found");
+    }
+}
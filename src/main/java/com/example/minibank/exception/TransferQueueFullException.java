@@ -0,0 +1,7 @@
+package com.example.minibank.exception;
+
+public class TransferQueueFullException extends RuntimeException {
+    public TransferQueueFullException() {
+        super("Too many transfers are queued, please retry later");
+    }
+}
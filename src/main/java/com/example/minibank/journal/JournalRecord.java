@@ -0,0 +1,7 @@
+package com.example.minibank.journal;
+
+/**
+ * A record read back from the journal, with the sequence number it was appended under.
+ */
+public record JournalRecord(long sequence, byte[] payload) {
+}
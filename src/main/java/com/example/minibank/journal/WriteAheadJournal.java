@@ -0,0 +1,425 @@
+package com.example.minibank.journal;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only log of opaque records, written to memory-mapped segment files and made durable in groups.
+ * Only created when {@code minibank.ledger.journal.enabled} is set.
+ * <p>
+ * Appends are queued and written by a single committer thread, which takes every append waiting, up to
+ * {@code batch-size}, optionally lingering for more, and forces them to disk together: one fsync is shared by
+ * the whole group. An append's future completes once its record is durable, in the order appended. If a force
+ * fails, the records it covered are zeroed again, so that a record whose append failed is never replayed.
+ * <p>
+ * Each record is stored as its length, sequence number, a checksum and the payload. Segments are preallocated
+ * with zeros and named after their first sequence number. On startup the segments are scanned up to the first
+ * record that is missing, torn or out of sequence; anything after it was never acknowledged and is discarded.
+ * Segments are deleted with {@link #release} once everything in them has been applied elsewhere.
+ */
+@Component
+@ConditionalOnProperty(name = "minibank.ledger.journal.enabled", havingValue = "true")
+public class WriteAheadJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadJournal.class);
+
+    // Length, sequence number and checksum
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final Timer forceTimer;
+    private final DistributionSummary batchSizeSummary;
+
+    private final BlockingQueue<Append> appends = new LinkedBlockingQueue<>();
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final long lastRecoveredSequence;
+    private final Thread committer;
+    private volatile Consumer<List<JournalRecord>> commitListener = records -> {
+    };
+    private volatile boolean running;
+    private volatile IOException failure;
+
+    // Only touched by the committer thread once constructed
+    private long nextSequence;
+    private Segment current;
+
+    @Autowired
+    public WriteAheadJournal(@Value("${minibank.ledger.journal.directory:journal}") Path directory,
+                             @Value("${minibank.ledger.journal.segment-size:64MB}") DataSize segmentSize,
+                             @Value("${minibank.ledger.journal.batch-size:256}") int batchSize,
+                             @Value("${minibank.ledger.journal.linger:0ms}") Duration linger,
+                             MeterRegistry meterRegistry) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.forceTimer = Timer.builder("minibank.ledger.journal.force")
+                .description("Time to force a group of journal records to disk")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("minibank.ledger.journal.batch.size")
+                .description("Records made durable by one force")
+                .register(meterRegistry);
+
+        this.lastRecoveredSequence = recover();
+        this.nextSequence = lastRecoveredSequence + 1;
+        this.current = openSegment(nextSequence);
+
+        this.running = true;
+        this.committer = new Thread(this::commitLoop, "journal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Queues a record and returns its sequence number once it is durable. Fails if the journal could not be
+     * written, after which it accepts no more records.
+     */
+    public CompletableFuture<Long> append(byte[] payload) {
+        if (HEADER_BYTES + payload.length > segmentSize) {
+            throw new IllegalArgumentException("Journal record of " + payload.length + " bytes does not fit in a segment");
+        }
+
+        if (!running || failure != null) {
+            throw new IllegalStateException("Journal is not accepting records", failure);
+        }
+
+        CompletableFuture<Long> durable = new CompletableFuture<>();
+        appends.add(new Append(payload, durable));
+
+        return durable;
+    }
+
+    /**
+     * Called on the committer thread with every group of records once it is durable, in sequence order.
+     */
+    public void onCommit(Consumer<List<JournalRecord>> listener) {
+        this.commitListener = listener;
+    }
+
+    /**
+     * The sequence number of the last record found on disk at startup, or 0.
+     */
+    public long getLastRecoveredSequence() {
+        return lastRecoveredSequence;
+    }
+
+    /**
+     * Reads back, in order, the records found on disk at startup with a sequence number above {@code afterSequence}.
+     */
+    public void replay(long afterSequence, Consumer<JournalRecord> consumer) throws IOException {
+        for (Map.Entry<Long, Path> segment : segments.headMap(lastRecoveredSequence + 1).entrySet()) {
+            Long nextFirstSequence = segments.higherKey(segment.getKey());
+
+            if (nextFirstSequence != null && nextFirstSequence - 1 <= afterSequence) {
+                continue;
+            }
+
+            read(segment.getValue(), segment.getKey(), record -> {
+                if (record.sequence() > afterSequence) {
+                    consumer.accept(record);
+                }
+            });
+        }
+    }
+
+    /**
+     * Deletes the segments whose records all have a sequence number up to {@code upToSequence}. The segment
+     * being written is kept.
+     */
+    public void release(long upToSequence) {
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            Long nextFirstSequence = segments.higherKey(segment.getKey());
+
+            if (nextFirstSequence == null || nextFirstSequence - 1 > upToSequence) {
+                return;
+            }
+
+            try {
+                Files.deleteIfExists(segment.getValue());
+                segments.remove(segment.getKey());
+            } catch (IOException e) {
+                log.warn("Failed to delete journal segment {}", segment.getValue(), e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops accepting records and waits for the queued ones to be made durable.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        committer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void commitLoop() {
+        List<Append> batch = new ArrayList<>(batchSize);
+
+        while (running || !appends.isEmpty()) {
+            try {
+                Append first = appends.poll(100, TimeUnit.MILLISECONDS);
+
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                gather(batch);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | UncheckedIOException e) {
+                failure = (e instanceof UncheckedIOException unchecked) ? unchecked.getCause() : (IOException) e;
+                log.error("Failed to write {} journal records, no more records will be accepted", batch.size(), e);
+                failAll(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void gather(List<Append> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + lingerNanos;
+
+        while (batch.size() < batchSize) {
+            if (appends.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            Append next = (remaining > 0) ? appends.poll(remaining, TimeUnit.NANOSECONDS) : null;
+
+            if (next == null) {
+                return;
+            }
+
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<Append> batch) throws IOException {
+        if (failure != null) {
+            failAll(batch);
+            return;
+        }
+
+        int committed = 0;
+
+        while (committed < batch.size()) {
+            committed = commitGroup(batch, committed);
+        }
+    }
+
+    /**
+     * Writes and forces the appends from {@code from} that fit in one segment, and completes them. Returns the
+     * index of the first append not yet written. If the force fails, the records are zeroed again so that none
+     * of them can be replayed after their callers were told they failed.
+     */
+    private int commitGroup(List<Append> batch, int from) throws IOException {
+        if (current.buffer.remaining() < HEADER_BYTES + batch.get(from).payload.length) {
+            current = openSegment(nextSequence);
+        }
+
+        long start = System.nanoTime();
+        List<JournalRecord> records = new ArrayList<>(batch.size() - from);
+        int forceFrom = current.buffer.position();
+        int next = from;
+
+        while (next < batch.size() && current.buffer.remaining() >= HEADER_BYTES + batch.get(next).payload.length) {
+            long sequence = nextSequence + records.size();
+            current.write(sequence, batch.get(next).payload);
+            records.add(new JournalRecord(sequence, batch.get(next).payload));
+            next++;
+        }
+
+        try {
+            current.force(forceFrom);
+        } catch (UncheckedIOException e) {
+            current.discard(forceFrom);
+            throw e;
+        }
+
+        // Recorded before any caller is woken, so one that reads the metrics sees its own force
+        forceTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizeSummary.record(records.size());
+
+        nextSequence += records.size();
+        commitListener.accept(records);
+
+        for (int i = 0; i < records.size(); i++) {
+            batch.get(from + i).durable.complete(records.get(i).sequence());
+        }
+
+        return next;
+    }
+
+    private void failAll(List<Append> batch) {
+        IllegalStateException unavailable = new IllegalStateException("Journal is not accepting records", failure);
+
+        for (Append append : batch) {
+            append.durable.completeExceptionally(unavailable);
+        }
+
+        List<Append> queued = new ArrayList<>();
+        appends.drainTo(queued);
+        queued.forEach(append -> append.durable.completeExceptionally(unavailable));
+    }
+
+    /**
+     * Finds the segments on disk and the last record in sequence, and deletes the segments after a gap.
+     */
+    private long recover() throws IOException {
+        List<Path> found;
+        try (Stream<Path> files = Files.list(directory)) {
+            found = files.filter(WriteAheadJournal::isSegment).toList();
+        }
+
+        for (Path path : found) {
+            segments.put(firstSequenceOf(path), path);
+        }
+
+        long lastSequence = 0;
+
+        for (Map.Entry<Long, Path> segment : new ArrayList<>(segments.entrySet())) {
+            if (lastSequence > 0 && segment.getKey() != lastSequence + 1) {
+                log.warn("Discarding journal segment {}, its records were never acknowledged", segment.getValue());
+                Files.delete(segment.getValue());
+                segments.remove(segment.getKey());
+                continue;
+            }
+
+            long[] last = {segment.getKey() - 1};
+            read(segment.getValue(), segment.getKey(), record -> last[0] = record.sequence());
+            lastSequence = last[0];
+        }
+
+        return lastSequence;
+    }
+
+    private void read(Path path, long firstSequence, Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long expectedSequence = firstSequence;
+
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                long sequence = buffer.getLong();
+                int checksum = buffer.getInt();
+
+                if (length <= 0 || length > buffer.remaining() || sequence != expectedSequence) {
+                    return;
+                }
+
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+
+                if (checksum(sequence, payload) != checksum) {
+                    return;
+                }
+
+                consumer.accept(new JournalRecord(sequence, payload));
+                expectedSequence++;
+            }
+        }
+    }
+
+    private Segment openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+
+        // Truncated first: an earlier segment of the same name only holds records that were never acknowledged
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            segments.put(firstSequence, path);
+
+            return new Segment(firstSequence, buffer);
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long firstSequenceOf(Path path) {
+        String name = path.getFileName().toString();
+
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int checksum(long sequence, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, sequence));
+        crc.update(payload);
+
+        return (int) crc.getValue();
+    }
+
+    private record Append(byte[] payload, CompletableFuture<Long> durable) {
+    }
+
+    /**
+     * The segment being written. Its mapping stays valid after the channel it was mapped from is closed.
+     */
+    private record Segment(long firstSequence, MappedByteBuffer buffer) {
+
+        void write(long sequence, byte[] payload) {
+            buffer.putInt(payload.length);
+            buffer.putLong(sequence);
+            buffer.putInt(checksum(sequence, payload));
+            buffer.put(payload);
+        }
+
+        void force(int from) {
+            buffer.force(from, buffer.position() - from);
+        }
+
+        /**
+         * Zeroes everything written since {@code from}, and tries to force the zeros over whatever reached disk.
+         */
+        void discard(int from) {
+            int length = buffer.position() - from;
+            buffer.put(from, new byte[length]);
+            buffer.position(from);
+
+            try {
+                buffer.force(from, length);
+            } catch (UncheckedIOException e) {
+                log.warn("Failed to force discarded journal records", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.minibank.metrics;
+
+import com.example.minibank.tracing.Tracing;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link JpaTransactionManager} that times every physical transaction from begin to cleanup, tagged with
+ * whether it committed or rolled back and whether it was read-only. Commits are also traced.
+ */
+public class MeteredJpaTransactionManager extends JpaTransactionManager {
+
+    private final transient MeterRegistry meterRegistry;
+    private final transient ThreadLocal<Deque<Transaction>> transactions = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public MeteredJpaTransactionManager(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        // Pushed after a successful begin, so every entry is matched by a cleanup
+        transactions.get().push(new Transaction(System.nanoTime(), definition.isReadOnly()));
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        // Hibernate flushes pending changes as part of the commit
+        try (Tracing.Scope ignored = Tracing.span("commit")) {
+            super.doCommit(status);
+        }
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        Transaction current = transactions.get().peek();
+
+        if (current != null) {
+            current.rolledBack = true;
+        }
+
+        super.doRollback(status);
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            Transaction completed = transactions.get().poll();
+
+            if (completed != null) {
+                Timer.builder("minibank.transactions")
+                        .description("Duration of database transactions")
+                        .tag("outcome", completed.rolledBack ? "rolled_back" : "committed")
+                        .tag("read_only", String.valueOf(completed.readOnly))
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - completed.startedAt, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private static class Transaction {
+        private final long startedAt;
+        private final boolean readOnly;
+        private boolean rolledBack;
+
+        Transaction(long startedAt, boolean readOnly) {
+            this.startedAt = startedAt;
+            this.readOnly = readOnly;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.minibank.metrics;
+
+import com.example.minibank.tracing.Tracing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Counts the SQL statements Hibernate prepares, in total by statement type and per thread so a single
+ * request can be measured. The statement text is added to the trace of the current request, if any.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final String[] TYPES = {"select", "insert", "update", "delete"};
+
+    private final ThreadLocal<int[]> currentCounts = ThreadLocal.withInitial(() -> new int[TYPES.length + 1]);
+    private final Counter[] counters = new Counter[TYPES.length + 1];
+
+    public SqlStatementCounter(MeterRegistry meterRegistry) {
+        for (int i = 0; i < TYPES.length; i++) {
+            counters[i] = counter(meterRegistry, TYPES[i]);
+        }
+
+        counters[TYPES.length] = counter(meterRegistry, "other");
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int type = typeOf(sql);
+        currentCounts.get()[type]++;
+        counters[type].increment();
+        Tracing.sql(sql);
+
+        return sql;
+    }
+
+    /**
+     * Statements prepared on this thread since the last {@link #reset()}.
+     */
+    public int getCount() {
+        int count = 0;
+
+        for (int typeCount : currentCounts.get()) {
+            count += typeCount;
+        }
+
+        return count;
+    }
+
+    /**
+     * Statements of one type ({@code select}, {@code insert}, {@code update}, {@code delete} or {@code other})
+     * prepared on this thread since the last {@link #reset()}.
+     */
+    public int getCount(String type) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(type)) {
+                return currentCounts.get()[i];
+            }
+        }
+
+        return currentCounts.get()[TYPES.length];
+    }
+
+    public void reset() {
+        Arrays.fill(currentCounts.get(), 0);
+    }
+
+    private static int typeOf(String sql) {
+        String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+
+        for (int i = 0; i < TYPES.length; i++) {
+            if (statement.startsWith(TYPES[i])) {
+                return i;
+            }
+        }
+
+        return TYPES.length;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("minibank.sql.statements")
+                .description("SQL statements prepared by Hibernate")
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+}
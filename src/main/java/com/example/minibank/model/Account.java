@@ -3,6 +3,8 @@ package com.example.minibank.model;
 import com.example.minibank.exception.AccountTransactionException;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonView;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -17,35 +19,67 @@ public class Account {
 
     @JsonIgnore
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accounts_seq")
+    @SequenceGenerator(name = "accounts_seq", sequenceName = "accounts_seq", allocationSize = 50)
     private Integer id;
 
-    @Column(name = "code", nullable = false)
+    @JsonView(Views.Summary.class)
+    @Convert(converter = UuidCodeConverter.class)
+    @Column(name = "code", columnDefinition = "BINARY(16)", nullable = false, unique = true)
     private String code;
 
+    @JsonView(Views.Summary.class)
     @Column(name = "balance", nullable = false)
     private double balance;
 
+    // The credits held in the stripes of a hot account, see AccountStripe. Only loaded to render the account
+    @Transient
+    private double stripedBalance;
+
+    @JsonIgnore
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @JsonView(Views.Summary.class)
     @Column(name = "updated_at", nullable = false)
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    @JsonView(Views.Summary.class)
     @Column(name = "created_at", nullable = false)
     @CreationTimestamp
     private LocalDateTime createdAt;
 
+    @JsonView(Views.WithCustomer.class)
     @OneToOne
     @JoinColumn(name = "customer_id", referencedColumnName = "id")
     private Customer customer;
 
-    @JsonManagedReference
+    @JsonView(Views.WithTransfers.class)
+    @JsonManagedReference("sentTransfers")
     @OneToMany(mappedBy = "senderAccount")
     private List<Transfer> sentTransfers;
 
-    @JsonManagedReference
+    @JsonView(Views.WithTransfers.class)
+    @JsonManagedReference("receivedTransfers")
     @OneToMany(mappedBy = "receiverAccount")
     private List<Transfer> receivedTransfers;
 
+    public Account() {
+    }
+
+    /**
+     * An unmanaged account with only its own columns, selected when neither its customer nor its transfers are rendered.
+     */
+    public Account(Integer id, String code, double balance, LocalDateTime updatedAt, LocalDateTime createdAt) {
+        this.id = id;
+        this.code = code;
+        this.balance = balance;
+        this.updatedAt = updatedAt;
+        this.createdAt = createdAt;
+    }
+
     public synchronized void deposit(double amount) {
         if (amount < 0) {
             throw new AccountTransactionException("Cannot deposit negative amount");
@@ -78,14 +112,39 @@ public class Account {
         this.code = code;
     }
 
+    /**
+     * The balance held in the account's own row. For a striped account, this leaves out what its stripes hold.
+     */
+    @JsonIgnore
     public double getBalance() {
         return balance;
     }
 
+    @JsonProperty("balance")
     public void setBalance(double balance) {
         this.balance = balance;
     }
 
+    /**
+     * The balance the account is rendered with: its own, plus its stripes' if they were loaded.
+     */
+    @JsonProperty("balance")
+    public double getTotalBalance() {
+        return balance + stripedBalance;
+    }
+
+    public void setStripedBalance(double stripedBalance) {
+        this.stripedBalance = stripedBalance;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public List<Transfer> getSentTransfers() {
         return (sentTransfers != null) ? sentTransfers : Collections.emptyList();
     }
@@ -0,0 +1,52 @@
+package com.example.minibank.model;
+
+import javax.persistence.*;
+
+/**
+ * One of the sub-balances of a hot account. Concurrent credits to a striped account update different stripes
+ * instead of all queueing on its row in {@code accounts}; its balance is its own plus the sum of its stripes.
+ */
+@Entity
+@Table(name = "account_stripes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_account_stripes_account_id_stripe", columnNames = {"account_id", "stripe"})
+})
+public class AccountStripe {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_stripes_seq")
+    @SequenceGenerator(name = "account_stripes_seq", sequenceName = "account_stripes_seq", allocationSize = 50)
+    private Integer id;
+
+    @Column(name = "account_id", nullable = false)
+    private Integer accountId;
+
+    @Column(name = "stripe", nullable = false)
+    private int stripe;
+
+    @Column(name = "balance", nullable = false)
+    private double balance;
+
+    protected AccountStripe() {
+    }
+
+    public AccountStripe(Integer accountId, int stripe) {
+        this.accountId = accountId;
+        this.stripe = stripe;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Integer getAccountId() {
+        return accountId;
+    }
+
+    public int getStripe() {
+        return stripe;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.minibank.model;
+
+/**
+ * Which associations of an account are rendered, and therefore which ones have to be loaded.
+ */
+public enum AccountView {
+    SUMMARY(Views.Summary.class, false, false),
+    WITH_CUSTOMER(Views.WithCustomer.class, true, false),
+    WITH_TRANSFERS(Views.WithTransfers.class, false, true),
+    FULL(Views.Full.class, true, true);
+
+    private final Class<?> jsonView;
+    private final boolean customer;
+    private final boolean transfers;
+
+    AccountView(Class<?> jsonView, boolean customer, boolean transfers) {
+        this.jsonView = jsonView;
+        this.customer = customer;
+        this.transfers = transfers;
+    }
+
+    public static AccountView of(boolean customer, boolean transfers) {
+        if (customer) {
+            return transfers ? FULL : WITH_CUSTOMER;
+        }
+
+        return transfers ? WITH_TRANSFERS : SUMMARY;
+    }
+
+    public Class<?> getJsonView() {
+        return jsonView;
+    }
+
+    public boolean includesCustomer() {
+        return customer;
+    }
+
+    public boolean includesTransfers() {
+        return transfers;
+    }
+}
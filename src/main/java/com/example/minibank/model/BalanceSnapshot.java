@@ -0,0 +1,63 @@
+package com.example.minibank.model;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The balance of an account after all of its ledger entries up to {@code lastEntryId}, the latest of which was
+ * written at {@code lastEntryAt}. Snapshots are only ever inserted, all at once by
+ * {@link com.example.minibank.repository.BalanceSnapshotRepository#insertSnapshots}, so a balance is the latest
+ * snapshot plus the entries after it rather than the sum of every entry.
+ */
+@Entity
+@Immutable
+@Table(name = "balance_snapshots", indexes = {
+        @Index(name = "idx_balance_snapshots_account_id_last_entry_at", columnList = "account_id, last_entry_at")
+})
+public class BalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Integer accountId;
+
+    @Column(name = "last_entry_id", nullable = false)
+    private long lastEntryId;
+
+    @Column(name = "last_entry_at", nullable = false)
+    private LocalDateTime lastEntryAt;
+
+    @Column(name = "balance", nullable = false)
+    private double balance;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getAccountId() {
+        return accountId;
+    }
+
+    public long getLastEntryId() {
+        return lastEntryId;
+    }
+
+    public LocalDateTime getLastEntryAt() {
+        return lastEntryAt;
+    }
+
+    public double getBalance() {
+        return balance;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.minibank.model;
 
-import com.example.minibank.model.Account;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonView;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -17,37 +17,51 @@ public class Customer {
 
     @JsonIgnore
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customers_seq")
+    @SequenceGenerator(name = "customers_seq", sequenceName = "customers_seq", allocationSize = 50)
     private Integer id;
 
-    @Column(columnDefinition = "CHAR(36)", nullable = false)
+    @JsonView(Views.Summary.class)
+    @Convert(converter = UuidCodeConverter.class)
+    @Column(columnDefinition = "BINARY(16)", nullable = false, unique = true)
     private String code;
 
+    @JsonView(Views.Summary.class)
     @NotBlank
     @Size(min = 3, max = 255, message = "Name must contain 3-255 characters")
     @Column(nullable = false)
     private String name;
 
+    @JsonView(Views.Summary.class)
     @NotBlank(message = "Email is required")
     @Email(message = "Email is invalid")
     @Column(unique = true, nullable = false)
     private String email;
 
+    @JsonView(Views.Summary.class)
     @Column(name = "date_of_birth", nullable = false)
     @NotNull(message = "Date of birth is required")
     private LocalDate dateOfBirth;
 
+    @JsonView(Views.Summary.class)
     @Column(name = "updated_at", nullable = false)
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    @JsonView(Views.Summary.class)
     @Column(name = "created_at", nullable = false)
     @CreationTimestamp
     private LocalDateTime createdAt;
 
+    @JsonView(Views.Summary.class)
     @Transient
     private Integer age;
 
+    @JsonIgnore
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @OneToOne(mappedBy = "customer")
     private Account account;
 
@@ -107,6 +121,14 @@ public class Customer {
         this.createdAt = createdAt;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public Integer getAge() {
         return Period.between(this.dateOfBirth, LocalDate.now()).getYears();
     }
@@ -0,0 +1,71 @@
+package com.example.minibank.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A deposit into an account, recorded in the same transaction as the balance change so deposits can be
+ * reconciled against what was received upstream. Deposits are only ever inserted.
+ */
+@Entity
+@Immutable
+@Table(name = "deposits", indexes = {
+        @Index(name = "idx_deposits_account_created_at", columnList = "account_id, created_at")
+})
+public class Deposit {
+
+    @JsonIgnore
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "deposits_seq")
+    @SequenceGenerator(name = "deposits_seq", sequenceName = "deposits_seq", allocationSize = 50)
+    private Integer id;
+
+    @Convert(converter = UuidCodeConverter.class)
+    @Column(name = "code", columnDefinition = "BINARY(16)", nullable = false, unique = true)
+    private String code;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", referencedColumnName = "id", nullable = false)
+    private Account account;
+
+    @Column(name = "amount", nullable = false)
+    private double amount;
+
+    @Column(name = "created_at", nullable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    protected Deposit() {
+    }
+
+    public Deposit(String code, Account account, double amount) {
+        this.code = code;
+        this.account = account;
+        this.amount = amount;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public Account getAccount() {
+        return account;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.minibank.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * The sequence number of the last journal record applied to the database. Written in the same transaction as
+ * the records it covers, so every record is applied exactly once, however the application stopped.
+ */
+@Entity
+@Table(name = "journal_checkpoints")
+public class JournalCheckpoint {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "sequence", nullable = false)
+    private long sequence;
+
+    protected JournalCheckpoint() {
+    }
+
+    public JournalCheckpoint(String name, long sequence) {
+        this.name = name;
+        this.sequence = sequence;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.minibank.model;
+
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One balance change of one account. Entries are only ever inserted: the balance of an account is the sum of
+ * its entries, and {@link Account#getBalance()} is a projection of them kept up to date in the same transaction.
+ * Amounts are signed, a transfer is recorded as an entry for each of its two accounts.
+ */
+@Entity
+@Immutable
+@Table(name = "ledger_entries", indexes = {
+        @Index(name = "idx_ledger_entries_account_id_id", columnList = "account_id, id")
+})
+public class LedgerEntry {
+
+    public enum Type {
+        DEPOSIT,
+        TRANSFER_OUT,
+        TRANSFER_IN
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ledger_entries_seq")
+    @SequenceGenerator(name = "ledger_entries_seq", sequenceName = "ledger_entries_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Integer accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", length = 16, nullable = false)
+    private Type type;
+
+    @Column(name = "amount", nullable = false)
+    private double amount;
+
+    @Column(name = "deposit_id")
+    private Integer depositId;
+
+    @Column(name = "transfer_id")
+    private Integer transferId;
+
+    @Column(name = "created_at", nullable = false)
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    protected LedgerEntry() {
+    }
+
+    private LedgerEntry(Integer accountId, Type type, double amount, Integer depositId, Integer transferId) {
+        this.accountId = accountId;
+        this.type = type;
+        this.amount = amount;
+        this.depositId = depositId;
+        this.transferId = transferId;
+    }
+
+    /**
+     * The credit of a deposit, which must have its id already, as it has once saved.
+     */
+    public static LedgerEntry deposit(Integer depositId, Integer accountId, double amount) {
+        return new LedgerEntry(accountId, Type.DEPOSIT, amount, depositId, null);
+    }
+
+    public static LedgerEntry deposit(Deposit deposit) {
+        return deposit(deposit.getId(), deposit.getAccount().getId(), deposit.getAmount());
+    }
+
+    /**
+     * The debit of the sender and the credit of the receiver. The transfer must have its id already, which
+     * it has once saved.
+     */
+    public static List<LedgerEntry> transfer(Integer transferId, Integer senderAccountId, Integer receiverAccountId, double amount) {
+        return List.of(
+                new LedgerEntry(senderAccountId, Type.TRANSFER_OUT, -amount, null, transferId),
+                new LedgerEntry(receiverAccountId, Type.TRANSFER_IN, amount, null, transferId)
+        );
+    }
+
+    public static List<LedgerEntry> transfer(Transfer transfer) {
+        return transfer(transfer.getId(), transfer.getSenderAccount().getId(), transfer.getReceiverAccount().getId(), transfer.getAmount());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Integer getAccountId() {
+        return accountId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public Integer getDepositId() {
+        return depositId;
+    }
+
+    public Integer getTransferId() {
+        return transferId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
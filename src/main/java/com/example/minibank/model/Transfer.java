@@ -2,6 +2,7 @@ package com.example.minibank.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonView;
 import org.hibernate.annotations.CreationTimestamp;
 
 import javax.persistence.*;
@@ -9,34 +10,43 @@ import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transfers")
+@Table(name = "transfers", indexes = {
+        @Index(name = "idx_transfers_sender_created_at", columnList = "sender_account_id, created_at"),
+        @Index(name = "idx_transfers_receiver_created_at", columnList = "receiver_account_id, created_at")
+})
 public class Transfer {
 
     @JsonIgnore
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfers_seq")
+    @SequenceGenerator(name = "transfers_seq", sequenceName = "transfers_seq", allocationSize = 50)
     private Integer id;
 
-    @Column(name = "code", nullable = false)
+    @JsonView(Views.Summary.class)
+    @Convert(converter = UuidCodeConverter.class)
+    @Column(name = "code", columnDefinition = "BINARY(16)", nullable = false, unique = true)
     private String code;
 
-    @JsonBackReference
-    @ManyToOne
+    @JsonBackReference("sentTransfers")
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sender_account_id", referencedColumnName = "id")
     private Account senderAccount;
 
-    @JsonBackReference // To avoid recursion
-    @ManyToOne
+    @JsonBackReference("receivedTransfers") // To avoid recursion
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "receiver_account_id", referencedColumnName = "id")
     private Account receiverAccount;
 
+    @JsonView(Views.Summary.class)
     @Column(name = "amount", nullable = false)
     private double amount;
 
+    @JsonView(Views.Summary.class)
     @Column(name = "remarks")
     @Size(max = 255)
     private String remarks;
 
+    @JsonView(Views.Summary.class)
     @Column(name = "created_at", nullable = false)
     @CreationTimestamp
     private LocalDateTime createdAt;
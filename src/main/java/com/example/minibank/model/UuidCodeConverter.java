@@ -0,0 +1,46 @@
+package com.example.minibank.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Stores UUID codes as 16 bytes instead of 36 characters while entities and the API keep using the string form.
+ */
+@Converter
+public class UuidCodeConverter implements AttributeConverter<String, byte[]> {
+
+    private static final byte[] NO_MATCH = new byte[0];
+
+    @Override
+    public byte[] convertToDatabaseColumn(String code) {
+        if (code == null) {
+            return null;
+        }
+
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(code);
+        } catch (IllegalArgumentException e) {
+            // Lookups by a malformed code simply find nothing
+            return NO_MATCH;
+        }
+
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+}
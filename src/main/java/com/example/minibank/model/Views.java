@@ -0,0 +1,23 @@
+package com.example.minibank.model;
+
+/**
+ * Jackson views of an account response. Scalar fields of accounts, customers and transfers are in {@link Summary};
+ * the associations of an account are only rendered by the views that include them.
+ */
+public final class Views {
+
+    public interface Summary {
+    }
+
+    public interface WithCustomer extends Summary {
+    }
+
+    public interface WithTransfers extends Summary {
+    }
+
+    public interface Full extends WithCustomer, WithTransfers {
+    }
+
+    private Views() {
+    }
+}
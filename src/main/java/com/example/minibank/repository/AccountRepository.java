@@ -1,15 +1,131 @@
 package com.example.minibank.repository;
 
+import com.example.minibank.controller.response.AccountSummary;
 import com.example.minibank.model.Account;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Integer> {
 
+    // Listings show the whole balance of striped accounts, only they have stripes to add up
+    String STRIPED_BALANCE = "COALESCE((SELECT SUM(s.balance) FROM AccountStripe s WHERE s.accountId = a.id), 0)";
+
+    // The customer is mapped eagerly and rendered with the account, so it is joined rather than selected separately
+    @EntityGraph(attributePaths = "customer")
     Optional<Account> findAccountByCode(String code);
+
+    @EntityGraph(attributePaths = "customer")
+    Optional<Account> findById(Integer id);
+
     Optional<Account> findAccountByCustomerId(Integer id);
 
+    @Query("SELECT new com.example.minibank.model.Account(a.id, a.code, a.balance, a.updatedAt, a.createdAt) " +
+            "FROM Account a WHERE a.id = :id")
+    Optional<Account> findSummaryById(Integer id);
+
+    // The transfer lists are bags, which cannot be fetched together, so each has its own query
+    @EntityGraph(attributePaths = {"customer", "sentTransfers"})
+    Optional<Account> findWithSentTransfersById(Integer id);
+
+    @EntityGraph(attributePaths = "receivedTransfers")
+    Optional<Account> findWithReceivedTransfersById(Integer id);
+
+    List<Account> findAccountsByCodeIn(Collection<String> codes);
+
+    @Query("SELECT new com.example.minibank.controller.response.AccountSummary(" +
+            "a.id, a.code, a.balance + " + STRIPED_BALANCE + ", c.code, c.name, a.version, COALESCE(c.version, 0), a.updatedAt, a.createdAt) " +
+            "FROM Account a LEFT JOIN a.customer c " +
+            "WHERE a.id > :afterId " +
+            "ORDER BY a.id")
+    List<AccountSummary> findAccountSummaries(Integer afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.minibank.controller.response.AccountSummary(" +
+            "a.id, a.code, a.balance + " + STRIPED_BALANCE + ", c.code, c.name, a.version, COALESCE(c.version, 0), a.updatedAt, a.createdAt) " +
+            "FROM Account a LEFT JOIN a.customer c " +
+            "WHERE a.id > :afterId AND a.updatedAt >= :updatedSince " +
+            "ORDER BY a.id")
+    List<AccountSummary> findAccountSummariesUpdatedSince(Integer afterId, LocalDateTime updatedSince, Pageable pageable);
+
+    @Query("SELECT a.id FROM Account a WHERE a.code = :code")
+    Optional<Integer> findAccountIdByCode(String code);
+
+    // The ids of a whole batch of codes in one query; codes without an account are left out
+    @Query("SELECT a.code AS code, a.id AS id FROM Account a WHERE a.code IN :codes")
+    List<CodeId> findAccountIdsByCodeIn(Collection<String> codes);
+
+    // Only the versions, so a conditional GET can be answered without loading the account
+    @Query("SELECT a.version AS account, COALESCE(c.version, 0) AS customer FROM Account a LEFT JOIN a.customer c WHERE a.id = :id")
+    Optional<Versions> findVersionsById(Integer id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findAccountByIdForUpdate(Integer id);
+
+    // Locked in one statement, in id order like the accounts of a single transfer. The customer is mapped eagerly,
+    // so it is joined rather than selected for each account
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @EntityGraph(attributePaths = "customer")
+    @Query("SELECT a FROM Account a WHERE a.id IN :ids ORDER BY a.id")
+    List<Account> findAccountsByIdInForUpdate(Collection<Integer> ids);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = :balance, a.version = a.version + 1, a.updatedAt = CURRENT_TIMESTAMP WHERE a.id = :id")
+    int updateBalance(Integer id, double balance);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.version = a.version + 1, a.updatedAt = CURRENT_TIMESTAMP WHERE a.id = :id")
+    int addToBalance(Integer id, double amount);
+
+    @Query("SELECT COALESCE(MAX(a.id), 0) FROM Account a")
+    int findLastAccountId();
+
+    // Both rebuilds recompute the balances of the accounts with ids in (afterId, upToId] with a subquery per account,
+    // each seeking on its ledger entries and its latest snapshot, so a chunk only reads the rows of its own accounts
+
+    @Modifying
+    @Query(nativeQuery = true, value = "UPDATE accounts a SET " +
+            "balance = COALESCE((SELECT SUM(e.amount) FROM ledger_entries e WHERE e.account_id = a.id), 0), " +
+            "version = version + 1, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE a.id > :afterId AND a.id <= :upToId")
+    int rebuildBalancesFromEntries(int afterId, int upToId);
+
+    @Modifying
+    @Query(nativeQuery = true, value = "UPDATE accounts a SET " +
+            "balance = COALESCE((SELECT s.balance FROM balance_snapshots s WHERE s.account_id = a.id " +
+            "ORDER BY s.last_entry_at DESC, s.last_entry_id DESC LIMIT 1), 0) " +
+            "+ COALESCE((SELECT SUM(e.amount) FROM ledger_entries e WHERE e.account_id = a.id AND e.id > " +
+            "COALESCE((SELECT s.last_entry_id FROM balance_snapshots s WHERE s.account_id = a.id " +
+            "ORDER BY s.last_entry_at DESC, s.last_entry_id DESC LIMIT 1), 0)), 0), " +
+            "version = version + 1, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE a.id > :afterId AND a.id <= :upToId")
+    int rebuildBalancesFromSnapshots(int afterId, int upToId);
+
+    /**
+     * The versions of an account and of its customer, which can be rendered with it. The customer's version is 0
+     * for an account without one.
+     */
+    interface Versions {
+        long getAccount();
+
+        long getCustomer();
+    }
+
+    interface CodeId {
+        String getCode();
+
+        Integer getId();
+    }
+
 }
@@ -0,0 +1,46 @@
+package com.example.minibank.repository;
+
+import com.example.minibank.model.AccountStripe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+
+public interface AccountStripeRepository extends JpaRepository<AccountStripe, Integer> {
+
+    @Query("SELECT s.accountId AS accountId, COUNT(s) AS stripes FROM AccountStripe s GROUP BY s.accountId")
+    List<StripeCount> findStripeCounts();
+
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM AccountStripe s WHERE s.accountId = :accountId")
+    double sumBalances(Integer accountId);
+
+    // Locked in stripe order, so two sweeps of the same account queue up instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountStripe s WHERE s.accountId = :accountId ORDER BY s.stripe")
+    List<AccountStripe> findByAccountIdForUpdate(Integer accountId);
+
+    @Modifying
+    @Query("UPDATE AccountStripe s SET s.balance = s.balance + :amount WHERE s.accountId = :accountId AND s.stripe = :stripe")
+    int addToBalance(Integer accountId, int stripe, double amount);
+
+    @Modifying
+    @Query("UPDATE AccountStripe s SET s.balance = 0 WHERE s.accountId = :accountId")
+    int clearBalances(Integer accountId);
+
+    @Modifying
+    @Query("UPDATE AccountStripe s SET s.balance = 0 WHERE s.accountId > :afterId AND s.accountId <= :upToId")
+    int clearBalances(int afterId, int upToId);
+
+    @Modifying
+    @Query("DELETE FROM AccountStripe s WHERE s.accountId = :accountId")
+    int deleteByAccountId(Integer accountId);
+
+    interface StripeCount {
+        Integer getAccountId();
+
+        long getStripes();
+    }
+}
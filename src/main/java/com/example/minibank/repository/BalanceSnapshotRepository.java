@@ -0,0 +1,36 @@
+package com.example.minibank.repository;
+
+import com.example.minibank.model.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    /**
+     * The latest snapshot of an account that only covers entries written at or before {@code at}.
+     */
+    Optional<BalanceSnapshot> findFirstByAccountIdAndLastEntryAtLessThanEqualOrderByLastEntryAtDescLastEntryIdDesc(
+            Integer accountId, LocalDateTime at);
+
+    @Query("SELECT COALESCE(MAX(s.lastEntryId), 0) FROM BalanceSnapshot s")
+    long findLastSnapshottedEntryId();
+
+    /**
+     * Snapshots, in one statement, every account with entries in {@code (afterEntryId, upToEntryId]}: its latest
+     * snapshot plus those entries. Accounts without new entries keep their latest snapshot. Only the given range
+     * of entries is read, and one snapshot per account found in it.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO balance_snapshots (account_id, last_entry_id, last_entry_at, balance, created_at) " +
+            "SELECT d.account_id, d.last_entry_id, d.last_entry_at, " +
+            "COALESCE((SELECT s.balance FROM balance_snapshots s WHERE s.account_id = d.account_id " +
+            "ORDER BY s.last_entry_at DESC, s.last_entry_id DESC LIMIT 1), 0) + d.amount, " +
+            "CURRENT_TIMESTAMP " +
+            "FROM (SELECT e.account_id, MAX(e.id) AS last_entry_id, MAX(e.created_at) AS last_entry_at, SUM(e.amount) AS amount " +
+            "FROM ledger_entries e WHERE e.id > :afterEntryId AND e.id <= :upToEntryId GROUP BY e.account_id) d")
+    int insertSnapshots(long afterEntryId, long upToEntryId);
+}
@@ -1,18 +1,54 @@
 package com.example.minibank.repository;
 
+import com.example.minibank.controller.response.CustomerSummary;
 import com.example.minibank.model.Customer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Integer> {
+    // The inverse side of the one-to-one cannot be lazy, so the account is joined rather than selected separately
+    @EntityGraph(attributePaths = "account")
     Optional<Customer> findCustomerByCode(String code);
+
+    @EntityGraph(attributePaths = "account")
+    Optional<Customer> findById(Integer id);
+
     Optional<Customer> findCustomerByEmail(String email);
 
+    @Query("SELECT c.id FROM Customer c WHERE c.code = :code")
+    Optional<Integer> findCustomerIdByCode(String code);
+
+    // Only the version, so a conditional GET can be answered without loading the customer
+    @Query("SELECT c.version FROM Customer c WHERE c.id = :id")
+    Optional<Long> findVersionById(Integer id);
+
+    @Query("SELECT new com.example.minibank.controller.response.CustomerSummary(" +
+            "c.id, c.code, c.name, c.email, c.dateOfBirth, c.version, c.updatedAt, c.createdAt) " +
+            "FROM Customer c " +
+            "WHERE c.id > :afterId " +
+            "ORDER BY c.id")
+    List<CustomerSummary> findCustomerSummaries(Integer afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.minibank.controller.response.CustomerSummary(" +
+            "c.id, c.code, c.name, c.email, c.dateOfBirth, c.version, c.updatedAt, c.createdAt) " +
+            "FROM Customer c " +
+            "WHERE c.id > :afterId AND c.updatedAt >= :updatedSince " +
+            "ORDER BY c.id")
+    List<CustomerSummary> findCustomerSummariesUpdatedSince(Integer afterId, LocalDateTime updatedSince, Pageable pageable);
+
     @Query("SELECT c FROM Customer c WHERE c.email = :email AND c.email NOT IN (:emailsToExclude)")
     Optional<Customer> findCustomerByEmailWithExcludeList(String email, List<String> emailsToExclude);
+
+    // Which of a chunk of imported emails are taken, in one query instead of one per customer
+    @Query("SELECT c.email FROM Customer c WHERE c.email IN (:emails)")
+    List<String> findTakenEmails(Collection<String> emails);
 }
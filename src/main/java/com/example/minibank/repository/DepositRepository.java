@@ -0,0 +1,13 @@
+package com.example.minibank.repository;
+
+import com.example.minibank.model.Deposit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface DepositRepository extends JpaRepository<Deposit, Integer> {
+
+    Optional<Deposit> findDepositByCode(String code);
+}
@@ -0,0 +1,28 @@
+package com.example.minibank.repository;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Groups the inserts and updates of a flush into JDBC batches, ordered by entity so that each table's rows share
+ * one batch. A deposit or transfer writes a row to several tables, so without ordering they would interleave and
+ * every row would be a round trip of its own. Deposits, transfers and ledger entries take their ids from pooled
+ * sequences, as identity columns disable insert batching. {@code spring.jpa.properties.hibernate.*} settings
+ * take precedence.
+ */
+@Configuration
+public class JdbcBatchingConfig {
+
+    static final int DEFAULT_BATCH_SIZE = 50;
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, DEFAULT_BATCH_SIZE);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+        };
+    }
+}
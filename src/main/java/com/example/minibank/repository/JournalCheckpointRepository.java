@@ -0,0 +1,7 @@
+package com.example.minibank.repository;
+
+import com.example.minibank.model.JournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JournalCheckpointRepository extends JpaRepository<JournalCheckpoint, String> {
+}
@@ -0,0 +1,34 @@
+package com.example.minibank.repository;
+
+import com.example.minibank.controller.response.ActivityItem;
+import com.example.minibank.model.LedgerEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM LedgerEntry e")
+    long findLastEntryId();
+
+    // Seeks on (account_id, id), so only the entries after the snapshot are read
+    @Query("SELECT COALESCE(SUM(e.amount), 0) FROM LedgerEntry e " +
+            "WHERE e.accountId = :accountId AND e.id > :afterEntryId AND e.createdAt <= :at")
+    double sumAmountsAfter(Integer accountId, long afterEntryId, LocalDateTime at);
+
+    // Seeks on (account_id, id) newest first. Entry ids are handed out in the order entries are written, so they
+    // order the feed by time without a sort, and each entry joins the deposit or transfer it was written for
+    @Query("SELECT new com.example.minibank.controller.response.ActivityItem(" +
+            "e.id, e.type, e.amount, d.code, t.code, s.code, r.code, t.remarks, e.createdAt) " +
+            "FROM LedgerEntry e " +
+            "LEFT JOIN Deposit d ON d.id = e.depositId " +
+            "LEFT JOIN Transfer t ON t.id = e.transferId " +
+            "LEFT JOIN t.senderAccount s " +
+            "LEFT JOIN t.receiverAccount r " +
+            "WHERE e.accountId = :accountId AND e.id < :beforeId " +
+            "ORDER BY e.id DESC")
+    List<ActivityItem> findActivity(Integer accountId, long beforeId, Pageable pageable);
+}
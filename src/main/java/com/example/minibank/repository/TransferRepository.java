@@ -1,7 +1,77 @@
 package com.example.minibank.repository;
 
+import com.example.minibank.controller.response.TransferHistoryItem;
 import com.example.minibank.model.Transfer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 public interface TransferRepository extends JpaRepository<Transfer, Integer> {
+
+    int EXPORT_FETCH_SIZE = 500;
+
+    boolean existsByCodeAndSenderAccountId(String code, Integer senderAccountId);
+
+    // Both history queries seek on (created_at, id) newest first, served by the composite indexes on Transfer
+
+    @Query("SELECT new com.example.minibank.controller.response.TransferHistoryItem(" +
+            "t.id, t.code, 'SENT', r.code, t.amount, t.remarks, t.createdAt) " +
+            "FROM Transfer t JOIN t.receiverAccount r " +
+            "WHERE t.senderAccount.id = :accountId AND t.createdAt >= :from " +
+            "AND (t.createdAt < :beforeCreatedAt OR (t.createdAt = :beforeCreatedAt AND t.id < :beforeId)) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransferHistoryItem> findSentTransferHistory(Integer accountId, LocalDateTime from,
+                                                      LocalDateTime beforeCreatedAt, Integer beforeId,
+                                                      Pageable pageable);
+
+    @Query("SELECT new com.example.minibank.controller.response.TransferHistoryItem(" +
+            "t.id, t.code, 'RECEIVED', s.code, t.amount, t.remarks, t.createdAt) " +
+            "FROM Transfer t JOIN t.senderAccount s " +
+            "WHERE t.receiverAccount.id = :accountId AND t.createdAt >= :from " +
+            "AND (t.createdAt < :beforeCreatedAt OR (t.createdAt = :beforeCreatedAt AND t.id < :beforeId)) " +
+            "ORDER BY t.createdAt DESC, t.id DESC")
+    List<TransferHistoryItem> findReceivedTransferHistory(Integer accountId, LocalDateTime from,
+                                                          LocalDateTime beforeCreatedAt, Integer beforeId,
+                                                          Pageable pageable);
+
+    // The export streams each direction oldest first with its own query, so each is read in the order of its
+    // composite index instead of scanning and sorting both; TransferExportService merges the two streams
+
+    /**
+     * Streams every transfer an account sent, oldest first. Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT new com.example.minibank.controller.response.TransferHistoryItem(" +
+            "t.id, t.code, 'SENT', r.code, t.amount, t.remarks, t.createdAt) " +
+            "FROM Transfer t JOIN t.receiverAccount r " +
+            "WHERE t.senderAccount.id = :accountId " +
+            "ORDER BY t.createdAt, t.id")
+    Stream<TransferHistoryItem> streamSentByAccountId(Integer accountId);
+
+    /**
+     * Streams every transfer an account received, oldest first. Must be consumed inside a transaction and closed afterwards.
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("SELECT new com.example.minibank.controller.response.TransferHistoryItem(" +
+            "t.id, t.code, 'RECEIVED', s.code, t.amount, t.remarks, t.createdAt) " +
+            "FROM Transfer t JOIN t.senderAccount s " +
+            "WHERE t.receiverAccount.id = :accountId " +
+            "ORDER BY t.createdAt, t.id")
+    Stream<TransferHistoryItem> streamReceivedByAccountId(Integer accountId);
 }
@@ -0,0 +1,28 @@
+package com.example.minibank.service;
+
+import com.example.minibank.model.Account;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Decides how accounts are loaded and protected from concurrent updates while a deposit or transfer is applied.
+ * Selected with {@code minibank.transfers.concurrency-control} ({@code optimistic} or {@code pessimistic}).
+ * <p>
+ * Each call runs the given work in its own transaction, with the accounts loaded inside it.
+ */
+public interface AccountConcurrencyControl {
+
+    <T> T withAccount(String code, Function<Account, T> work);
+
+    <T> T withAccounts(String senderCode, String receiverCode, BiFunction<Account, Account, T> work);
+
+    /**
+     * Loads a sender and many receivers for a batch of transfers. Receivers are passed to the work by code;
+     * codes that match no account are left out, so the work can reject the transfers to them one by one.
+     */
+    <T> T withAccounts(String senderCode, Collection<String> receiverCodes, BiFunction<Account, Map<String, Account>, T> work);
+
+}
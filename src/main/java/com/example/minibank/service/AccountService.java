@@ -1,20 +1,38 @@
 package com.example.minibank.service;
 
+import com.example.minibank.controller.request.BatchTransferRequest;
 import com.example.minibank.controller.request.DepositRequest;
 import com.example.minibank.controller.request.TransferRequest;
+import com.example.minibank.controller.response.AccountSummary;
+import com.example.minibank.controller.response.ActivityItem;
+import com.example.minibank.controller.response.BatchTransferResponse;
+import com.example.minibank.controller.response.CursorPage;
+import com.example.minibank.controller.response.TransferHistoryItem;
 import com.example.minibank.model.Customer;
 import com.example.minibank.exception.AccountExistsException;
 import com.example.minibank.exception.AccountNotFoundException;
+import com.example.minibank.exception.AccountTransactionException;
 import com.example.minibank.model.Account;
+import com.example.minibank.model.AccountView;
+import com.example.minibank.model.Deposit;
+import com.example.minibank.model.LedgerEntry;
 import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.DepositRepository;
+import com.example.minibank.repository.LedgerEntryRepository;
 import com.example.minibank.model.Transfer;
 import com.example.minibank.repository.TransferRepository;
+import com.example.minibank.util.TimeOrderedUuid;
 import com.example.minibank.validator.AccountTransactionValidator;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class AccountService {
@@ -22,25 +40,168 @@ public class AccountService {
     public static final int MINIMUM_DEPOSIT_AMOUNT = 1;
     public static final int MAXIMUM_DEPOSIT_AMOUNT = 100_000;
     public static final int MINIMUM_TRANSFER_AMOUNT = 1;
+    public static final int MAXIMUM_PAGE_SIZE = 500;
+
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 0, 0);
 
     private final AccountRepository accountRepository;
     private final TransferRepository transferRepository;
+    private final DepositRepository depositRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final CodeLookupCache codeLookupCache;
+    private final AccountConcurrencyControl concurrencyControl;
+    private final StripedBalanceService stripedBalanceService;
+    private final IdempotencyService idempotencyService;
+    private final LedgerEngine ledgerEngine; // null unless the in-memory ledger is enabled
 
     @Autowired
-    public AccountService(AccountRepository accountRepository, TransferRepository transferRepository) {
+    public AccountService(AccountRepository accountRepository,
+                          TransferRepository transferRepository,
+                          DepositRepository depositRepository,
+                          LedgerEntryRepository ledgerEntryRepository,
+                          CodeLookupCache codeLookupCache,
+                          AccountConcurrencyControl concurrencyControl,
+                          StripedBalanceService stripedBalanceService,
+                          IdempotencyService idempotencyService,
+                          Optional<LedgerEngine> ledgerEngine) {
         this.accountRepository = accountRepository;
         this.transferRepository = transferRepository;
+        this.depositRepository = depositRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.codeLookupCache = codeLookupCache;
+        this.concurrencyControl = concurrencyControl;
+        this.stripedBalanceService = stripedBalanceService;
+        this.idempotencyService = idempotencyService;
+        this.ledgerEngine = ledgerEngine.orElse(null);
     }
 
-    public List<Account> getAllAccounts() {
-        return accountRepository.findAll();
+    @Timed(value = "minibank.service", histogram = true)
+    public CursorPage<AccountSummary> getAccounts(String cursor, int limit, LocalDateTime updatedSince) {
+        int pageSize = resolvePageSize(limit);
+        int afterId = CursorPage.decodeCursor(cursor);
+        Pageable pageable = PageRequest.ofSize(pageSize + 1);
+
+        List<AccountSummary> accounts = (updatedSince == null)
+                ? accountRepository.findAccountSummaries(afterId, pageable)
+                : accountRepository.findAccountSummariesUpdatedSince(afterId, updatedSince, pageable);
+
+        return CursorPage.of(accounts, pageSize, account -> CursorPage.encodeCursor(account.getId()));
     }
 
+    @Timed(value = "minibank.service", histogram = true)
+    @Transactional(readOnly = true)
     public Account getAccount(String code) {
-        return accountRepository.findAccountByCode(code)
+        return getAccount(code, AccountView.FULL);
+    }
+
+    /**
+     * Loads only what the view renders: the account's own columns, plus its customer and transfers if included.
+     */
+    @Timed(value = "minibank.service", histogram = true)
+    @Transactional(readOnly = true)
+    public Account getAccount(String code, AccountView view) {
+        if (ledgerEngine != null) {
+            return ledgerEngine.getAccount(code);
+        }
+
+        Account account;
+
+        if (view.includesTransfers()) {
+            account = findAccountWithTransfers(code);
+        } else if (view.includesCustomer()) {
+            account = codeLookupCache.findAccount(code)
+                    .orElseThrow(AccountNotFoundException::new);
+        } else {
+            account = accountRepository.findSummaryById(getAccountId(code))
+                    .orElseThrow(AccountNotFoundException::new);
+        }
+
+        return stripedBalanceService.loadStripedBalance(account);
+    }
+
+    /**
+     * Returns the versions {@code GET /accounts/{code}} tags its response with, read without loading the account.
+     * Empty when the account is not found, so the caller falls through to the usual lookup and its error, with the
+     * in-memory ledger, whose balances are ahead of the versions in the database, and for striped accounts, whose
+     * versions do not change when their stripes are credited.
+     */
+    @Timed(value = "minibank.service", histogram = true)
+    public Optional<AccountRepository.Versions> getAccountVersions(String code) {
+        if (ledgerEngine != null) {
+            return Optional.empty();
+        }
+
+        return codeLookupCache.findAccountId(code)
+                .filter(accountId -> !stripedBalanceService.isStriped(accountId))
+                .flatMap(accountRepository::findVersionsById);
+    }
+
+    @Timed(value = "minibank.service", histogram = true)
+    public Integer getAccountId(String code) {
+        return codeLookupCache.findAccountId(code)
                 .orElseThrow(AccountNotFoundException::new);
     }
 
+    /**
+     * Returns the sent and received transfers of an account merged newest first. Each direction is read with its
+     * own seek query so that both composite indexes are used, and the two pages are merged in memory.
+     */
+    @Timed(value = "minibank.service", histogram = true)
+    public CursorPage<TransferHistoryItem> getTransferHistory(String code, TransferHistoryItem.Direction direction,
+                                                              LocalDateTime from, LocalDateTime to,
+                                                              String cursor, int limit) {
+        Integer accountId = getAccountId(code);
+
+        int pageSize = resolvePageSize(limit);
+        Pageable pageable = PageRequest.ofSize(pageSize + 1);
+        LocalDateTime fromInclusive = (from != null) ? from : HISTORY_START;
+
+        // Without a cursor, start just before the exclusive upper bound; ids are always positive
+        CursorPage.TimeCursor before = CursorPage.decodeTimeCursor(cursor);
+        if (before == null) {
+            before = new CursorPage.TimeCursor((to != null) ? to : HISTORY_END, 0);
+        }
+
+        List<TransferHistoryItem> history = new ArrayList<>();
+
+        if (direction != TransferHistoryItem.Direction.RECEIVED) {
+            history.addAll(transferRepository.findSentTransferHistory(accountId, fromInclusive, before.createdAt(), before.id(), pageable));
+        }
+
+        if (direction != TransferHistoryItem.Direction.SENT) {
+            history.addAll(transferRepository.findReceivedTransferHistory(accountId, fromInclusive, before.createdAt(), before.id(), pageable));
+        }
+
+        history.sort(Comparator.comparing(TransferHistoryItem::getCreatedAt)
+                .thenComparing(TransferHistoryItem::getId)
+                .reversed());
+
+        return CursorPage.of(
+                history.subList(0, Math.min(history.size(), pageSize + 1)),
+                pageSize,
+                item -> CursorPage.encodeCursor(item.getCreatedAt(), item.getId())
+        );
+    }
+
+    /**
+     * Returns the deposits and transfers of an account newest first, read from its ledger entries with a single
+     * seek query. With the in-memory ledger, the feed trails the balance until its writes reach the database.
+     */
+    @Timed(value = "minibank.service", histogram = true)
+    public CursorPage<ActivityItem> getActivity(String code, String cursor, int limit) {
+        Integer accountId = getAccountId(code);
+
+        int pageSize = resolvePageSize(limit);
+        long beforeId = CursorPage.decodeLongCursor(cursor);
+
+        List<ActivityItem> activity = ledgerEntryRepository.findActivity(accountId,
+                (beforeId == 0) ? Long.MAX_VALUE : beforeId, PageRequest.ofSize(pageSize + 1));
+
+        return CursorPage.of(activity, pageSize, item -> CursorPage.encodeCursor(item.getId()));
+    }
+
+    @Timed(value = "minibank.service", histogram = true)
     @Transactional(rollbackFor = Exception.class)
     public Account openNewAccountForCustomer(Customer customer) {
         Optional<Account> accountOptional = accountRepository.findAccountByCustomerId(customer.getId());
@@ -57,65 +218,315 @@ public class AccountService {
         return accountRepository.save(account);
     }
 
-    public Map<String, List<Transfer>> getAllTransfers(String code) {
-        Optional<Account> account = accountRepository.findAccountByCode(code);
+    /**
+     * Opens an account for each of the customers, in the current transaction. The customers must have just been
+     * created, so they are not checked for an existing account.
+     */
+    public List<Account> openNewAccountsForNewCustomers(List<Customer> customers) {
+        List<Account> accounts = new ArrayList<>(customers.size());
 
-        if (account.isEmpty()) {
-            throw new AccountNotFoundException();
+        for (Customer customer : customers) {
+            Account account = new Account();
+            account.setCode(generateAccountCode());
+            account.setCustomer(customer);
+            account.setBalance(0);
+            accounts.add(account);
         }
 
+        return accountRepository.saveAll(accounts);
+    }
+
+    @Timed(value = "minibank.service", histogram = true)
+    @Transactional(readOnly = true)
+    public Map<String, List<Transfer>> getAllTransfers(String code) {
+        Account account = findAccountWithTransfers(code);
+
         Map<String, List<Transfer>> transfers = new HashMap<>();
-        transfers.put("sent", account.get().getSentTransfers());
-        transfers.put("received", account.get().getReceivedTransfers());
+        transfers.put("sent", account.getSentTransfers());
+        transfers.put("received", account.getReceivedTransfers());
 
         return transfers;
     }
 
-    @Transactional(rollbackFor = Exception.class)
+    @Timed(value = "minibank.service", histogram = true)
     public Account deposit(String code, DepositRequest depositRequest) {
-        Optional<Account> account = accountRepository.findAccountByCode(code);
-
-        if (account.isEmpty()) {
-            throw new AccountNotFoundException();
+        if (ledgerEngine != null) {
+            AccountTransactionValidator.validateDepositAmount(depositRequest);
+            return ledgerEngine.deposit(code, depositRequest.getAmount());
         }
 
-        AccountTransactionValidator.validateDepositAmount(depositRequest);
+        Account deposited = concurrencyControl.withAccount(code, account -> {
+            AccountTransactionValidator.validateDepositAmount(depositRequest);
 
-        account.get().deposit(depositRequest.getAmount());
+            Deposit deposit = new Deposit(generateDepositCode(), account, depositRequest.getAmount());
+            depositRepository.save(deposit);
+            ledgerEntryRepository.save(LedgerEntry.deposit(deposit));
+            idempotencyService.claimInCurrentTransaction();
 
-        return account.get();
+            if (!stripedBalanceService.credit(account.getId(), depositRequest.getAmount())) {
+                account.deposit(depositRequest.getAmount());
+            }
+
+            return stripedBalanceService.loadStripedBalance(account);
+        });
+
+        return withoutTransfers(deposited);
     }
 
-    @Transactional(rollbackFor = Exception.class)
+    @Timed(value = "minibank.service", histogram = true)
     public void transfer(String code, TransferRequest transferRequest) {
-        Optional<Account> senderAccount = accountRepository.findAccountByCode(code);
+        if (ledgerEngine != null) {
+            ledgerEngine.transfer(code, transferRequest.getReceiverAccountCode(), transferRequest.getAmount(), transferRequest.getRemarks());
+            return;
+        }
 
-        if (senderAccount.isEmpty()) {
-            throw new AccountNotFoundException("Sender account not found");
+        Optional<Integer> stripedReceiverId = stripedBalanceService.findStripedAccountId(transferRequest.getReceiverAccountCode());
+        if (stripedReceiverId.isPresent()) {
+            transferToStripedAccount(code, stripedReceiverId.get(), transferRequest);
+            return;
         }
 
-        Optional<Account> receiverAccount = accountRepository.findAccountByCode(transferRequest.getReceiverAccountCode());
+        concurrencyControl.withAccounts(code, transferRequest.getReceiverAccountCode(), (senderAccount, receiverAccount) -> {
+            stripedBalanceService.prepareDebit(senderAccount, transferRequest.getAmount());
+            AccountTransactionValidator.validateTransferAmount(senderAccount, transferRequest.getAmount());
+
+            Transfer transfer = new Transfer();
+            transfer.setAmount(transferRequest.getAmount());
+            transfer.setCode(generateTransferCode());
+            transfer.setRemarks(transferRequest.getRemarks());
+            transfer.setSenderAccount(senderAccount);
+            transfer.setReceiverAccount(receiverAccount);
+            transferRepository.save(transfer);
+            ledgerEntryRepository.saveAll(LedgerEntry.transfer(transfer));
+            idempotencyService.claimInCurrentTransaction();
+
+            senderAccount.withdraw(transferRequest.getAmount());
+            receiverAccount.deposit(transferRequest.getAmount());
+
+            return transfer;
+        });
+    }
+
+    /**
+     * A transfer to a striped account credits one of its stripes, so only the sender is loaded and locked.
+     */
+    private void transferToStripedAccount(String code, Integer receiverId, TransferRequest transferRequest) {
+        concurrencyControl.withAccount(code, senderAccount -> {
+            stripedBalanceService.prepareDebit(senderAccount, transferRequest.getAmount());
+            AccountTransactionValidator.validateTransferAmount(senderAccount, transferRequest.getAmount());
+
+            Transfer transfer = new Transfer();
+            transfer.setAmount(transferRequest.getAmount());
+            transfer.setCode(generateTransferCode());
+            transfer.setRemarks(transferRequest.getRemarks());
+            transfer.setSenderAccount(senderAccount);
+            transfer.setReceiverAccount(accountRepository.getReferenceById(receiverId));
+            transferRepository.save(transfer);
+            ledgerEntryRepository.saveAll(LedgerEntry.transfer(transfer.getId(), senderAccount.getId(), receiverId, transfer.getAmount()));
+            idempotencyService.claimInCurrentTransaction();
 
-        if (receiverAccount.isEmpty()) {
-            throw new AccountNotFoundException("Receiver account not found");
+            senderAccount.withdraw(transferRequest.getAmount());
+
+            if (!stripedBalanceService.credit(receiverId, transferRequest.getAmount())) {
+                accountRepository.addToBalance(receiverId, transferRequest.getAmount());
+            }
+
+            return transfer;
+        });
+    }
+
+    /**
+     * Applies many transfers from one sender in a single transaction. Receivers are resolved with one
+     * query and each transfer is validated against the sender's running balance before anything is written.
+     * The sender and receivers are protected by the configured {@link AccountConcurrencyControl}, as for a
+     * single transfer.
+     */
+    @Timed(value = "minibank.service", histogram = true)
+    public BatchTransferResponse transferBatch(String code, BatchTransferRequest batchTransferRequest) {
+        List<TransferRequest> transferRequests = batchTransferRequest.getTransfers();
+        boolean allOrNothing = batchTransferRequest.getMode() == BatchTransferRequest.Mode.ALL_OR_NOTHING;
+
+        List<String> transferCodes = new ArrayList<>(transferRequests.size());
+        for (int i = 0; i < transferRequests.size(); i++) {
+            transferCodes.add(generateTransferCode());
         }
 
-        AccountTransactionValidator.validateTransferAmount(senderAccount.get(), transferRequest.getAmount());
+        return transferBatch(code, transferRequests, transferCodes, allOrNothing);
+    }
 
-        Transfer transfer = new Transfer();
-        transfer.setAmount(transferRequest.getAmount());
-        transfer.setCode(UUID.randomUUID().toString());
-        transfer.setRemarks(transferRequest.getRemarks());
-        transfer.setSenderAccount(senderAccount.get());
-        transfer.setReceiverAccount(receiverAccount.get());
-        transferRepository.save(transfer);
+    /**
+     * Applies transfers queued by {@link AsyncTransferService} from one sender in a single transaction, under
+     * the codes they were accepted with. Each transfer is applied or rejected on its own.
+     */
+    @Timed(value = "minibank.service", histogram = true)
+    public BatchTransferResponse applyQueuedTransfers(String code, List<TransferRequest> transferRequests, List<String> transferCodes) {
+        return transferBatch(code, transferRequests, transferCodes, false);
+    }
 
-        senderAccount.get().withdraw(transferRequest.getAmount());
-        receiverAccount.get().deposit(transferRequest.getAmount());
+    private BatchTransferResponse transferBatch(String code, List<TransferRequest> transferRequests,
+                                                List<String> transferCodes, boolean allOrNothing) {
+        if (ledgerEngine != null) {
+            return transferBatchThroughLedger(code, transferRequests, transferCodes, allOrNothing);
+        }
+
+        Set<String> receiverCodes = transferRequests.stream()
+                .map(TransferRequest::getReceiverAccountCode)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        return concurrencyControl.withAccounts(code, receiverCodes, (senderAccount, receiverAccounts) ->
+                applyTransferBatch(senderAccount, receiverAccounts, transferRequests, transferCodes, allOrNothing));
+    }
+
+    private BatchTransferResponse applyTransferBatch(Account senderAccount, Map<String, Account> receiverAccounts,
+                                                     List<TransferRequest> transferRequests, List<String> transferCodes,
+                                                     boolean allOrNothing) {
+        stripedBalanceService.prepareDebit(senderAccount, transferRequests.stream().mapToDouble(TransferRequest::getAmount).sum());
+
+        BatchTransferResponse response = new BatchTransferResponse();
+        List<Transfer> transfers = new ArrayList<>(transferRequests.size());
+        double runningBalance = senderAccount.getBalance();
+
+        for (int i = 0; i < transferRequests.size(); i++) {
+            TransferRequest transferRequest = transferRequests.get(i);
+            Account receiverAccount = receiverAccounts.get(transferRequest.getReceiverAccountCode());
+
+            try {
+                if (receiverAccount == null) {
+                    throw new AccountNotFoundException("Receiver account not found");
+                }
+
+                AccountTransactionValidator.validateTransferAmount(runningBalance, transferRequest.getAmount());
+            } catch (AccountNotFoundException | AccountTransactionException e) {
+                response.addResult(i, BatchTransferResponse.Status.REJECTED, null, e.getMessage());
+                continue;
+            }
+
+            runningBalance -= transferRequest.getAmount();
+
+            Transfer transfer = new Transfer();
+            transfer.setAmount(transferRequest.getAmount());
+            transfer.setCode(transferCodes.get(i));
+            transfer.setRemarks(transferRequest.getRemarks());
+            transfer.setSenderAccount(senderAccount);
+            transfer.setReceiverAccount(receiverAccount);
+            transfers.add(transfer);
+
+            response.addResult(i, BatchTransferResponse.Status.COMPLETED, transfer.getCode(), null);
+        }
+
+        if (allOrNothing && response.getRejectedCount() > 0) {
+            return markNotApplied(response);
+        }
+
+        for (Transfer transfer : transfers) {
+            senderAccount.withdraw(transfer.getAmount());
+
+            if (!stripedBalanceService.credit(transfer.getReceiverAccount().getId(), transfer.getAmount())) {
+                transfer.getReceiverAccount().deposit(transfer.getAmount());
+            }
+        }
+
+        transferRepository.saveAll(transfers);
+        ledgerEntryRepository.saveAll(transfers.stream().flatMap(transfer -> LedgerEntry.transfer(transfer).stream()).toList());
+        response.setCommitted(true);
+
+        return response;
+    }
+
+    private BatchTransferResponse transferBatchThroughLedger(String code, List<TransferRequest> transferRequests,
+                                                            List<String> transferCodes, boolean allOrNothing) {
+        if (allOrNothing) {
+            throw new AccountTransactionException("All-or-nothing batches are not supported by the in-memory ledger");
+        }
+
+        ledgerEngine.getAccount(code);
+
+        BatchTransferResponse response = new BatchTransferResponse();
+
+        for (int i = 0; i < transferRequests.size(); i++) {
+            TransferRequest transferRequest = transferRequests.get(i);
+
+            try {
+                String transferCode = ledgerEngine.transfer(code, transferRequest.getReceiverAccountCode(),
+                        transferRequest.getAmount(), transferRequest.getRemarks(), transferCodes.get(i));
+                response.addResult(i, BatchTransferResponse.Status.COMPLETED, transferCode, null);
+            } catch (AccountNotFoundException | AccountTransactionException e) {
+                response.addResult(i, BatchTransferResponse.Status.REJECTED, null, e.getMessage());
+            }
+        }
+
+        response.setCommitted(true);
+
+        return response;
+    }
+
+    private static BatchTransferResponse markNotApplied(BatchTransferResponse response) {
+        BatchTransferResponse rolledBack = new BatchTransferResponse();
+
+        for (BatchTransferResponse.Result result : response.getResults()) {
+            if (result.getStatus() == BatchTransferResponse.Status.REJECTED) {
+                rolledBack.addResult(result.getIndex(), result.getStatus(), null, result.getMessage());
+            } else {
+                rolledBack.addResult(result.getIndex(), BatchTransferResponse.Status.NOT_APPLIED, null, null);
+            }
+        }
+
+        return rolledBack;
+    }
+
+    /**
+     * Loads an account with everything its response renders, its customer and both transfer lists, so that nothing
+     * is loaded lazily once the transaction has ended.
+     */
+    private Account findAccountWithTransfers(String code) {
+        Integer accountId = codeLookupCache.findAccountId(code)
+                .orElseThrow(AccountNotFoundException::new);
+
+        return fetchTransfers(accountId)
+                .orElseThrow(AccountNotFoundException::new);
+    }
+
+    /**
+     * Copies an account with its customer but not its transfers, so a response can be rendered without loading a
+     * transfer history that grows with every transfer. The in-memory ledger answers deposits the same way.
+     */
+    private static Account withoutTransfers(Account account) {
+        Account copy = new Account(account.getId(), account.getCode(), account.getBalance(), account.getUpdatedAt(), account.getCreatedAt());
+        copy.setStripedBalance(account.getTotalBalance() - account.getBalance());
+        copy.setCustomer(account.getCustomer());
+
+        return copy;
+    }
+
+    // Both queries return the same instance from the persistence context, each initializing one of its lists
+    private Optional<Account> fetchTransfers(Integer accountId) {
+        Optional<Account> account = accountRepository.findWithSentTransfersById(accountId);
+        accountRepository.findWithReceivedTransfersById(accountId);
+
+        return account;
+    }
+
+    static int resolvePageSize(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+
+        return Math.min(limit, MAXIMUM_PAGE_SIZE);
     }
 
     private String generateAccountCode() {
-        UUID uuid = UUID.randomUUID();
+        UUID uuid = TimeOrderedUuid.generate();
+        return uuid.toString();
+    }
+
+    static String generateTransferCode() {
+        UUID uuid = TimeOrderedUuid.generate();
+        return uuid.toString();
+    }
+
+    static String generateDepositCode() {
+        UUID uuid = TimeOrderedUuid.generate();
         return uuid.toString();
     }
 }
@@ -0,0 +1,260 @@
+package com.example.minibank.service;
+
+import com.example.minibank.controller.request.TransferRequest;
+import com.example.minibank.controller.response.BatchTransferResponse;
+import com.example.minibank.controller.response.TransferStatus;
+import com.example.minibank.exception.AccountNotFoundException;
+import com.example.minibank.exception.TransferNotFoundException;
+import com.example.minibank.exception.TransferQueueFullException;
+import com.example.minibank.repository.TransferRepository;
+import com.example.minibank.validator.AccountTransactionValidator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts transfers to be applied later, so the request thread is released once the transfer is queued.
+ * <p>
+ * Submission only checks what is cheap: both accounts exist, through the code lookup cache, and the amount is
+ * not below the minimum. The transfer is then given its code and queued. Each sender is owned by one worker, so
+ * a sender's transfers are applied in the order they were accepted. A worker drains its queue in micro-batches
+ * and applies each sender's transfers in one transaction, validated against the running balance like a batch
+ * transfer. Queues are bounded: a full queue rejects the submission instead of growing.
+ * <p>
+ * Statuses are kept in memory for {@code minibank.transfers.async.status-ttl}, or until there are too many. After
+ * that a completed transfer is still found in the database; a rejected one is forgotten.
+ */
+@Service
+public class AsyncTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncTransferService.class);
+
+    private static final long RETRY_BACKOFF_MILLIS = 5;
+
+    private final AccountService accountService;
+    private final CodeLookupCache codeLookupCache;
+    private final TransferRepository transferRepository;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Worker[] workers;
+    private final Cache<String, Tracked> statuses;
+    private volatile boolean running;
+
+    @Autowired
+    public AsyncTransferService(AccountService accountService,
+                                CodeLookupCache codeLookupCache,
+                                TransferRepository transferRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${minibank.transfers.async.workers:2}") int workerCount,
+                                @Value("${minibank.transfers.async.queue-capacity:10000}") int queueCapacity,
+                                @Value("${minibank.transfers.async.batch-size:100}") int batchSize,
+                                @Value("${minibank.transfers.async.max-attempts:5}") int maxAttempts,
+                                @Value("${minibank.transfers.async.status-ttl:1h}") Duration statusTtl,
+                                @Value("${minibank.transfers.async.status-maximum-size:100000}") long statusMaximumSize) {
+        this.accountService = accountService;
+        this.codeLookupCache = codeLookupCache;
+        this.transferRepository = transferRepository;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(statusMaximumSize)
+                .expireAfterWrite(statusTtl)
+                .build();
+
+        this.running = true;
+        this.workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(i, Math.max(1, queueCapacity / workerCount));
+        }
+
+        Gauge.builder("minibank.transfers.async.queued", this, AsyncTransferService::getQueuedCount)
+                .description("Transfers accepted but not applied yet")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues the transfer and returns its status, which is pending. Missing accounts and amounts below the
+     * minimum are rejected right away; insufficient funds only once the transfer is applied.
+     */
+    @Timed(value = "minibank.service", histogram = true)
+    public TransferStatus submit(String code, TransferRequest transferRequest) {
+        Integer senderId = codeLookupCache.findAccountId(code)
+                .orElseThrow(() -> new AccountNotFoundException("Sender account not found"));
+
+        codeLookupCache.findAccountId(transferRequest.getReceiverAccountCode())
+                .orElseThrow(() -> new AccountNotFoundException("Receiver account not found"));
+
+        AccountTransactionValidator.validateMinimumTransferAmount(transferRequest.getAmount());
+
+        String transferCode = AccountService.generateTransferCode();
+        TransferStatus pending = TransferStatus.pending(transferCode);
+
+        // Tracked before it is queued, so a worker that finishes right away is not overwritten
+        statuses.put(transferCode, new Tracked(code, pending));
+
+        if (!workerFor(senderId).queue.offer(new QueuedTransfer(code, transferRequest, transferCode))) {
+            statuses.invalidate(transferCode);
+            throw new TransferQueueFullException();
+        }
+
+        return pending;
+    }
+
+    @Timed(value = "minibank.service", histogram = true)
+    public TransferStatus getStatus(String code, String transferCode) {
+        Tracked tracked = statuses.getIfPresent(transferCode);
+
+        if (tracked != null) {
+            if (!tracked.senderCode().equals(code)) {
+                throw new TransferNotFoundException();
+            }
+
+            return tracked.status();
+        }
+
+        Integer senderId = codeLookupCache.findAccountId(code)
+                .orElseThrow(TransferNotFoundException::new);
+
+        if (transferRepository.existsByCodeAndSenderAccountId(transferCode, senderId)) {
+            return TransferStatus.completed(transferCode);
+        }
+
+        throw new TransferNotFoundException();
+    }
+
+    public int getQueuedCount() {
+        return Arrays.stream(workers).mapToInt(worker -> worker.queue.size()).sum();
+    }
+
+    /**
+     * Lets the workers drain their queues, so transfers that were accepted are applied before shutdown.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+
+        for (Worker worker : workers) {
+            worker.thread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    private Worker workerFor(Integer senderId) {
+        return workers[Math.floorMod(senderId, workers.length)];
+    }
+
+    private void apply(String senderCode, List<QueuedTransfer> transfers) {
+        List<TransferRequest> transferRequests = transfers.stream().map(QueuedTransfer::transferRequest).toList();
+        List<String> transferCodes = transfers.stream().map(QueuedTransfer::transferCode).toList();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                BatchTransferResponse response = accountService.applyQueuedTransfers(senderCode, transferRequests, transferCodes);
+
+                for (BatchTransferResponse.Result result : response.getResults()) {
+                    String transferCode = transferCodes.get(result.getIndex());
+                    TransferStatus status = (result.getStatus() == BatchTransferResponse.Status.COMPLETED)
+                            ? TransferStatus.completed(transferCode)
+                            : TransferStatus.rejected(transferCode, result.getMessage());
+
+                    statuses.put(transferCode, new Tracked(senderCode, status));
+                }
+
+                return;
+            } catch (ConcurrencyFailureException e) {
+                // A receiver was updated by another transaction; nothing was applied, so the batch is retried
+                if (attempt >= maxAttempts) {
+                    reject(senderCode, transferCodes, "Account was updated concurrently, please retry");
+                    return;
+                }
+
+                backoff(attempt);
+            } catch (RuntimeException e) {
+                log.error("Failed to apply {} queued transfers of account {}", transfers.size(), senderCode, e);
+                reject(senderCode, transferCodes, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void reject(String senderCode, List<String> transferCodes, String reason) {
+        for (String transferCode : transferCodes) {
+            statuses.put(transferCode, new Tracked(senderCode, TransferStatus.rejected(transferCode, reason)));
+        }
+    }
+
+    private static void backoff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(RETRY_BACKOFF_MILLIS << attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Applies the transfers of the senders it owns, one micro-batch at a time.
+     */
+    private class Worker {
+        private final BlockingQueue<QueuedTransfer> queue;
+        private final Thread thread;
+
+        Worker(int index, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this::run, "transfer-worker-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private void run() {
+            List<QueuedTransfer> batch = new ArrayList<>(batchSize);
+
+            while (running || !queue.isEmpty()) {
+                try {
+                    QueuedTransfer first = queue.poll(100, TimeUnit.MILLISECONDS);
+
+                    if (first == null) {
+                        continue;
+                    }
+
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+
+                    // Grouped by sender in the order they were accepted
+                    Map<String, List<QueuedTransfer>> bySender = new LinkedHashMap<>();
+                    for (QueuedTransfer transfer : batch) {
+                        bySender.computeIfAbsent(transfer.senderCode(), senderCode -> new ArrayList<>()).add(transfer);
+                    }
+
+                    bySender.forEach(AsyncTransferService.this::apply);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private record QueuedTransfer(String senderCode, TransferRequest transferRequest, String transferCode) {
+    }
+
+    private record Tracked(String senderCode, TransferStatus status) {
+    }
+}
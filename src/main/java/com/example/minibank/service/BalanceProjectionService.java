@@ -0,0 +1,144 @@
+package com.example.minibank.service;
+
+import com.example.minibank.controller.response.AccountBalance;
+import com.example.minibank.exception.AccountNotFoundException;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.BalanceSnapshot;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.AccountStripeRepository;
+import com.example.minibank.repository.BalanceSnapshotRepository;
+import com.example.minibank.repository.LedgerEntryRepository;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Derives balances from the ledger entries, which are the system of record. {@link Account#getBalance()} is
+ * kept up to date as entries are written; this service snapshots balances, answers balances at a point in time,
+ * and rebuilds the projection when it has to be recomputed.
+ * <p>
+ * Snapshots are taken every {@code minibank.balance-snapshots.interval-ms} for the accounts with entries since
+ * their last one. A run only snapshots the entries that existed at the previous run: entry ids are allocated
+ * before their transaction commits, so a newer entry can still be missing an older, uncommitted neighbour.
+ *
+ * @see com.example.minibank.model.LedgerEntry
+ */
+@Service
+public class BalanceProjectionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceProjectionService.class);
+
+    private final AccountRepository accountRepository;
+    private final AccountStripeRepository accountStripeRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final CodeLookupCache codeLookupCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int rebuildChunkSize;
+
+    // The last entry id seen by the previous snapshot run, and so the highest that is safe to snapshot now
+    private final AtomicLong settledEntryId = new AtomicLong();
+
+    @Autowired
+    public BalanceProjectionService(AccountRepository accountRepository,
+                                    AccountStripeRepository accountStripeRepository,
+                                    LedgerEntryRepository ledgerEntryRepository,
+                                    BalanceSnapshotRepository balanceSnapshotRepository,
+                                    CodeLookupCache codeLookupCache,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${minibank.balance-snapshots.rebuild-chunk-size:1000}") int rebuildChunkSize) {
+        this.accountRepository = accountRepository;
+        this.accountStripeRepository = accountStripeRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.codeLookupCache = codeLookupCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildChunkSize = rebuildChunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${minibank.balance-snapshots.interval-ms:300000}")
+    public void takeSnapshots() {
+        long upToEntryId = settledEntryId.getAndSet(ledgerEntryRepository.findLastEntryId());
+        int taken = takeSnapshots(upToEntryId);
+
+        if (taken > 0) {
+            log.debug("Took {} balance snapshots up to ledger entry {}", taken, upToEntryId);
+        }
+    }
+
+    /**
+     * Snapshots every account with entries up to {@code upToEntryId} that are not in its latest snapshot yet.
+     * Returns the number of snapshots taken.
+     */
+    public int takeSnapshots(long upToEntryId) {
+        Integer taken = transactionTemplate.execute(status -> {
+            long afterEntryId = balanceSnapshotRepository.findLastSnapshottedEntryId();
+
+            return (upToEntryId > afterEntryId)
+                    ? balanceSnapshotRepository.insertSnapshots(afterEntryId, upToEntryId)
+                    : 0;
+        });
+
+        return (taken != null) ? taken : 0;
+    }
+
+    /**
+     * The balance of an account once every entry written at or before {@code at} was applied: its latest
+     * snapshot from before then plus the entries after that snapshot, up to {@code at}.
+     */
+    @Timed(value = "minibank.service", histogram = true)
+    @Transactional(readOnly = true)
+    public AccountBalance getBalanceAt(String code, LocalDateTime at) {
+        Integer accountId = codeLookupCache.findAccountId(code)
+                .orElseThrow(AccountNotFoundException::new);
+
+        Optional<BalanceSnapshot> snapshot = balanceSnapshotRepository
+                .findFirstByAccountIdAndLastEntryAtLessThanEqualOrderByLastEntryAtDescLastEntryIdDesc(accountId, at);
+
+        double balance = snapshot.map(BalanceSnapshot::getBalance).orElse(0.0)
+                + ledgerEntryRepository.sumAmountsAfter(accountId, snapshot.map(BalanceSnapshot::getLastEntryId).orElse(0L), at);
+
+        return new AccountBalance(code, balance, at);
+    }
+
+    /**
+     * Recomputes every account balance, either from the latest snapshots and the entries after them, or from
+     * all the entries. Accounts are rebuilt {@code minibank.balance-snapshots.rebuild-chunk-size} at a time, each
+     * chunk in its own transaction, so a rebuild never holds many locks for long. Meant for recovery: a deposit
+     * or transfer committing while its chunk is rebuilt can be left out, so writes should be paused meanwhile.
+     * The stripes of hot accounts are emptied, as the rebuilt balance is the whole balance. Returns the number of
+     * accounts rebuilt.
+     */
+    public int rebuildBalances(boolean fromSnapshots) {
+        int lastAccountId = accountRepository.findLastAccountId();
+        int rebuilt = 0;
+
+        for (int afterId = 0; afterId < lastAccountId; afterId += rebuildChunkSize) {
+            int chunkStart = afterId;
+            int chunkEnd = afterId + rebuildChunkSize;
+
+            Integer updated = transactionTemplate.execute(status -> {
+                accountStripeRepository.clearBalances(chunkStart, chunkEnd);
+
+                return fromSnapshots
+                        ? accountRepository.rebuildBalancesFromSnapshots(chunkStart, chunkEnd)
+                        : accountRepository.rebuildBalancesFromEntries(chunkStart, chunkEnd);
+            });
+
+            rebuilt += (updated != null) ? updated : 0;
+        }
+
+        return rebuilt;
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.minibank.service;
+
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Customer;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.CustomerRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Resolves account and customer codes to their primary keys through a bounded cache.
+ * <p>
+ * Only the code to id mapping is cached, never the entities. A code never changes owner, so the mapping
+ * cannot go stale through deposits, transfers or customer updates, and balances are always read from the
+ * database. An id that no longer resolves (for example after a rolled back insert) is evicted.
+ */
+@Component
+public class CodeLookupCache {
+
+    public static final String ACCOUNTS = "accountIds";
+    public static final String CUSTOMERS = "customerIds";
+
+    private final AccountRepository accountRepository;
+    private final CustomerRepository customerRepository;
+
+    private final Cache<String, Integer> accountIds;
+    private final Cache<String, Integer> customerIds;
+
+    @Autowired
+    public CodeLookupCache(AccountRepository accountRepository,
+                           CustomerRepository customerRepository,
+                           @Value("${minibank.cache.maximum-size:10000}") long maximumSize,
+                           @Value("${minibank.cache.expire-after-access:10m}") Duration expireAfterAccess) {
+        this.accountRepository = accountRepository;
+        this.customerRepository = customerRepository;
+        this.accountIds = newCache(maximumSize, expireAfterAccess);
+        this.customerIds = newCache(maximumSize, expireAfterAccess);
+    }
+
+    public Optional<Account> findAccount(String code) {
+        return find(accountIds, code, accountRepository::findById, accountRepository::findAccountByCode, Account::getId);
+    }
+
+    public Optional<Integer> findAccountId(String code) {
+        return findId(accountIds, code, accountRepository::findAccountIdByCode);
+    }
+
+    /**
+     * The ids of the given codes that have an account, with the codes missing from the cache looked up in one query.
+     */
+    public Map<String, Integer> findAccountIds(Collection<String> codes) {
+        Map<String, Integer> ids = new HashMap<>(accountIds.getAllPresent(codes));
+        List<String> missing = codes.stream().filter(code -> !ids.containsKey(code)).distinct().toList();
+
+        if (!missing.isEmpty()) {
+            for (AccountRepository.CodeId loaded : accountRepository.findAccountIdsByCodeIn(missing)) {
+                accountIds.put(loaded.getCode(), loaded.getId());
+                ids.put(loaded.getCode(), loaded.getId());
+            }
+        }
+
+        return ids;
+    }
+
+    public Optional<Customer> findCustomer(String code) {
+        return find(customerIds, code, customerRepository::findById, customerRepository::findCustomerByCode, Customer::getId);
+    }
+
+    public Optional<Integer> findCustomerId(String code) {
+        return findId(customerIds, code, customerRepository::findCustomerIdByCode);
+    }
+
+    public Map<String, CacheStats> getStats() {
+        return Map.of(ACCOUNTS, accountIds.stats(), CUSTOMERS, customerIds.stats());
+    }
+
+    public Map<String, Long> getSizes() {
+        return Map.of(ACCOUNTS, accountIds.estimatedSize(), CUSTOMERS, customerIds.estimatedSize());
+    }
+
+    // Only for tests that measure lookups against a cold cache, through CodeLookupCaches
+    void invalidateAll() {
+        accountIds.invalidateAll();
+        customerIds.invalidateAll();
+    }
+
+    private static Optional<Integer> findId(Cache<String, Integer> ids, String code,
+                                            Function<String, Optional<Integer>> findIdByCode) {
+        if (code == null) {
+            return findIdByCode.apply(null);
+        }
+
+        Integer id = ids.getIfPresent(code);
+
+        if (id != null) {
+            return Optional.of(id);
+        }
+
+        Optional<Integer> loaded = findIdByCode.apply(code);
+        loaded.ifPresent(loadedId -> ids.put(code, loadedId));
+
+        return loaded;
+    }
+
+    private static <T> Optional<T> find(Cache<String, Integer> ids, String code,
+                                        Function<Integer, Optional<T>> findById,
+                                        Function<String, Optional<T>> findByCode,
+                                        Function<T, Integer> idOf) {
+        if (code == null) {
+            return findByCode.apply(null);
+        }
+
+        Integer id = ids.getIfPresent(code);
+
+        if (id != null) {
+            Optional<T> entity = findById.apply(id);
+
+            if (entity.isPresent()) {
+                return entity;
+            }
+
+            ids.invalidate(code);
+        }
+
+        Optional<T> entity = findByCode.apply(code);
+        entity.map(idOf).ifPresent(loadedId -> ids.put(code, loadedId));
+
+        return entity;
+    }
+
+    private static Cache<String, Integer> newCache(long maximumSize, Duration expireAfterAccess) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+    }
+}
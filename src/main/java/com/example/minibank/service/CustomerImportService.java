@@ -0,0 +1,277 @@
+package com.example.minibank.service;
+
+import com.example.minibank.controller.response.CustomerImportReport;
+import com.example.minibank.model.Customer;
+import com.example.minibank.repository.CustomerRepository;
+import com.example.minibank.util.TimeOrderedUuid;
+import com.example.minibank.validator.CustomerValidator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Imports customers from a CSV or NDJSON stream, one chunk at a time, so memory use does not depend on the size of
+ * the file.
+ * <p>
+ * Each row is validated like {@code POST /customers}. The emails of a chunk are checked with one query, and the
+ * chunk's customers, and optionally their accounts, are inserted in one transaction in JDBC batches. Rows that fail
+ * are reported by line and skipped; the rest of the file is still imported. A chunk whose insert keeps failing on
+ * an email taken by a concurrent request is rejected as a whole.
+ */
+@Service
+public class CustomerImportService {
+
+    private static final List<String> CSV_COLUMNS = List.of("name", "email", "dateOfBirth");
+
+    public enum Format {
+        NDJSON,
+        CSV;
+
+        public static Format fromName(String name) {
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported import format: " + name);
+            }
+        }
+    }
+
+    private final CustomerRepository customerRepository;
+    private final AccountService accountService;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader rowReader;
+    private final int chunkSize;
+    private final int maximumReportedErrors;
+
+    @Autowired
+    public CustomerImportService(CustomerRepository customerRepository,
+                                 AccountService accountService,
+                                 Validator validator,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper,
+                                 @Value("${minibank.customers.import.chunk-size:1000}") int chunkSize,
+                                 @Value("${minibank.customers.import.maximum-reported-errors:10000}") int maximumReportedErrors) {
+        this.customerRepository = customerRepository;
+        this.accountService = accountService;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rowReader = objectMapper.readerFor(Customer.class);
+        this.chunkSize = chunkSize;
+        this.maximumReportedErrors = maximumReportedErrors;
+    }
+
+    @Timed(value = "minibank.service", histogram = true)
+    public CustomerImportReport importCustomers(InputStream inputStream, Format format, boolean openAccounts) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        CustomerImportReport report = new CustomerImportReport(maximumReportedErrors);
+        List<PendingCustomer> chunk = new ArrayList<>(chunkSize);
+        long lineNumber = 0;
+        int[] csvColumns = null;
+
+        if (format == Format.CSV) {
+            csvColumns = readCsvHeader(reader.readLine());
+            lineNumber++;
+        }
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+
+            if (line.isBlank()) {
+                continue;
+            }
+
+            try {
+                Customer customer = (format == Format.CSV) ? parseCsvRow(line, csvColumns) : parseJsonRow(line);
+                validate(customer);
+                chunk.add(new PendingCustomer(lineNumber, customer));
+            } catch (RuntimeException e) {
+                report.addError(lineNumber, e.getMessage());
+            }
+
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, openAccounts, report);
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, openAccounts, report);
+        }
+
+        return report;
+    }
+
+    private void importChunk(List<PendingCustomer> chunk, boolean openAccounts, CustomerImportReport report) {
+        try {
+            insertChunk(chunk, openAccounts, report);
+        } catch (DataIntegrityViolationException e) {
+            // An email was taken by another request after it was checked. Checked again, the chunk goes in without it
+            chunk.forEach(pending -> pending.customer().setId(null));
+
+            try {
+                insertChunk(chunk, openAccounts, report);
+            } catch (DataIntegrityViolationException retryException) {
+                // Still racing with other requests, so the chunk is given up on rather than the rest of the file
+                for (PendingCustomer pending : chunk) {
+                    report.addError(pending.lineNumber(), "Customer could not be imported, an email in its chunk was taken meanwhile");
+                }
+            }
+        }
+    }
+
+    private void insertChunk(List<PendingCustomer> chunk, boolean openAccounts, CustomerImportReport report) {
+        Set<String> takenEmails = new HashSet<>(customerRepository.findTakenEmails(
+                chunk.stream().map(pending -> pending.customer().getEmail()).toList()));
+        List<PendingCustomer> rejected = new ArrayList<>();
+        List<Customer> customers = new ArrayList<>(chunk.size());
+
+        for (PendingCustomer pending : chunk) {
+            // Adding the email also catches a second row with it in the same chunk
+            if (!takenEmails.add(pending.customer().getEmail())) {
+                rejected.add(pending);
+                continue;
+            }
+
+            pending.customer().setCode(TimeOrderedUuid.generate().toString());
+            customers.add(pending.customer());
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            customerRepository.saveAll(customers);
+
+            if (openAccounts) {
+                accountService.openNewAccountsForNewCustomers(customers);
+            }
+
+            // Flushed through the repository so a taken email is translated to DataIntegrityViolationException. The
+            // persistence context outlives the transaction with open-session-in-view, so it is emptied per chunk
+            customerRepository.flush();
+            entityManager.clear();
+        });
+
+        // Only reported once the chunk is committed, as it is checked again if it is not
+        for (PendingCustomer pending : rejected) {
+            report.addError(pending.lineNumber(), "Customer email is already taken");
+        }
+        report.addImported(customers.size(), openAccounts ? customers.size() : 0);
+    }
+
+    private void validate(Customer customer) {
+        Set<ConstraintViolation<Customer>> violations = validator.validate(customer);
+
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.iterator().next().getMessage());
+        }
+
+        CustomerValidator.validateAge(customer);
+    }
+
+    private Customer parseJsonRow(String line) {
+        try {
+            return rowReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    // The position of each of CSV_COLUMNS in the file, which can order its columns as it likes
+    private static int[] readCsvHeader(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header is missing");
+        }
+
+        List<String> names = splitCsvLine(header).stream().map(String::trim).toList();
+        int[] columns = new int[CSV_COLUMNS.size()];
+
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.indexOf(CSV_COLUMNS.get(i));
+
+            if (columns[i] < 0) {
+                throw new IllegalArgumentException("CSV header must contain " + String.join(",", CSV_COLUMNS));
+            }
+        }
+
+        return columns;
+    }
+
+    private static Customer parseCsvRow(String line, int[] columns) {
+        List<String> values = splitCsvLine(line);
+
+        if (values.size() <= Arrays.stream(columns).max().orElse(0)) {
+            throw new IllegalArgumentException("Row has " + values.size() + " columns, fewer than the header");
+        }
+
+        Customer customer = new Customer();
+        customer.setName(values.get(columns[0]));
+        customer.setEmail(values.get(columns[1]));
+
+        String dateOfBirth = values.get(columns[2]);
+        try {
+            customer.setDateOfBirth(dateOfBirth.isEmpty() ? null : LocalDate.parse(dateOfBirth));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Date of birth is invalid");
+        }
+
+        return customer;
+    }
+
+    // Fields may be quoted, with quotes doubled inside them; a quoted field cannot span lines
+    private static List<String> splitCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+
+        values.add(value.toString());
+
+        return values;
+    }
+
+    private record PendingCustomer(long lineNumber, Customer customer) {
+    }
+}
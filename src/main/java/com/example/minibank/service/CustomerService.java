@@ -1,11 +1,17 @@
 package com.example.minibank.service;
 
+import com.example.minibank.controller.response.CursorPage;
+import com.example.minibank.controller.response.CustomerSummary;
 import com.example.minibank.model.Account;
 import com.example.minibank.model.Customer;
 import com.example.minibank.repository.CustomerRepository;
 import com.example.minibank.exception.CustomerNotFoundException;
+import com.example.minibank.util.TimeOrderedUuid;
 import com.example.minibank.validator.CustomerValidator;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,24 +25,47 @@ public class CustomerService {
 
     private final CustomerRepository customerRepository;
     private final AccountService accountService;
+    private final CodeLookupCache codeLookupCache;
 
     public static final int CUSTOMER_MIN_AGE_REQUIRED = 18;
 
     @Autowired
-    public CustomerService(CustomerRepository customerRepository, AccountService accountService) {
+    public CustomerService(CustomerRepository customerRepository, AccountService accountService, CodeLookupCache codeLookupCache) {
         this.customerRepository = customerRepository;
         this.accountService = accountService;
+        this.codeLookupCache = codeLookupCache;
     }
 
-    public List<Customer> getAllCustomers() {
-        return customerRepository.findAll();
+    @Timed(value = "minibank.service", histogram = true)
+    public CursorPage<CustomerSummary> getCustomers(String cursor, int limit, LocalDateTime updatedSince) {
+        int pageSize = AccountService.resolvePageSize(limit);
+        int afterId = CursorPage.decodeCursor(cursor);
+        Pageable pageable = PageRequest.ofSize(pageSize + 1);
+
+        List<CustomerSummary> customers = (updatedSince == null)
+                ? customerRepository.findCustomerSummaries(afterId, pageable)
+                : customerRepository.findCustomerSummariesUpdatedSince(afterId, updatedSince, pageable);
+
+        return CursorPage.of(customers, pageSize, customer -> CursorPage.encodeCursor(customer.getId()));
     }
 
+    @Timed(value = "minibank.service", histogram = true)
     public Customer getCustomer(String code) {
-        return customerRepository.findCustomerByCode(code)
+        return codeLookupCache.findCustomer(code)
                 .orElseThrow(CustomerNotFoundException::new);
     }
 
+    /**
+     * Returns the version {@code GET /customers/{code}} tags its response with, read without loading the
+     * customer. Empty when the customer is not found, so the caller falls through to the usual lookup and its error.
+     */
+    @Timed(value = "minibank.service", histogram = true)
+    public Optional<Long> getCustomerVersion(String code) {
+        return codeLookupCache.findCustomerId(code)
+                .flatMap(customerRepository::findVersionById);
+    }
+
+    @Timed(value = "minibank.service", histogram = true)
     @Transactional(rollbackFor = Exception.class)
     public Customer createCustomer(Customer customer) {
         CustomerValidator.validateAge(customer);
@@ -47,9 +76,10 @@ public class CustomerService {
         return customerRepository.save(customer);
     }
 
+    @Timed(value = "minibank.service", histogram = true)
     @Transactional(rollbackFor = Exception.class)
     public Customer updateCustomer(String code, Customer customer) {
-        Optional<Customer> customerOptional = customerRepository.findCustomerByCode(code);
+        Optional<Customer> customerOptional = codeLookupCache.findCustomer(code);
 
         if (customerOptional.isEmpty()) {
             throw new CustomerNotFoundException();
@@ -67,8 +97,9 @@ public class CustomerService {
         return existingCustomer;
     }
 
+    @Timed(value = "minibank.service", histogram = true)
     public Account openNewAccount(String code) {
-        Optional<Customer> customerOptional = customerRepository.findCustomerByCode(code);
+        Optional<Customer> customerOptional = codeLookupCache.findCustomer(code);
 
         if (customerOptional.isEmpty()) {
             throw new CustomerNotFoundException();
@@ -89,7 +120,7 @@ public class CustomerService {
     }
 
     private String generateCustomerCode() {
-        UUID uuid = UUID.randomUUID();
+        UUID uuid = TimeOrderedUuid.generate();
         return uuid.toString();
     }
 }
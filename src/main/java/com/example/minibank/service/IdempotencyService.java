@@ -0,0 +1,292 @@
+package com.example.minibank.service;
+
+import com.example.minibank.exception.IdempotencyKeyException;
+import com.example.minibank.model.IdempotencyRecord;
+import com.example.minibank.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Makes retried requests safe by remembering the response given to each {@code Idempotency-Key}.
+ * <p>
+ * Responses are kept in a bounded in-memory cache for fast replays and written to the {@code idempotency_keys}
+ * table so they survive a restart. The first request with a key reserves it in memory before running, so a
+ * concurrent duplicate waits for that result instead of running again. Failed requests are not remembered
+ * and can be retried with the same key.
+ * <p>
+ * A request that writes to the database records its key in its own transaction, through
+ * {@link #claimInCurrentTransaction()}, and the response is added once it has committed. A key is therefore
+ * taken exactly when the request's changes are, and is never released after they have been applied; if the
+ * response cannot be stored, repeats are told the request was applied instead of running it again.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final int MAXIMUM_KEY_LENGTH = 255;
+
+    // Stored for a request that was applied but whose response was not, or not yet
+    private static final int RESPONSE_UNAVAILABLE = 0;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Cache<String, CompletableFuture<StoredResponse>> responses;
+    private final ThreadLocal<Claim> claims = new ThreadLocal<>();
+
+    @Autowired
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              ObjectMapper objectMapper,
+                              @Value("${minibank.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${minibank.idempotency.maximum-size:100000}") long maximumSize) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Runs {@code action} once per key. Repeats of the same request get the stored response back; reusing a key
+     * for a different request is rejected. Without a key the action simply runs.
+     */
+    public <T> ResponseEntity<T> execute(String key, String operation, Object request, Class<T> bodyType,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key == null) {
+            return action.get();
+        }
+
+        if (key.isBlank() || key.length() > MAXIMUM_KEY_LENGTH) {
+            throw new IdempotencyKeyException("Idempotency key must be between 1 and " + MAXIMUM_KEY_LENGTH + " characters");
+        }
+
+        String fingerprint = fingerprint(operation, request);
+        CompletableFuture<StoredResponse> pending = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> existing = responses.asMap().putIfAbsent(key, pending);
+
+        if (existing != null) {
+            return replay(await(existing), fingerprint, bodyType);
+        }
+
+        Claim claim = new Claim(key, fingerprint);
+        ResponseEntity<T> response;
+
+        try {
+            Optional<StoredResponse> stored = findStored(key);
+
+            if (stored.isPresent()) {
+                pending.complete(stored.get());
+                return replay(stored.get(), fingerprint, bodyType);
+            }
+
+            response = runClaimed(claim, action);
+        } catch (RuntimeException e) {
+            if (claim.committed) {
+                // Failed after its changes were committed, so the key stays taken
+                pending.complete(new StoredResponse(fingerprint, RESPONSE_UNAVAILABLE, null));
+            } else {
+                responses.asMap().remove(key, pending);
+                pending.completeExceptionally(e);
+            }
+
+            throw e;
+        }
+
+        pending.complete(store(claim, response));
+
+        return response;
+    }
+
+    /**
+     * Records the key of the request running on this thread in the current transaction, so that it is taken if,
+     * and only if, the transaction commits. Called by requests that write to the database; does nothing outside
+     * {@link #execute} or a transaction.
+     */
+    void claimInCurrentTransaction() {
+        Claim claim = claims.get();
+
+        if (claim == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        idempotencyRecordRepository.save(newRecord(claim.key, new StoredResponse(claim.fingerprint, RESPONSE_UNAVAILABLE, null)));
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                claim.committed = true;
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${minibank.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int purged = idempotencyRecordRepository.deleteExpired(LocalDateTime.now().minus(ttl));
+
+        if (purged > 0) {
+            log.debug("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private Optional<StoredResponse> findStored(String key) {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(ttl);
+
+        return idempotencyRecordRepository.findById(key)
+                .filter(record -> record.getCreatedAt().isAfter(expiredBefore))
+                .map(record -> new StoredResponse(record.getFingerprint(), record.getStatusCode(), record.getResponseBody()));
+    }
+
+    private <T> ResponseEntity<T> runClaimed(Claim claim, Supplier<ResponseEntity<T>> action) {
+        claims.set(claim);
+
+        try {
+            return action.get();
+        } finally {
+            claims.remove();
+        }
+    }
+
+    /**
+     * Stores the response of a request that has been applied. Never throws: the key must stay taken, so failures
+     * are logged and, at worst, repeats are told the request was applied without getting its response.
+     */
+    private StoredResponse store(Claim claim, ResponseEntity<?> response) {
+        StoredResponse stored;
+
+        try {
+            stored = new StoredResponse(claim.fingerprint, response.getStatusCodeValue(), toJson(response.getBody()));
+        } catch (RuntimeException e) {
+            log.warn("Failed to store the response to idempotency key {}", claim.key, e);
+            stored = new StoredResponse(claim.fingerprint, RESPONSE_UNAVAILABLE, null);
+        }
+
+        try {
+            if (claim.committed) {
+                idempotencyRecordRepository.updateResponse(claim.key, stored.statusCode(), stored.body());
+            } else {
+                // Requests that did not claim their key in a transaction of their own, such as queued transfers
+                idempotencyRecordRepository.save(newRecord(claim.key, stored));
+            }
+        } catch (RuntimeException e) {
+            // The request has already been applied; the in-memory copy still protects against retries
+            log.warn("Failed to persist idempotency key {}", claim.key, e);
+        }
+
+        return stored;
+    }
+
+    private static IdempotencyRecord newRecord(String key, StoredResponse stored) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setKey(key);
+        record.setFingerprint(stored.fingerprint());
+        record.setStatusCode(stored.statusCode());
+        record.setResponseBody(stored.body());
+
+        return record;
+    }
+
+    private <T> ResponseEntity<T> replay(StoredResponse stored, String fingerprint, Class<T> bodyType) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyException("Idempotency key was already used for a different request");
+        }
+
+        if (stored.statusCode() == RESPONSE_UNAVAILABLE) {
+            throw new IdempotencyKeyException("Request was already applied, but its response is not available");
+        }
+
+        HttpStatus status = HttpStatus.valueOf(stored.statusCode());
+
+        if (stored.body() == null) {
+            return new ResponseEntity<>(status);
+        }
+
+        try {
+            return new ResponseEntity<>(objectMapper.readValue(stored.body(), bodyType), status);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response cannot be read", e);
+        }
+    }
+
+    private String fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Request fingerprint cannot be computed", e);
+        }
+    }
+
+    private String toJson(Object body) {
+        if (body == null) {
+            return null;
+        }
+
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored", e);
+        }
+    }
+
+    private static StoredResponse await(CompletableFuture<StoredResponse> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the original request", e);
+        }
+    }
+
+    private record StoredResponse(String fingerprint, int statusCode, String body) {
+    }
+
+    /**
+     * The key of a request being executed, and whether the transaction that claimed it has committed.
+     */
+    private static class Claim {
+        private final String key;
+        private final String fingerprint;
+        private volatile boolean committed;
+
+        Claim(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package com.example.minibank.service;
+
+import com.example.minibank.exception.AccountNotFoundException;
+import com.example.minibank.journal.JournalRecord;
+import com.example.minibank.journal.WriteAheadJournal;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Deposit;
+import com.example.minibank.model.JournalCheckpoint;
+import com.example.minibank.model.LedgerEntry;
+import com.example.minibank.model.Transfer;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.DepositRepository;
+import com.example.minibank.repository.JournalCheckpointRepository;
+import com.example.minibank.repository.LedgerEntryRepository;
+import com.example.minibank.repository.TransferRepository;
+import com.example.minibank.validator.AccountTransactionValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Keeps authoritative account balances in memory. Only created when {@code minibank.ledger.enabled} is set.
+ * <p>
+ * Accounts are partitioned by code into shards, each owned by a single thread, so balance changes
+ * never need a lock. A transfer debits the sender on its shard and, once the transfer is durable, hands the
+ * credit to the receiver's shard; credits cannot fail, so the transfer is complete once the debit is applied.
+ * A deposit or debit whose write cannot be made durable is reversed on its shard before the caller is told.
+ * Balance changes, deposit and transfer rows and their ledger entries are written to the database asynchronously
+ * in batches; a batch that fails to be written is retried until it is, never dropped.
+ * <p>
+ * Without a journal, a deposit or transfer is acknowledged before it is in the database and is lost if the
+ * application stops before then. With {@code minibank.ledger.journal.enabled}, each one is appended to the
+ * {@link WriteAheadJournal} and only acknowledged once durable there. The writer then applies them from the
+ * journal, in order, and records how far it got in the same transaction. On startup, whatever the journal holds
+ * past that point is applied before any account is loaded.
+ */
+@Component
+@ConditionalOnProperty(name = "minibank.ledger.enabled", havingValue = "true")
+public class LedgerEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerEngine.class);
+
+    private static final String CHECKPOINT = "ledger";
+    private static final long PERSIST_RETRY_MILLIS = 1_000;
+
+    private final AccountRepository accountRepository;
+    private final TransferRepository transferRepository;
+    private final DepositRepository depositRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final JournalCheckpointRepository journalCheckpointRepository;
+    private final WriteAheadJournal journal; // null unless the journal is enabled
+    private final TransactionTemplate transactionTemplate;
+
+    private final int writeBatchSize;
+    private final Shard[] shards;
+    private final BlockingQueue<PendingWrite> pendingWrites = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running;
+
+    @Autowired
+    public LedgerEngine(AccountRepository accountRepository,
+                        TransferRepository transferRepository,
+                        DepositRepository depositRepository,
+                        LedgerEntryRepository ledgerEntryRepository,
+                        JournalCheckpointRepository journalCheckpointRepository,
+                        Optional<WriteAheadJournal> journal,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${minibank.ledger.shards:8}") int shardCount,
+                        @Value("${minibank.ledger.write-batch-size:500}") int writeBatchSize) {
+        this.accountRepository = accountRepository;
+        this.transferRepository = transferRepository;
+        this.depositRepository = depositRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.journalCheckpointRepository = journalCheckpointRepository;
+        this.journal = journal.orElse(null);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writeBatchSize = writeBatchSize;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+
+        if (this.journal != null) {
+            replayJournal();
+            this.journal.onCommit(records -> records.forEach(record -> pendingWrites.add(PendingWrite.decode(record))));
+        }
+
+        this.running = true;
+        this.writer = new Thread(this::drainWrites, "ledger-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public Account getAccount(String code) {
+        Shard shard = shardFor(code);
+
+        return await(shard.submit(() -> snapshot(shard.load(code, AccountNotFoundException::new))));
+    }
+
+    public Account deposit(String code, double amount) {
+        Shard shard = shardFor(code);
+
+        Applied<Account> applied = await(shard.submit(() -> {
+            Account account = shard.load(code, AccountNotFoundException::new);
+            Future<?> durable = write(PendingWrite.deposit(AccountService.generateDepositCode(), account.getId(), amount));
+            account.setBalance(account.getBalance() + amount);
+
+            return new Applied<>(snapshot(account), durable);
+        }));
+
+        try {
+            return awaitDurable(applied);
+        } catch (RuntimeException e) {
+            shard.execute(() -> {
+                Account account = shard.accounts.get(code);
+                account.setBalance(account.getBalance() - amount);
+            });
+            throw e;
+        }
+    }
+
+    public String transfer(String senderCode, String receiverCode, double amount, String remarks) {
+        return transfer(senderCode, receiverCode, amount, remarks, AccountService.generateTransferCode());
+    }
+
+    public String transfer(String senderCode, String receiverCode, double amount, String remarks, String transferCode) {
+        Shard receiverShard = shardFor(receiverCode);
+        Integer receiverId = await(receiverShard.submit(() ->
+                receiverShard.load(receiverCode, () -> new AccountNotFoundException("Receiver account not found")).getId()
+        ));
+
+        Shard senderShard = shardFor(senderCode);
+        Applied<String> applied = await(senderShard.submit(() -> {
+            Account sender = senderShard.load(senderCode, () -> new AccountNotFoundException("Sender account not found"));
+            AccountTransactionValidator.validateTransferAmount(sender, amount);
+
+            Future<?> durable = write(PendingWrite.transfer(transferCode, sender.getId(), receiverId, amount, remarks));
+            sender.setBalance(sender.getBalance() - amount);
+
+            return new Applied<>(transferCode, durable);
+        }));
+
+        try {
+            awaitDurable(applied);
+        } catch (RuntimeException e) {
+            senderShard.execute(() -> {
+                Account sender = senderShard.accounts.get(senderCode);
+                sender.setBalance(sender.getBalance() + amount);
+            });
+            throw e;
+        }
+
+        receiverShard.execute(() -> {
+            Account receiver = receiverShard.accounts.get(receiverCode);
+            receiver.setBalance(receiver.getBalance() + amount);
+        });
+
+        return applied.result();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+
+        for (Shard shard : shards) {
+            shard.executor.awaitTermination(30, TimeUnit.SECONDS);
+        }
+
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * Queues a write for the database, through the journal if there is one. Called on the shard thread before
+     * the balance is changed, so the journal holds a shard's writes in the order they were applied in memory and
+     * a write the journal refuses leaves the balance untouched.
+     */
+    private Future<?> write(PendingWrite write) {
+        if (journal == null) {
+            pendingWrites.add(write);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return journal.append(write.encode());
+    }
+
+    private static <T> T awaitDurable(Applied<T> applied) {
+        await(applied.durable());
+
+        return applied.result();
+    }
+
+    private void replayJournal() {
+        long checkpoint = journalCheckpointRepository.findById(CHECKPOINT)
+                .map(JournalCheckpoint::getSequence)
+                .orElse(0L);
+        List<PendingWrite> batch = new ArrayList<>(writeBatchSize);
+        long[] replayed = {0};
+
+        try {
+            journal.replay(checkpoint, record -> {
+                batch.add(PendingWrite.decode(record));
+
+                if (batch.size() == writeBatchSize) {
+                    persist(batch);
+                    replayed[0] += batch.size();
+                    batch.clear();
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay the ledger journal", e);
+        }
+
+        if (!batch.isEmpty()) {
+            persist(batch);
+            replayed[0] += batch.size();
+        }
+
+        if (replayed[0] > 0) {
+            log.info("Replayed {} ledger journal records after sequence {}", replayed[0], checkpoint);
+        }
+
+        journal.release(journal.getLastRecoveredSequence());
+    }
+
+    private Shard shardFor(String code) {
+        return shards[Math.floorMod(Objects.hashCode(code), shards.length)];
+    }
+
+    private void drainWrites() {
+        List<PendingWrite> batch = new ArrayList<>(writeBatchSize);
+
+        while (running || !pendingWrites.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    PendingWrite first = pendingWrites.poll(100, TimeUnit.MILLISECONDS);
+
+                    if (first == null) {
+                        continue;
+                    }
+
+                    batch.add(first);
+                    pendingWrites.drainTo(batch, writeBatchSize - 1);
+                }
+
+                persist(batch);
+
+                if (journal != null) {
+                    journal.release(batch.get(batch.size() - 1).sequence());
+                }
+
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Retried rather than skipped: the writes were acknowledged and are already in the shards' balances,
+                // and with a journal the checkpoint must not move past them
+                log.error("Failed to persist {} ledger writes, retrying", batch.size(), e);
+                pauseBeforeRetry();
+            }
+        }
+    }
+
+    private static void pauseBeforeRetry() {
+        try {
+            Thread.sleep(PERSIST_RETRY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void persist(List<PendingWrite> batch) {
+        // Balance changes are summed per account, so each account in the batch is updated once, and the
+        // order in which the shards queued them does not matter
+        Map<Integer, Double> balanceChanges = new LinkedHashMap<>();
+        List<PendingWrite> deposits = new ArrayList<>();
+        List<PendingWrite> transfers = new ArrayList<>();
+
+        for (PendingWrite write : batch) {
+            if (write.kind() == PendingWrite.Kind.TRANSFER) {
+                transfers.add(write);
+                balanceChanges.merge(write.accountId(), -write.amount(), Double::sum);
+                balanceChanges.merge(write.receiverAccountId(), write.amount(), Double::sum);
+            } else {
+                deposits.add(write);
+                balanceChanges.merge(write.accountId(), write.amount(), Double::sum);
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Deposit> depositEntities = new ArrayList<>(deposits.size());
+            List<Transfer> entities = new ArrayList<>(transfers.size());
+            List<LedgerEntry> entries = new ArrayList<>(deposits.size() + 2 * transfers.size());
+
+            for (PendingWrite write : deposits) {
+                depositEntities.add(new Deposit(write.code(), accountRepository.getReferenceById(write.accountId()), write.amount()));
+            }
+
+            if (!depositEntities.isEmpty()) {
+                depositRepository.saveAll(depositEntities);
+            }
+
+            for (int i = 0; i < depositEntities.size(); i++) {
+                PendingWrite write = deposits.get(i);
+                entries.add(LedgerEntry.deposit(depositEntities.get(i).getId(), write.accountId(), write.amount()));
+            }
+
+            for (PendingWrite write : transfers) {
+                Transfer transfer = new Transfer();
+                transfer.setCode(write.code());
+                transfer.setAmount(write.amount());
+                transfer.setRemarks(write.remarks());
+                transfer.setSenderAccount(accountRepository.getReferenceById(write.accountId()));
+                transfer.setReceiverAccount(accountRepository.getReferenceById(write.receiverAccountId()));
+                entities.add(transfer);
+            }
+
+            if (!entities.isEmpty()) {
+                transferRepository.saveAll(entities);
+            }
+
+            for (int i = 0; i < entities.size(); i++) {
+                PendingWrite write = transfers.get(i);
+                entries.addAll(LedgerEntry.transfer(entities.get(i).getId(), write.accountId(), write.receiverAccountId(), write.amount()));
+            }
+
+            if (!entries.isEmpty()) {
+                ledgerEntryRepository.saveAll(entries);
+            }
+
+            balanceChanges.forEach(accountRepository::addToBalance);
+
+            if (journal != null) {
+                journalCheckpointRepository.save(new JournalCheckpoint(CHECKPOINT, batch.get(batch.size() - 1).sequence()));
+            }
+        });
+    }
+
+    private static Account snapshot(Account account) {
+        Account copy = new Account();
+        copy.setId(account.getId());
+        copy.setCode(account.getCode());
+        copy.setBalance(account.getBalance());
+        copy.setCustomer(account.getCustomer());
+        copy.setCreatedAt(account.getCreatedAt());
+        copy.setUpdatedAt(account.getUpdatedAt());
+
+        return copy;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the ledger", e);
+        }
+    }
+
+    /**
+     * A partition of accounts whose state is only ever touched by the shard's own thread.
+     */
+    private class Shard {
+        private final ExecutorService executor;
+        private final Map<String, Account> accounts = new HashMap<>();
+
+        Shard(int index) {
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ledger-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        <T> Future<T> submit(Callable<T> task) {
+            return executor.submit(task);
+        }
+
+        void execute(Runnable task) {
+            executor.execute(task);
+        }
+
+        Account load(String code, Supplier<? extends RuntimeException> notFound) {
+            Account account = accounts.get(code);
+
+            if (account == null) {
+                account = accountRepository.findAccountByCode(code).orElseThrow(notFound);
+                accounts.put(code, account);
+            }
+
+            return account;
+        }
+    }
+
+    private record Applied<T>(T result, Future<?> durable) {
+    }
+
+    /**
+     * A deposit or transfer to write to the database. With a journal, it is written there first, encoded, and
+     * carries the sequence number it was journaled under.
+     */
+    private record PendingWrite(Kind kind, long sequence, Integer accountId, Integer receiverAccountId, double amount,
+                                String code, String remarks) {
+
+        enum Kind {
+            DEPOSIT,
+            TRANSFER
+        }
+
+        static PendingWrite deposit(String code, Integer accountId, double amount) {
+            return new PendingWrite(Kind.DEPOSIT, 0, accountId, null, amount, code, null);
+        }
+
+        static PendingWrite transfer(String code, Integer senderId, Integer receiverId, double amount, String remarks) {
+            return new PendingWrite(Kind.TRANSFER, 0, senderId, receiverId, amount, code, remarks);
+        }
+
+        byte[] encode() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                UUID uuid = UUID.fromString(code);
+                out.writeByte(kind.ordinal());
+                out.writeInt(accountId);
+                out.writeDouble(amount);
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+
+                if (kind == Kind.TRANSFER) {
+                    out.writeInt(receiverAccountId);
+                    out.writeBoolean(remarks != null);
+
+                    if (remarks != null) {
+                        out.writeUTF(remarks);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return bytes.toByteArray();
+        }
+
+        static PendingWrite decode(JournalRecord record) {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record.payload()))) {
+                Kind kind = Kind.values()[in.readByte()];
+                int accountId = in.readInt();
+                double amount = in.readDouble();
+                String code = new UUID(in.readLong(), in.readLong()).toString();
+
+                if (kind == Kind.DEPOSIT) {
+                    return new PendingWrite(kind, record.sequence(), accountId, null, amount, code, null);
+                }
+
+                int receiverAccountId = in.readInt();
+                String remarks = in.readBoolean() ? in.readUTF() : null;
+
+                return new PendingWrite(kind, record.sequence(), accountId, receiverAccountId, amount, code, remarks);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unreadable ledger journal record " + record.sequence(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.minibank.service;
+
+import com.example.minibank.exception.AccountNotFoundException;
+import com.example.minibank.exception.AccountTransactionException;
+import com.example.minibank.model.Account;
+import com.example.minibank.repository.AccountRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Loads accounts without locking and relies on the {@code @Version} column of {@link Account} to detect
+ * concurrent updates at commit. A conflicting transaction is retried from scratch with exponential backoff.
+ * Deadlocks reported by the database while flushing the updates are retried the same way.
+ */
+@Component
+@ConditionalOnProperty(name = "minibank.transfers.concurrency-control", havingValue = "optimistic", matchIfMissing = true)
+public class OptimisticConcurrencyControl implements AccountConcurrencyControl {
+
+    private static final long MAXIMUM_BACKOFF_MILLIS = 1_000;
+
+    private final AccountRepository accountRepository;
+    private final CodeLookupCache codeLookupCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long backoffMillis;
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+    private final Timer backoffTimer;
+
+    @Autowired
+    public OptimisticConcurrencyControl(AccountRepository accountRepository,
+                                        CodeLookupCache codeLookupCache,
+                                        PlatformTransactionManager transactionManager,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${minibank.transfers.optimistic.max-attempts:5}") int maxAttempts,
+                                        @Value("${minibank.transfers.optimistic.backoff-ms:5}") long backoffMillis) {
+        this.accountRepository = accountRepository;
+        this.codeLookupCache = codeLookupCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+
+        FunctionCounter.builder("minibank.transfers.retries", retries, AtomicLong::get)
+                .description("Transactions retried after a concurrent update")
+                .tag("strategy", "optimistic")
+                .register(meterRegistry);
+        FunctionCounter.builder("minibank.transfers.retries.exhausted", exhausted, AtomicLong::get)
+                .description("Transactions that failed after the last retry")
+                .tag("strategy", "optimistic")
+                .register(meterRegistry);
+        this.backoffTimer = Timer.builder("minibank.transfers.lock.wait")
+                .description("Time spent waiting for contended accounts: backoff before a retry")
+                .tag("strategy", "optimistic")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T withAccount(String code, Function<Account, T> work) {
+        return retry(() -> transactionTemplate.execute(status -> {
+            Account account = codeLookupCache.findAccount(code)
+                    .orElseThrow(AccountNotFoundException::new);
+
+            return work.apply(account);
+        }));
+    }
+
+    @Override
+    public <T> T withAccounts(String senderCode, String receiverCode, BiFunction<Account, Account, T> work) {
+        return retry(() -> transactionTemplate.execute(status -> {
+            Account senderAccount = codeLookupCache.findAccount(senderCode)
+                    .orElseThrow(() -> new AccountNotFoundException("Sender account not found"));
+
+            Account receiverAccount = codeLookupCache.findAccount(receiverCode)
+                    .orElseThrow(() -> new AccountNotFoundException("Receiver account not found"));
+
+            return work.apply(senderAccount, receiverAccount);
+        }));
+    }
+
+    @Override
+    public <T> T withAccounts(String senderCode, Collection<String> receiverCodes, BiFunction<Account, Map<String, Account>, T> work) {
+        return retry(() -> transactionTemplate.execute(status -> {
+            Account senderAccount = codeLookupCache.findAccount(senderCode)
+                    .orElseThrow(() -> new AccountNotFoundException("Sender account not found"));
+
+            Map<String, Account> receiverAccounts = accountRepository.findAccountsByCodeIn(receiverCodes).stream()
+                    .collect(Collectors.toMap(Account::getCode, Function.identity()));
+
+            return work.apply(senderAccount, receiverAccounts);
+        }));
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    public long getExhaustedCount() {
+        return exhausted.get();
+    }
+
+    private <T> T retry(Supplier<T> attempt) {
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            try {
+                return attempt.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attemptNumber >= maxAttempts) {
+                    exhausted.incrementAndGet();
+                    throw new AccountTransactionException("Account was updated concurrently, please retry");
+                }
+
+                retries.incrementAndGet();
+                backoff(attemptNumber);
+            }
+        }
+    }
+
+    private void backoff(int attemptNumber) {
+        // Exponential backoff with full jitter so that colliding transactions spread out
+        long ceiling = Math.min(MAXIMUM_BACKOFF_MILLIS, backoffMillis << (attemptNumber - 1));
+
+        if (ceiling <= 0) {
+            return;
+        }
+
+        long sleepMillis = ThreadLocalRandom.current().nextLong(ceiling + 1);
+
+        try {
+            Thread.sleep(sleepMillis);
+            backoffTimer.record(sleepMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountTransactionException("Interrupted while retrying the transaction");
+        }
+    }
+}
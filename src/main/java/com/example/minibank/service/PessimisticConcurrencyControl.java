@@ -0,0 +1,128 @@
+package com.example.minibank.service;
+
+import com.example.minibank.exception.AccountNotFoundException;
+import com.example.minibank.model.Account;
+import com.example.minibank.repository.AccountRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Locks account rows with {@code SELECT ... FOR UPDATE} for the duration of the transaction.
+ * <p>
+ * Accounts are always locked in ascending id order, so an A to B transfer and a concurrent
+ * B to A transfer queue up on the same row instead of deadlocking. A batch resolves its receivers'
+ * codes with one query and locks its sender and all of its receivers in id order with another.
+ */
+@Component
+@ConditionalOnProperty(name = "minibank.transfers.concurrency-control", havingValue = "pessimistic")
+public class PessimisticConcurrencyControl implements AccountConcurrencyControl {
+
+    private final AccountRepository accountRepository;
+    private final CodeLookupCache codeLookupCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer lockWaitTimer;
+
+    @Autowired
+    public PessimisticConcurrencyControl(AccountRepository accountRepository,
+                                         CodeLookupCache codeLookupCache,
+                                         PlatformTransactionManager transactionManager,
+                                         MeterRegistry meterRegistry) {
+        this.accountRepository = accountRepository;
+        this.codeLookupCache = codeLookupCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lockWaitTimer = Timer.builder("minibank.transfers.lock.wait")
+                .description("Time spent waiting for contended accounts: acquiring the row lock")
+                .tag("strategy", "pessimistic")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T withAccount(String code, Function<Account, T> work) {
+        return transactionTemplate.execute(status -> {
+            Integer id = codeLookupCache.findAccountId(code)
+                    .orElseThrow(AccountNotFoundException::new);
+
+            return work.apply(lock(id));
+        });
+    }
+
+    @Override
+    public <T> T withAccounts(String senderCode, String receiverCode, BiFunction<Account, Account, T> work) {
+        return transactionTemplate.execute(status -> {
+            Integer senderId = codeLookupCache.findAccountId(senderCode)
+                    .orElseThrow(() -> new AccountNotFoundException("Sender account not found"));
+
+            Integer receiverId = codeLookupCache.findAccountId(receiverCode)
+                    .orElseThrow(() -> new AccountNotFoundException("Receiver account not found"));
+
+            if (senderId.equals(receiverId)) {
+                Account account = lock(senderId);
+                return work.apply(account, account);
+            }
+
+            Account senderAccount;
+            Account receiverAccount;
+
+            if (senderId < receiverId) {
+                senderAccount = lock(senderId);
+                receiverAccount = lock(receiverId);
+            } else {
+                receiverAccount = lock(receiverId);
+                senderAccount = lock(senderId);
+            }
+
+            return work.apply(senderAccount, receiverAccount);
+        });
+    }
+
+    @Override
+    public <T> T withAccounts(String senderCode, Collection<String> receiverCodes, BiFunction<Account, Map<String, Account>, T> work) {
+        return transactionTemplate.execute(status -> {
+            Integer senderId = codeLookupCache.findAccountId(senderCode)
+                    .orElseThrow(() -> new AccountNotFoundException("Sender account not found"));
+            Map<String, Integer> receiverIds = codeLookupCache.findAccountIds(receiverCodes);
+
+            Set<Integer> ids = new HashSet<>(receiverIds.values());
+            ids.add(senderId);
+
+            Map<Integer, Account> lockedAccounts = lockWaitTimer.record(() -> accountRepository.findAccountsByIdInForUpdate(ids))
+                    .stream()
+                    .collect(Collectors.toMap(Account::getId, Function.identity()));
+
+            Account senderAccount = lockedAccounts.get(senderId);
+            if (senderAccount == null) {
+                throw new AccountNotFoundException("Sender account not found");
+            }
+
+            // A receiver whose id no longer resolves is left out, like an unknown code
+            Map<String, Account> receiverAccounts = new HashMap<>();
+            receiverIds.forEach((receiverCode, id) -> {
+                if (lockedAccounts.containsKey(id)) {
+                    receiverAccounts.put(receiverCode, lockedAccounts.get(id));
+                }
+            });
+
+            return work.apply(senderAccount, receiverAccounts);
+        });
+    }
+
+    private Account lock(Integer id) {
+        return lockWaitTimer.record(() -> accountRepository.findAccountByIdForUpdate(id))
+                .orElseThrow(AccountNotFoundException::new);
+    }
+}
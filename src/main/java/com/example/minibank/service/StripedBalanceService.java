@@ -0,0 +1,193 @@
+package com.example.minibank.service;
+
+import com.example.minibank.exception.AccountNotFoundException;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.AccountStripe;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.AccountStripeRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Splits the balances of hot accounts, the few that receive a large share of all transfers, across
+ * {@link AccountStripe} rows, so that concurrent credits update different rows instead of queueing on one.
+ * <p>
+ * A credit goes to the less busy of two randomly picked stripes, judged by the credits this instance has in
+ * flight on each. A debit comes out of the account's own balance; when that is short, every stripe is swept
+ * into it first, under the stripes' row locks. Reads add the stripes to the account's own balance.
+ * <p>
+ * Which accounts are striped is loaded on startup and kept up to date by {@link #setStripes}. An instance that
+ * has not seen a change stays correct: a credit to a stripe that no longer exists is applied to the account row.
+ */
+@Service
+public class StripedBalanceService {
+
+    public static final int MAXIMUM_STRIPES = 64;
+
+    private final AccountRepository accountRepository;
+    private final AccountStripeRepository accountStripeRepository;
+    private final CodeLookupCache codeLookupCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean ledgerEnabled;
+
+    // The credits in flight on each stripe, by striped account id
+    private final Map<Integer, AtomicIntegerArray> inFlightCredits = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StripedBalanceService(AccountRepository accountRepository,
+                                 AccountStripeRepository accountStripeRepository,
+                                 CodeLookupCache codeLookupCache,
+                                 PlatformTransactionManager transactionManager,
+                                 Optional<LedgerEngine> ledgerEngine) {
+        this.accountRepository = accountRepository;
+        this.accountStripeRepository = accountStripeRepository;
+        this.codeLookupCache = codeLookupCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ledgerEnabled = ledgerEngine.isPresent();
+
+        for (AccountStripeRepository.StripeCount stripeCount : accountStripeRepository.findStripeCounts()) {
+            inFlightCredits.put(stripeCount.getAccountId(), new AtomicIntegerArray((int) stripeCount.getStripes()));
+        }
+    }
+
+    public boolean isStriped(Integer accountId) {
+        return findInFlightCredits(accountId) != null;
+    }
+
+    /**
+     * Returns the id of the account if it is striped. Does not look the code up unless some account is.
+     */
+    public Optional<Integer> findStripedAccountId(String code) {
+        if (inFlightCredits.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return codeLookupCache.findAccountId(code).filter(this::isStriped);
+    }
+
+    /**
+     * Credits one of the account's stripes, in the current transaction. Returns false if the account is not
+     * striped, in which case the caller credits the account itself.
+     */
+    public boolean credit(Integer accountId, double amount) {
+        AtomicIntegerArray inFlight = findInFlightCredits(accountId);
+
+        if (inFlight == null) {
+            return false;
+        }
+
+        int stripe = pickStripe(inFlight);
+        inFlight.incrementAndGet(stripe);
+
+        // The stripe's row stays locked until the transaction ends
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                inFlight.decrementAndGet(stripe);
+            }
+        });
+
+        return accountStripeRepository.addToBalance(accountId, stripe, amount) > 0;
+    }
+
+    /**
+     * Called before debiting an account, in the same transaction. If the account is striped and its own balance
+     * does not cover the amount, its stripes are swept into it.
+     */
+    public void prepareDebit(Account account, double amount) {
+        if (account.getBalance() >= amount || !isStriped(account.getId())) {
+            return;
+        }
+
+        double swept = 0;
+        for (AccountStripe stripe : accountStripeRepository.findByAccountIdForUpdate(account.getId())) {
+            swept += stripe.getBalance();
+        }
+
+        accountStripeRepository.clearBalances(account.getId());
+        account.deposit(swept);
+    }
+
+    /**
+     * Loads what the stripes of the account hold, if it is striped, so that it is rendered with its whole balance.
+     */
+    public Account loadStripedBalance(Account account) {
+        if (isStriped(account.getId())) {
+            account.setStripedBalance(accountStripeRepository.sumBalances(account.getId()));
+        }
+
+        return account;
+    }
+
+    /**
+     * Splits the balance of an account into {@code stripes} stripes, or merges them back into the account with
+     * fewer than 2. Whatever the current stripes hold is moved to the account first, so its balance does not change.
+     */
+    public int setStripes(String code, int stripes) {
+        if (ledgerEnabled) {
+            throw new IllegalStateException("Hot accounts are not used with the in-memory ledger");
+        }
+
+        if (stripes < 0 || stripes > MAXIMUM_STRIPES) {
+            throw new IllegalArgumentException("Stripe count must be between 0 and " + MAXIMUM_STRIPES);
+        }
+
+        int stripeCount = (stripes < 2) ? 0 : stripes;
+        Integer accountId = codeLookupCache.findAccountId(code)
+                .orElseThrow(AccountNotFoundException::new);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Account account = accountRepository.findAccountByIdForUpdate(accountId)
+                    .orElseThrow(AccountNotFoundException::new);
+
+            double swept = 0;
+            for (AccountStripe stripe : accountStripeRepository.findByAccountIdForUpdate(accountId)) {
+                swept += stripe.getBalance();
+            }
+
+            accountStripeRepository.deleteByAccountId(accountId);
+            account.deposit(swept);
+
+            List<AccountStripe> created = new ArrayList<>(stripeCount);
+            for (int i = 0; i < stripeCount; i++) {
+                created.add(new AccountStripe(accountId, i));
+            }
+
+            accountStripeRepository.saveAll(created);
+        });
+
+        if (stripeCount == 0) {
+            inFlightCredits.remove(accountId);
+        } else {
+            inFlightCredits.put(accountId, new AtomicIntegerArray(stripeCount));
+        }
+
+        return stripeCount;
+    }
+
+    // Accounts that are not saved yet have no id, and cannot be striped
+    private AtomicIntegerArray findInFlightCredits(Integer accountId) {
+        return (accountId != null) ? inFlightCredits.get(accountId) : null;
+    }
+
+    // The less busy of two random stripes: nearly as good as the least busy of all, without scanning them
+    private static int pickStripe(AtomicIntegerArray inFlight) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(inFlight.length());
+        int second = random.nextInt(inFlight.length());
+
+        return (inFlight.get(first) <= inFlight.get(second)) ? first : second;
+    }
+}
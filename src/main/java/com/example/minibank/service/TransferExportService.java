@@ -0,0 +1,146 @@
+package com.example.minibank.service;
+
+import com.example.minibank.controller.response.TransferHistoryItem;
+import com.example.minibank.repository.TransferRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the complete transfer history of an account row by row, so memory use does not depend on its size.
+ */
+@Service
+public class TransferExportService {
+
+    private static final String CSV_HEADER = "code,direction,counterpartyAccountCode,amount,remarks,createdAt";
+
+    public enum Format {
+        NDJSON(new MediaType("application", "x-ndjson"), "ndjson"),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv");
+
+        private final MediaType mediaType;
+        private final String fileExtension;
+
+        Format(MediaType mediaType, String fileExtension) {
+            this.mediaType = mediaType;
+            this.fileExtension = fileExtension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getFileExtension() {
+            return fileExtension;
+        }
+
+        public static Format fromName(String name) {
+            try {
+                return valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + name);
+            }
+        }
+    }
+
+    private static final Comparator<TransferHistoryItem> OLDEST_FIRST = Comparator.comparing(TransferHistoryItem::getCreatedAt)
+            .thenComparing(TransferHistoryItem::getId);
+
+    private final TransferRepository transferRepository;
+    private final ObjectWriter rowWriter;
+
+    @Autowired
+    public TransferExportService(TransferRepository transferRepository, ObjectMapper objectMapper) {
+        this.transferRepository = transferRepository;
+        this.rowWriter = objectMapper.writerFor(TransferHistoryItem.class);
+    }
+
+    /**
+     * Merges the account's sent and received transfers, each streamed oldest first by its own index, into one
+     * history oldest first. Rows are projections rather than entities, so nothing accumulates in the persistence context.
+     */
+    @Transactional(readOnly = true)
+    public void export(Integer accountId, Format format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        try (Stream<TransferHistoryItem> sentRows = transferRepository.streamSentByAccountId(accountId);
+             Stream<TransferHistoryItem> receivedRows = transferRepository.streamReceivedByAccountId(accountId)) {
+            Iterator<TransferHistoryItem> sent = sentRows.iterator();
+            Iterator<TransferHistoryItem> received = receivedRows.iterator();
+            TransferHistoryItem nextSent = next(sent);
+            TransferHistoryItem nextReceived = next(received);
+            int rowsSinceFlush = 0;
+
+            while (nextSent != null || nextReceived != null) {
+                TransferHistoryItem row;
+
+                if (nextReceived == null || (nextSent != null && OLDEST_FIRST.compare(nextSent, nextReceived) <= 0)) {
+                    row = nextSent;
+                    nextSent = next(sent);
+                } else {
+                    row = nextReceived;
+                    nextReceived = next(received);
+                }
+
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, row);
+                } else {
+                    writer.write(rowWriter.writeValueAsString(row));
+                    writer.write('\n');
+                }
+
+                if (++rowsSinceFlush == TransferRepository.EXPORT_FETCH_SIZE) {
+                    writer.flush();
+                    rowsSinceFlush = 0;
+                }
+            }
+        }
+
+        writer.flush();
+    }
+
+    private static TransferHistoryItem next(Iterator<TransferHistoryItem> rows) {
+        return rows.hasNext() ? rows.next() : null;
+    }
+
+    private static void writeCsvRow(Writer writer, TransferHistoryItem row) throws IOException {
+        writer.write(row.getCode());
+        writer.write(',');
+        writer.write(row.getDirection().name());
+        writer.write(',');
+        writer.write(row.getCounterpartyAccountCode());
+        writer.write(',');
+        writer.write(Double.toString(row.getAmount()));
+        writer.write(',');
+        writer.write(escapeCsv(row.getRemarks()));
+        writer.write(',');
+        writer.write(row.getCreatedAt().toString());
+        writer.write('\n');
+    }
+
+    private static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.minibank.tracing;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The span tree of a single request. Only ever touched by the thread handling the request.
+ */
+public class RequestTrace {
+
+    static final int MAXIMUM_SQL_STATEMENTS = 200;
+    static final int MAXIMUM_SQL_LENGTH = 2_000;
+
+    private final String method;
+    private final String uri;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final long startNanos = System.nanoTime();
+    private final Span root;
+    private final Deque<Span> open = new ArrayDeque<>();
+    private int status;
+    private int sqlStatements;
+
+    RequestTrace(String method, String uri) {
+        this.method = method;
+        this.uri = uri;
+        this.root = new Span(method + " " + uri, null, 0);
+        this.open.push(root);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public Double getDurationMs() {
+        return root.getDurationMs();
+    }
+
+    public int getSqlStatements() {
+        return sqlStatements;
+    }
+
+    public Span getRoot() {
+        return root;
+    }
+
+    @JsonIgnore
+    long getDurationNanos() {
+        return root.getDurationNanos();
+    }
+
+    Span begin(String name) {
+        Span span = new Span(name, null, elapsed());
+        open.peek().add(span);
+        open.push(span);
+
+        return span;
+    }
+
+    void end(Span span) {
+        if (!span.isOpen()) {
+            return;
+        }
+
+        long now = elapsed();
+
+        // Close anything left open inside the span, e.g. after an exception skipped its end
+        while (!open.isEmpty() && open.peek() != root) {
+            Span closed = open.pop();
+            closed.end(now);
+
+            if (closed == span) {
+                return;
+            }
+        }
+    }
+
+    void sql(String sql) {
+        if (++sqlStatements > MAXIMUM_SQL_STATEMENTS) {
+            return;
+        }
+
+        String text = sql.length() > MAXIMUM_SQL_LENGTH ? sql.substring(0, MAXIMUM_SQL_LENGTH) + "..." : sql;
+        Span statement = new Span("sql", text, elapsed());
+        open.peek().add(statement);
+    }
+
+    void finish(int status) {
+        this.status = status;
+        long now = elapsed();
+
+        while (!open.isEmpty()) {
+            open.pop().end(now);
+        }
+    }
+
+    private long elapsed() {
+        return System.nanoTime() - startNanos;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.minibank.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the slowest traced requests, up to {@code minibank.tracing.slowest-size} of them.
+ */
+@Component
+public class SlowRequestLog {
+
+    private static final Comparator<RequestTrace> BY_DURATION = Comparator.comparingLong(RequestTrace::getDurationNanos);
+
+    private final int capacity;
+    private final PriorityQueue<RequestTrace> slowest;
+
+    public SlowRequestLog(@Value("${minibank.tracing.slowest-size:20}") int capacity) {
+        this.capacity = capacity;
+        this.slowest = new PriorityQueue<>(capacity + 1, BY_DURATION);
+    }
+
+    public synchronized void offer(RequestTrace trace) {
+        if (slowest.size() < capacity) {
+            slowest.add(trace);
+        } else if (capacity > 0 && BY_DURATION.compare(trace, slowest.peek()) > 0) {
+            slowest.poll();
+            slowest.add(trace);
+        }
+    }
+
+    /**
+     * The retained traces, slowest first.
+     */
+    public synchronized List<RequestTrace> getSlowest() {
+        List<RequestTrace> traces = new ArrayList<>(slowest);
+        traces.sort(BY_DURATION.reversed());
+
+        return traces;
+    }
+
+    public synchronized void clear() {
+        slowest.clear();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.minibank.tracing;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A timed section of a request. Times are relative to the start of the request.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class Span {
+
+    private final String name;
+    private final String sql;
+    private final long startNanos;
+    private long endNanos = -1;
+    private final List<Span> children = new ArrayList<>();
+
+    Span(String name, String sql, long startNanos) {
+        this.name = name;
+        this.sql = sql;
+        this.startNanos = startNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The statement text, only set on spans that record SQL sent to the database.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    public double getStartMs() {
+        return startNanos / 1e6;
+    }
+
+    public Double getDurationMs() {
+        return endNanos < 0 ? null : (endNanos - startNanos) / 1e6;
+    }
+
+    public List<Span> getChildren() {
+        return children;
+    }
+
+    @JsonIgnore
+    long getDurationNanos() {
+        return endNanos - startNanos;
+    }
+
+    boolean isOpen() {
+        return endNanos < 0 && sql == null;
+    }
+
+    void end(long nanos) {
+        endNanos = nanos;
+    }
+
+    void add(Span child) {
+        children.add(child);
+    }
+}
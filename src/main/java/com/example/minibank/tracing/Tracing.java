@@ -0,0 +1,56 @@
+package com.example.minibank.tracing;
+
+/**
+ * Entry point for recording spans on the current request. Every method is a no-op unless the request is
+ * being traced, which costs a single thread-local lookup.
+ * <pre>
+ * try (Tracing.Scope ignored = Tracing.span("validate")) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class Tracing {
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+    private static final Scope NOOP = () -> { };
+
+    private Tracing() {
+    }
+
+    public static Scope span(String name) {
+        RequestTrace trace = CURRENT.get();
+
+        if (trace == null) {
+            return NOOP;
+        }
+
+        Span span = trace.begin(name);
+
+        return () -> trace.end(span);
+    }
+
+    public static void sql(String sql) {
+        RequestTrace trace = CURRENT.get();
+
+        if (trace != null) {
+            trace.sql(sql);
+        }
+    }
+
+    static RequestTrace start(String method, String uri) {
+        RequestTrace trace = new RequestTrace(method, uri);
+        CURRENT.set(trace);
+
+        return trace;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.minibank.tracing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records a span for every controller, service and repository call of a traced request.
+ * Only registered when tracing is enabled, so untraced deployments pay nothing for it.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "minibank.tracing.enabled", havingValue = "true")
+public class TracingAspect {
+
+    @Around("within(com.example.minibank.controller.api..*)"
+            + " || within(com.example.minibank.service..*) && execution(public * *(..))"
+            + " || execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        String name = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+
+        try (Tracing.Scope ignored = Tracing.span(name)) {
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.minibank.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traces a sample of requests end to end and hands those slower than the threshold to the {@link SlowRequestLog}.
+ */
+@Component
+@ConditionalOnProperty(name = "minibank.tracing.enabled", havingValue = "true")
+public class TracingFilter extends OncePerRequestFilter {
+
+    private final SlowRequestLog slowRequestLog;
+    private final double sampleRate;
+    private final long thresholdNanos;
+
+    public TracingFilter(SlowRequestLog slowRequestLog,
+                         @Value("${minibank.tracing.sample-rate:1.0}") double sampleRate,
+                         @Value("${minibank.tracing.threshold-ms:0}") long thresholdMillis) {
+        this.slowRequestLog = slowRequestLog;
+        this.sampleRate = sampleRate;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+
+        return path.startsWith("/admin") || path.startsWith("/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestTrace trace = Tracing.start(request.getMethod(), request.getRequestURI());
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Tracing.stop();
+            trace.finish(response.getStatus());
+
+            if (trace.getDurationNanos() >= thresholdNanos) {
+                slowRequestLog.offer(trace);
+            }
+        }
+    }
+}
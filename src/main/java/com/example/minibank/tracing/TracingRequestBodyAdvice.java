@@ -0,0 +1,46 @@
+package com.example.minibank.tracing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.lang.reflect.Type;
+
+/**
+ * Records a span around reading and deserializing the request body.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "minibank.tracing.enabled", havingValue = "true")
+public class TracingRequestBodyAdvice extends RequestBodyAdviceAdapter {
+
+    private static final ThreadLocal<Tracing.Scope> READING = new ThreadLocal<>();
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        READING.set(Tracing.span("deserialize " + parameter.getParameterType().getSimpleName()));
+
+        return inputMessage;
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        Tracing.Scope scope = READING.get();
+
+        if (scope != null) {
+            READING.remove();
+            scope.close();
+        }
+
+        return body;
+    }
+}
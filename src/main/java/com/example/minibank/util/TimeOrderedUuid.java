@@ -0,0 +1,41 @@
+package com.example.minibank.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates version 7 UUIDs: a 48-bit Unix millisecond timestamp followed by random bits.
+ * <p>
+ * Values generated one after another sort in generation order, so new codes are appended to the end of
+ * an index instead of landing on random pages. Within the same millisecond the 12 bits after the
+ * timestamp act as a counter to keep that order.
+ */
+public final class TimeOrderedUuid {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Last issued (timestamp << 12 | counter)
+    private static final AtomicLong lastTimeAndCounter = new AtomicLong();
+
+    private TimeOrderedUuid() {
+    }
+
+    public static UUID generate() {
+        long timeAndCounter = nextTimeAndCounter();
+        long timestamp = timeAndCounter >>> 12;
+        long counter = timeAndCounter & 0xFFF;
+
+        long mostSignificantBits = (timestamp << 16) | 0x7000L | counter;
+        long leastSignificantBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    private static long nextTimeAndCounter() {
+        long now = System.currentTimeMillis() << 12;
+
+        // If the clock has not moved on (or went backwards) keep counting up from the last value
+        return lastTimeAndCounter.updateAndGet(last -> Math.max(now, last + 1));
+    }
+}
@@ -4,25 +4,43 @@ import com.example.minibank.controller.request.DepositRequest;
 import com.example.minibank.exception.AccountTransactionException;
 import com.example.minibank.model.Account;
 import com.example.minibank.service.AccountService;
+import com.example.minibank.tracing.Tracing;
 
 public class AccountTransactionValidator {
     public static void validateDepositAmount(DepositRequest depositRequest) {
-        if (depositRequest.getAmount() < AccountService.MINIMUM_DEPOSIT_AMOUNT) {
-            throw new AccountTransactionException("Deposit amount cannot be less than " + AccountService.MINIMUM_DEPOSIT_AMOUNT);
+        try (Tracing.Scope ignored = Tracing.span("AccountTransactionValidator.validateDepositAmount")) {
+            if (depositRequest.getAmount() < AccountService.MINIMUM_DEPOSIT_AMOUNT) {
+                throw new AccountTransactionException("Deposit amount cannot be less than " + AccountService.MINIMUM_DEPOSIT_AMOUNT);
+            }
+
+            if (depositRequest.getAmount() > AccountService.MAXIMUM_DEPOSIT_AMOUNT) {
+                throw new AccountTransactionException("Deposit amount cannot be more than " + AccountService.MAXIMUM_DEPOSIT_AMOUNT);
+            }
         }
+    }
 
-        if (depositRequest.getAmount() > AccountService.MAXIMUM_DEPOSIT_AMOUNT) {
-            throw new AccountTransactionException("Deposit amount cannot be more than " + AccountService.MAXIMUM_DEPOSIT_AMOUNT);
+    /**
+     * The checks that do not need the sender's balance, for transfers that are validated again when applied.
+     */
+    public static void validateMinimumTransferAmount(double amount) {
+        if (amount < AccountService.MINIMUM_TRANSFER_AMOUNT) {
+            throw new AccountTransactionException("Transfer amount cannot be less than " + AccountService.MINIMUM_TRANSFER_AMOUNT);
         }
     }
 
     public static void validateTransferAmount(Account account, double amount) {
-        if (amount > account.getBalance()) {
-            throw new AccountTransactionException("Insufficient funds to make the transfer");
-        }
+        validateTransferAmount(account.getBalance(), amount);
+    }
 
-        if (amount < AccountService.MINIMUM_TRANSFER_AMOUNT) {
-            throw new AccountTransactionException("Transfer amount cannot be less than " + AccountService.MINIMUM_TRANSFER_AMOUNT);
+    public static void validateTransferAmount(double availableBalance, double amount) {
+        try (Tracing.Scope ignored = Tracing.span("AccountTransactionValidator.validateTransferAmount")) {
+            if (amount > availableBalance) {
+                throw new AccountTransactionException("Insufficient funds to make the transfer");
+            }
+
+            if (amount < AccountService.MINIMUM_TRANSFER_AMOUNT) {
+                throw new AccountTransactionException("Transfer amount cannot be less than " + AccountService.MINIMUM_TRANSFER_AMOUNT);
+            }
         }
     }
 
@@ -0,0 +1,125 @@
+package com.example.minibank.controller.api;
+
+import com.example.minibank.controller.request.DepositRequest;
+import com.example.minibank.controller.request.TransferRequest;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Customer;
+import com.example.minibank.model.Deposit;
+import com.example.minibank.repository.DepositRepository;
+import com.example.minibank.service.AccountService;
+import com.example.minibank.service.CustomerService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.open-in-view=false")
+@AutoConfigureMockMvc
+class ActivityFeedTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private DepositRepository depositRepository;
+
+    private Account account;
+    private Account otherAccount;
+
+    @BeforeEach
+    void setUp() {
+        account = openAccount();
+        otherAccount = openAccount();
+    }
+
+    @Test
+    void canListDepositsAndTransfersNewestFirst() throws Exception {
+        deposit(account, 100);
+        transfer(account, otherAccount, 30);
+        transfer(otherAccount, account, 10);
+
+        JsonNode items = getActivity(get("/accounts/{code}/activity", account.getCode())).get("items");
+
+        assertThat(items).hasSize(3);
+        assertThat(items.get(0).get("type").asText()).isEqualTo("TRANSFER_IN");
+        assertThat(items.get(0).get("amount").asDouble()).isEqualTo(10.0);
+        assertThat(items.get(0).get("counterpartyAccountCode").asText()).isEqualTo(otherAccount.getCode());
+        assertThat(items.get(1).get("type").asText()).isEqualTo("TRANSFER_OUT");
+        assertThat(items.get(1).get("amount").asDouble()).isEqualTo(-30.0);
+        assertThat(items.get(1).get("counterpartyAccountCode").asText()).isEqualTo(otherAccount.getCode());
+        assertThat(items.get(2).get("type").asText()).isEqualTo("DEPOSIT");
+        assertThat(items.get(2).get("counterpartyAccountCode").isNull()).isTrue();
+
+        Deposit deposit = depositRepository.findDepositByCode(items.get(2).get("code").asText()).orElseThrow();
+        assertThat(deposit.getAmount()).isEqualTo(100.0);
+    }
+
+    @Test
+    void canPageThroughActivity() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            deposit(account, i);
+        }
+
+        List<Double> amounts = new ArrayList<>();
+        String cursor = null;
+
+        do {
+            MockHttpServletRequestBuilder request = get("/accounts/{code}/activity", account.getCode()).param("limit", "2");
+            JsonNode page = getActivity((cursor == null) ? request : request.param("cursor", cursor));
+
+            page.get("items").forEach(item -> amounts.add(item.get("amount").asDouble()));
+            cursor = page.get("next").isNull() ? null : page.get("next").asText();
+        } while (cursor != null);
+
+        assertThat(amounts).containsExactly(5.0, 4.0, 3.0, 2.0, 1.0);
+    }
+
+    private JsonNode getActivity(MockHttpServletRequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return objectMapper.readTree(body);
+    }
+
+    private void deposit(Account account, double amount) {
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setAmount(amount);
+        accountService.deposit(account.getCode(), depositRequest);
+    }
+
+    private void transfer(Account sender, Account receiver, double amount) {
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setReceiverAccountCode(receiver.getCode());
+        transferRequest.setAmount(amount);
+        accountService.transfer(sender.getCode(), transferRequest);
+    }
+
+    private Account openAccount() {
+        Customer customer = new Customer();
+        customer.setName("Activity Customer");
+        customer.setEmail(UUID.randomUUID() + "@example.com");
+        customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+
+        return customerService.openNewAccount(customerService.createCustomer(customer).getCode());
+    }
+}
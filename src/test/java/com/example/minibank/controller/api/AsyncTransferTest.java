@@ -0,0 +1,124 @@
+package com.example.minibank.controller.api;
+
+import com.example.minibank.controller.request.DepositRequest;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Customer;
+import com.example.minibank.service.AccountService;
+import com.example.minibank.service.CustomerService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = "spring.jpa.open-in-view=false")
+@AutoConfigureMockMvc
+class AsyncTransferTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private AccountService accountService;
+
+    private Account sender;
+    private Account receiver;
+
+    @BeforeEach
+    void setUp() {
+        sender = openAccount();
+        receiver = openAccount();
+
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setAmount(100);
+        accountService.deposit(sender.getCode(), depositRequest);
+    }
+
+    @Test
+    void canSubmitTransferAndPollUntilCompleted() throws Exception {
+        MockHttpServletResponse response = submit(30);
+        JsonNode accepted = objectMapper.readTree(response.getContentAsString());
+
+        assertThat(response.getStatus()).isEqualTo(202);
+        assertThat(accepted.get("status").asText()).isEqualTo("PENDING");
+        assertThat(response.getHeader(HttpHeaders.LOCATION))
+                .endsWith("/accounts/" + sender.getCode() + "/transfers/async/" + accepted.get("transferCode").asText());
+
+        JsonNode status = awaitStatus(accepted.get("transferCode").asText());
+
+        assertThat(status.get("status").asText()).isEqualTo("COMPLETED");
+        assertThat(accountService.getAccount(sender.getCode()).getBalance()).isEqualTo(70.0);
+        assertThat(accountService.getAccount(receiver.getCode()).getBalance()).isEqualTo(30.0);
+        assertThat(accountService.getAccount(sender.getCode()).getSentTransfers())
+                .extracting(transfer -> transfer.getCode())
+                .containsExactly(accepted.get("transferCode").asText());
+    }
+
+    @Test
+    void willReportInsufficientFundsAsRejected() throws Exception {
+        String transferCode = objectMapper.readTree(submit(500).getContentAsString()).get("transferCode").asText();
+
+        JsonNode status = awaitStatus(transferCode);
+
+        assertThat(status.get("status").asText()).isEqualTo("REJECTED");
+        assertThat(status.get("reason").asText()).isEqualTo("Insufficient funds to make the transfer");
+        assertThat(accountService.getAccount(sender.getCode()).getBalance()).isEqualTo(100.0);
+    }
+
+    @Test
+    void willAnswerUnknownTransferWithNotFound() throws Exception {
+        int status = mockMvc.perform(get("/accounts/{code}/transfers/async/{transferCode}", sender.getCode(), UUID.randomUUID().toString()))
+                .andReturn().getResponse().getStatus();
+
+        assertThat(status).isEqualTo(404);
+    }
+
+    private MockHttpServletResponse submit(double amount) throws Exception {
+        return mockMvc.perform(post("/accounts/{code}/transfers/async", sender.getCode())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"receiverAccountCode\": \"" + receiver.getCode() + "\", \"amount\": " + amount + "}"))
+                .andReturn().getResponse();
+    }
+
+    private JsonNode awaitStatus(String transferCode) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (true) {
+            String body = mockMvc.perform(get("/accounts/{code}/transfers/async/{transferCode}", sender.getCode(), transferCode))
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode status = objectMapper.readTree(body);
+
+            if (!status.get("status").asText().equals("PENDING") || System.nanoTime() > deadline) {
+                return status;
+            }
+
+            Thread.sleep(10);
+        }
+    }
+
+    private Account openAccount() {
+        Customer customer = new Customer();
+        customer.setName("Async Customer");
+        customer.setEmail(UUID.randomUUID() + "@example.com");
+        customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+
+        return customerService.openNewAccount(customerService.createCustomer(customer).getCode());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.minibank.controller.api;
+
+import com.example.minibank.controller.request.DepositRequest;
+import com.example.minibank.controller.request.TransferRequest;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Customer;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.LedgerEntryRepository;
+import com.example.minibank.service.AccountService;
+import com.example.minibank.service.BalanceProjectionService;
+import com.example.minibank.service.CustomerService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest(properties = "spring.jpa.open-in-view=false")
+@AutoConfigureMockMvc
+class BalanceProjectionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private BalanceProjectionService balanceProjectionService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Account account;
+    private Account otherAccount;
+
+    @BeforeEach
+    void setUp() {
+        account = openAccount();
+        otherAccount = openAccount();
+    }
+
+    @Test
+    void canGetBalanceAtPointInTime() throws Exception {
+        deposit(account, 100);
+        LocalDateTime afterFirstDeposit = pause();
+        deposit(account, 50);
+        transfer(account, otherAccount, 30);
+
+        // The snapshot covers all three entries, so it is not used for the earlier balance
+        balanceProjectionService.takeSnapshots(ledgerEntryRepository.findLastEntryId());
+        deposit(account, 25);
+
+        assertThat(getBalance(account, afterFirstDeposit)).isEqualTo(100.0);
+        assertThat(getBalance(account, LocalDateTime.now())).isEqualTo(145.0);
+        assertThat(getBalance(otherAccount, LocalDateTime.now())).isEqualTo(30.0);
+    }
+
+    @Test
+    void willSnapshotOnlyAccountsWithNewEntries() {
+        deposit(account, 100);
+        balanceProjectionService.takeSnapshots(ledgerEntryRepository.findLastEntryId());
+
+        assertThat(balanceProjectionService.takeSnapshots(ledgerEntryRepository.findLastEntryId())).isZero();
+
+        deposit(account, 10);
+
+        assertThat(balanceProjectionService.takeSnapshots(ledgerEntryRepository.findLastEntryId())).isEqualTo(1);
+    }
+
+    @Test
+    void canRebuildBalancesFromEntries() throws Exception {
+        deposit(account, 100);
+        transfer(account, otherAccount, 40);
+        corruptBalances();
+
+        rebuild("entries");
+
+        assertThat(accountService.getAccount(account.getCode()).getBalance()).isEqualTo(60.0);
+        assertThat(accountService.getAccount(otherAccount.getCode()).getBalance()).isEqualTo(40.0);
+    }
+
+    @Test
+    void canRebuildBalancesFromSnapshots() throws Exception {
+        deposit(account, 100);
+        balanceProjectionService.takeSnapshots(ledgerEntryRepository.findLastEntryId());
+        transfer(account, otherAccount, 40);
+        corruptBalances();
+
+        rebuild("snapshots");
+
+        assertThat(accountService.getAccount(account.getCode()).getBalance()).isEqualTo(60.0);
+        assertThat(accountService.getAccount(otherAccount.getCode()).getBalance()).isEqualTo(40.0);
+    }
+
+    private double getBalance(Account account, LocalDateTime at) throws Exception {
+        String body = mockMvc.perform(get("/accounts/{code}/balance", account.getCode()).param("at", at.toString()))
+                .andReturn().getResponse().getContentAsString();
+
+        return objectMapper.readTree(body).get("balance").asDouble();
+    }
+
+    private void rebuild(String from) throws Exception {
+        String body = mockMvc.perform(post("/admin/balances/rebuild").param("from", from))
+                .andReturn().getResponse().getContentAsString();
+        JsonNode result = objectMapper.readTree(body);
+
+        assertThat(result.get("accounts").asInt()).isGreaterThanOrEqualTo(2);
+    }
+
+    private void corruptBalances() {
+        transactionTemplate.executeWithoutResult(status -> {
+            accountRepository.updateBalance(account.getId(), 1_000_000);
+            accountRepository.updateBalance(otherAccount.getId(), -1);
+        });
+    }
+
+    // Entries are timestamped when written, so leave a gap between the ones before and after the returned time
+    private static LocalDateTime pause() throws InterruptedException {
+        Thread.sleep(5);
+        LocalDateTime now = LocalDateTime.now();
+        Thread.sleep(5);
+
+        return now;
+    }
+
+    private void deposit(Account account, double amount) {
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setAmount(amount);
+        accountService.deposit(account.getCode(), depositRequest);
+    }
+
+    private void transfer(Account sender, Account receiver, double amount) {
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setReceiverAccountCode(receiver.getCode());
+        transferRequest.setAmount(amount);
+        accountService.transfer(sender.getCode(), transferRequest);
+    }
+
+    private Account openAccount() {
+        Customer customer = new Customer();
+        customer.setName("Ledger Customer");
+        customer.setEmail(UUID.randomUUID() + "@example.com");
+        customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+
+        return customerService.openNewAccount(customerService.createCustomer(customer).getCode());
+    }
+}
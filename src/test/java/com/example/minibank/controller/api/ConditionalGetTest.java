@@ -0,0 +1,157 @@
+package com.example.minibank.controller.api;
+
+import com.example.minibank.controller.request.DepositRequest;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Customer;
+import com.example.minibank.service.AccountService;
+import com.example.minibank.service.CustomerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(properties = "spring.jpa.open-in-view=false")
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private AccountService accountService;
+
+    private LocalDateTime startedAt;
+    private Customer customer;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        startedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        customer = customerService.createCustomer(newCustomer());
+        account = customerService.openNewAccount(customer.getCode());
+    }
+
+    @Test
+    void willAnswerUnchangedAccountWithNotModified() throws Exception {
+        MvcResult first = mockMvc.perform(get("/accounts/{code}", account.getCode())).andReturn();
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        MvcResult second = mockMvc.perform(get("/accounts/{code}", account.getCode())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)).andReturn();
+
+        assertThat(eTag).startsWith("\"");
+        assertThat(second.getResponse().getStatus()).isEqualTo(304);
+        assertThat(second.getResponse().getContentAsString()).isEmpty();
+        assertThat(second.getResponse().getHeader(HttpHeaders.ETAG)).isEqualTo(eTag);
+    }
+
+    @Test
+    void willChangeAccountETagAfterDeposit() throws Exception {
+        String eTag = eTagOf(get("/accounts/{code}", account.getCode()));
+
+        accountService.deposit(account.getCode(), newDepositRequest(100));
+
+        MvcResult result = mockMvc.perform(get("/accounts/{code}", account.getCode())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)).andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(200);
+        assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(eTag);
+    }
+
+    @Test
+    void willChangeAccountETagAfterCustomerUpdateOnlyWhenCustomerIsRendered() throws Exception {
+        String full = eTagOf(get("/accounts/{code}", account.getCode()));
+        String withoutCustomer = eTagOf(get("/accounts/{code}", account.getCode()).param("fields", "code,balance"));
+
+        customer.setName("Renamed Customer");
+        customerService.updateCustomer(customer.getCode(), customer);
+
+        assertThat(eTagOf(get("/accounts/{code}", account.getCode()))).isNotEqualTo(full);
+        assertThat(eTagOf(get("/accounts/{code}", account.getCode()).param("fields", "code,balance"))).isEqualTo(withoutCustomer);
+    }
+
+    @Test
+    void willAnswerUnchangedCustomerWithNotModifiedUntilUpdated() throws Exception {
+        String eTag = eTagOf(get("/customers/{code}", customer.getCode()));
+
+        assertThat(statusOf(get("/customers/{code}", customer.getCode()).header(HttpHeaders.IF_NONE_MATCH, eTag))).isEqualTo(304);
+
+        customer.setName("Renamed Customer");
+        customerService.updateCustomer(customer.getCode(), customer);
+
+        assertThat(statusOf(get("/customers/{code}", customer.getCode()).header(HttpHeaders.IF_NONE_MATCH, eTag))).isEqualTo(200);
+    }
+
+    @Test
+    void willTagListingsWithWeakETags() throws Exception {
+        String eTag = eTagOf(listing("/customers"));
+
+        assertThat(eTag).startsWith("W/\"");
+        assertThat(statusOf(listing("/customers").header(HttpHeaders.IF_NONE_MATCH, eTag))).isEqualTo(304);
+
+        customerService.createCustomer(newCustomer());
+
+        assertThat(statusOf(listing("/customers").header(HttpHeaders.IF_NONE_MATCH, eTag))).isEqualTo(200);
+    }
+
+    @Test
+    void willChangeAccountListingETagAfterDeposit() throws Exception {
+        String eTag = eTagOf(listing("/accounts"));
+
+        accountService.deposit(account.getCode(), newDepositRequest(100));
+
+        assertThat(eTagOf(listing("/accounts"))).startsWith("W/\"").isNotEqualTo(eTag);
+    }
+
+    @Test
+    void willNotTagUnknownAccount() throws Exception {
+        MvcResult result = mockMvc.perform(get("/accounts/{code}", UUID.randomUUID().toString())).andReturn();
+
+        assertThat(result.getResponse().getStatus()).isEqualTo(400);
+        assertThat(result.getResponse().getHeader(HttpHeaders.ETAG)).isNull();
+    }
+
+    // Only the rows this test touched, so rows other tests left in the shared database cannot push them off the page
+    private MockHttpServletRequestBuilder listing(String path) {
+        return get(path).param("updatedSince", startedAt.toString());
+    }
+
+    private String eTagOf(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private int statusOf(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse().getStatus();
+    }
+
+    private static Customer newCustomer() {
+        Customer customer = new Customer();
+        customer.setName("Conditional Customer");
+        customer.setEmail(UUID.randomUUID() + "@example.com");
+        customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+
+        return customer;
+    }
+
+    private static DepositRequest newDepositRequest(double amount) {
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setAmount(amount);
+
+        return depositRequest;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.minibank.controller.api;
+
+import com.example.minibank.controller.response.BinaryFormatConfig;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Customer;
+import com.example.minibank.service.CustomerService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+@SpringBootTest(properties = "spring.jpa.open-in-view=false")
+@AutoConfigureMockMvc
+class ContentNegotiationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private CustomerService customerService;
+
+    private Customer customer;
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setName("Binary Customer");
+        customer.setEmail(UUID.randomUUID() + "@example.com");
+        customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+
+        customer = customerService.createCustomer(customer);
+        account = customerService.openNewAccount(customer.getCode());
+    }
+
+    @Test
+    void willAnswerWithJsonByDefault() throws Exception {
+        assertThat(getAccount(null).getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(getAccount("*/*").getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(getAccount("application/json, application/x-jackson-smile;q=0.5").getContentType())
+                .isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    @Test
+    void canAnswerWithSmile() throws Exception {
+        MockHttpServletResponse response = getAccount(BinaryFormatConfig.SMILE.toString());
+
+        JsonNode body = new ObjectMapper(new SmileFactory()).readTree(response.getContentAsByteArray());
+
+        assertThat(response.getContentType()).isEqualTo(BinaryFormatConfig.SMILE.toString());
+        assertThat(body.get("code").asText()).isEqualTo(account.getCode());
+        assertThat(body.get("customer").get("name").asText()).isEqualTo("Binary Customer");
+    }
+
+    @Test
+    void canAnswerWithCborWithSparseFieldset() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/accounts/{code}", account.getCode())
+                        .param("fields", "code,balance")
+                        .accept(BinaryFormatConfig.CBOR))
+                .andReturn().getResponse();
+
+        JsonNode body = new ObjectMapper(new CBORFactory()).readTree(response.getContentAsByteArray());
+
+        assertThat(response.getContentType()).isEqualTo(BinaryFormatConfig.CBOR.toString());
+        assertThat(body.get("code").asText()).isEqualTo(account.getCode());
+        assertThat(body.has("customer")).isFalse();
+    }
+
+    @Test
+    void willTagEachFormatSeparately() throws Exception {
+        MockHttpServletResponse json = getAccount(null);
+        MockHttpServletResponse smile = getAccount(BinaryFormatConfig.SMILE.toString());
+
+        assertThat(smile.getHeader(HttpHeaders.ETAG)).isNotEqualTo(json.getHeader(HttpHeaders.ETAG));
+        assertThat(smile.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+    }
+
+    @Test
+    void willTagGzippedResponsesSeparately() throws Exception {
+        String plain = getAccount(null).getHeader(HttpHeaders.ETAG);
+        String gzip = mockMvc.perform(get("/accounts/{code}", account.getCode()).header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String refused = mockMvc.perform(get("/accounts/{code}", account.getCode()).header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(gzip).isNotEqualTo(plain).endsWith("-gzip\"");
+        assertThat(refused).isEqualTo(plain);
+    }
+
+    @Test
+    void canListCustomersInSmile() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/customers").accept(BinaryFormatConfig.SMILE))
+                .andReturn().getResponse();
+
+        JsonNode body = new ObjectMapper(new SmileFactory()).readTree(response.getContentAsByteArray());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(body.get("items").isArray()).isTrue();
+    }
+
+    private MockHttpServletResponse getAccount(String accept) throws Exception {
+        MockHttpServletRequestBuilder request = get("/accounts/{code}", account.getCode());
+
+        if (accept != null) {
+            request.header(HttpHeaders.ACCEPT, accept);
+        }
+
+        return mockMvc.perform(request).andReturn().getResponse();
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.minibank.controller.api;
+
+import com.example.minibank.model.Customer;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.CustomerRepository;
+import com.example.minibank.service.CustomerService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"spring.jpa.open-in-view=false", "minibank.customers.import.chunk-size=3"})
+@AutoConfigureMockMvc
+class CustomerImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void canImportCsvAndReportRejectedRows() throws Exception {
+        String takenEmail = existingCustomer().getEmail();
+        String duplicateEmail = uniqueEmail();
+        List<String> importedEmails = List.of(uniqueEmail(), uniqueEmail(), uniqueEmail(), duplicateEmail);
+
+        String csv = "email,name,dateOfBirth\n" +
+                importedEmails.get(0) + ",\"Doe, Jane\",1990-01-01\n" +
+                importedEmails.get(1) + ",John Doe,1985-06-15\n" +
+                takenEmail + ",Taken Email,1990-01-01\n" +
+                uniqueEmail() + ",Too Young," + LocalDate.now().minusYears(10) + "\n" +
+                "\n" +
+                importedEmails.get(2) + ",Jim Doe,1970-12-31\n" +
+                duplicateEmail + ",First Of Two,1990-01-01\n" +
+                duplicateEmail + ",Second Of Two,1990-01-01\n" +
+                uniqueEmail() + ",Bad Date,31/12/1990\n" +
+                "not-an-email,Bad Email,1990-01-01\n";
+
+        JsonNode report = importCustomers("csv", false, csv);
+
+        assertThat(report.get("imported").asLong()).isEqualTo(4);
+        assertThat(report.get("accountsOpened").asLong()).isZero();
+        assertThat(report.get("rejected").asLong()).isEqualTo(5);
+        assertThat(errorLines(report)).containsExactly(4, 5, 9, 10, 11);
+        assertThat(report.get("errors").get(0).get("message").asText()).isEqualTo("Customer email is already taken");
+
+        Customer imported = customerRepository.findCustomerByEmail(importedEmails.get(0)).orElseThrow();
+        assertThat(imported.getName()).isEqualTo("Doe, Jane");
+        assertThat(imported.getCode()).isNotNull();
+        assertThat(customerRepository.findCustomerByEmail(duplicateEmail).orElseThrow().getName()).isEqualTo("First Of Two");
+    }
+
+    @Test
+    void canImportNdjsonAndOpenAccounts() throws Exception {
+        String firstEmail = uniqueEmail();
+        String ndjson = "{\"name\": \"Ndjson One\", \"email\": \"" + firstEmail + "\", \"dateOfBirth\": \"1990-01-01\"}\n" +
+                "{\"name\": \"Ndjson Two\", \"email\": \"" + uniqueEmail() + "\", \"dateOfBirth\": \"1991-02-02\"}\n" +
+                "{\"name\": \"Broken\"\n" +
+                "{\"name\": \"No Email\", \"dateOfBirth\": \"1990-01-01\"}\n";
+
+        JsonNode report = importCustomers("ndjson", true, ndjson);
+
+        assertThat(report.get("imported").asLong()).isEqualTo(2);
+        assertThat(report.get("accountsOpened").asLong()).isEqualTo(2);
+        assertThat(errorLines(report)).containsExactly(3, 4);
+        assertThat(report.get("errors").get(1).get("message").asText()).isEqualTo("Email is required");
+
+        Customer customer = customerRepository.findCustomerByEmail(firstEmail).orElseThrow();
+        assertThat(accountRepository.findAccountByCustomerId(customer.getId())).hasValueSatisfying(account ->
+                assertThat(account.getBalance()).isZero());
+    }
+
+    @Test
+    void willRejectCsvWithoutRequiredColumns() throws Exception {
+        mockMvc.perform(post("/customers/import").param("format", "csv").content("name,email\nJane Doe,jane@example.com\n"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode importCustomers(String format, boolean openAccounts, String body) throws Exception {
+        String response = mockMvc.perform(post("/customers/import")
+                        .param("format", format)
+                        .param("openAccounts", String.valueOf(openAccounts))
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return objectMapper.readTree(response);
+    }
+
+    private static List<Integer> errorLines(JsonNode report) {
+        List<Integer> lines = new ArrayList<>();
+        report.get("errors").forEach(error -> lines.add(error.get("line").asInt()));
+
+        return lines;
+    }
+
+    private Customer existingCustomer() {
+        Customer customer = new Customer();
+        customer.setName("Existing Customer");
+        customer.setEmail(uniqueEmail());
+        customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+
+        return customerService.createCustomer(customer);
+    }
+
+    private static String uniqueEmail() {
+        return UUID.randomUUID() + "@example.com";
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.minibank.controller.api;
+
+import com.example.minibank.controller.request.DepositRequest;
+import com.example.minibank.controller.request.TransferRequest;
+import com.example.minibank.exception.AccountTransactionException;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Customer;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.AccountStripeRepository;
+import com.example.minibank.repository.LedgerEntryRepository;
+import com.example.minibank.service.AccountService;
+import com.example.minibank.service.CustomerService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.jpa.open-in-view=false")
+@AutoConfigureMockMvc
+class HotAccountTest {
+
+    private static final int STRIPES = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private AccountStripeRepository accountStripeRepository;
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    private Account hotAccount;
+    private final List<Account> customers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        hotAccount = openAccount();
+        for (int i = 0; i < 3; i++) {
+            Account account = openAccount();
+            deposit(account, 1_000);
+            customers.add(account);
+        }
+
+        deposit(hotAccount, 100);
+        setStripes(hotAccount, STRIPES);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        setStripes(hotAccount, 0);
+    }
+
+    @Test
+    void canCreditStripesAndRenderOneBalance() throws Exception {
+        for (Account customer : customers) {
+            transfer(customer, hotAccount, 50);
+        }
+        deposit(hotAccount, 25);
+
+        assertThat(accountStripeRepository.sumBalances(hotAccount.getId())).isEqualTo(175.0);
+        assertThat(accountRepository.findById(hotAccount.getId()).orElseThrow().getBalance()).isEqualTo(100.0);
+        assertThat(getRenderedBalance(hotAccount, "")).isEqualTo(275.0);
+        assertThat(getRenderedBalance(hotAccount, "customer")).isEqualTo(275.0);
+        assertThat(getRenderedBalance(hotAccount, "transfers")).isEqualTo(275.0);
+        assertThat(getListedBalance(hotAccount)).isEqualTo(275.0);
+    }
+
+    @Test
+    void canDebitStripedAccountBySweepingStripes() {
+        for (Account customer : customers) {
+            transfer(customer, hotAccount, 100);
+        }
+
+        transfer(hotAccount, customers.get(0), 350);
+
+        assertThat(accountStripeRepository.sumBalances(hotAccount.getId())).isZero();
+        assertThat(accountService.getAccount(hotAccount.getCode()).getTotalBalance()).isEqualTo(50.0);
+        assertThrows(AccountTransactionException.class, () -> transfer(hotAccount, customers.get(0), 51));
+    }
+
+    @Test
+    void willMergeStripesBackIntoAccount() throws Exception {
+        transfer(customers.get(0), hotAccount, 50);
+
+        setStripes(hotAccount, 0);
+
+        assertThat(accountStripeRepository.sumBalances(hotAccount.getId())).isZero();
+        assertThat(accountRepository.findById(hotAccount.getId()).orElseThrow().getBalance()).isEqualTo(150.0);
+    }
+
+    @Test
+    void willKeepBalanceEqualToLedgerUnderConcurrentCreditsAndDebits() throws Exception {
+        Account payee = openAccount();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (Account customer : customers) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20; i++) {
+                    transfer(customer, hotAccount, 5);
+                }
+            }));
+        }
+
+        // Paid to an account of its own, which does not send, so the only contention is on the hot account
+        futures.add(executor.submit(() -> {
+            for (int i = 0; i < 20; i++) {
+                transfer(hotAccount, payee, 10);
+            }
+        }));
+
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        double expected = 100 + 3 * 20 * 5 - 20 * 10;
+        double ledgerBalance = ledgerEntryRepository.sumAmountsAfter(hotAccount.getId(), 0, LocalDateTime.now());
+
+        assertThat(accountService.getAccount(hotAccount.getCode()).getTotalBalance()).isEqualTo(expected);
+        assertThat(ledgerBalance).isEqualTo(expected);
+    }
+
+    private double getRenderedBalance(Account account, String include) throws Exception {
+        String body = mockMvc.perform(get("/accounts/{code}", account.getCode()).param("include", include))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        return objectMapper.readTree(body).get("balance").asDouble();
+    }
+
+    private double getListedBalance(Account account) throws Exception {
+        String cursor = null;
+
+        while (true) {
+            MockHttpServletRequestBuilder request = get("/accounts").param("limit", "500");
+            String body = mockMvc.perform((cursor == null) ? request : request.param("cursor", cursor))
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(body);
+
+            for (JsonNode item : page.get("items")) {
+                if (item.get("code").asText().equals(account.getCode())) {
+                    return item.get("balance").asDouble();
+                }
+            }
+
+            cursor = page.get("next").asText();
+        }
+    }
+
+    private void setStripes(Account account, int count) throws Exception {
+        mockMvc.perform(put("/admin/accounts/{code}/stripes", account.getCode()).param("count", String.valueOf(count)))
+                .andExpect(status().isOk());
+    }
+
+    private void deposit(Account account, double amount) {
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setAmount(amount);
+        accountService.deposit(account.getCode(), depositRequest);
+    }
+
+    private void transfer(Account sender, Account receiver, double amount) {
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setReceiverAccountCode(receiver.getCode());
+        transferRequest.setAmount(amount);
+        accountService.transfer(sender.getCode(), transferRequest);
+    }
+
+    private Account openAccount() {
+        Customer customer = new Customer();
+        customer.setName("Hot Account Customer");
+        customer.setEmail(UUID.randomUUID() + "@example.com");
+        customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+
+        return customerService.openNewAccount(customerService.createCustomer(customer).getCode());
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.minibank.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Appends to a journal from several threads until it is killed, printing the sequence number and payload of
+ * every append once it is acknowledged. Started in its own process by {@link WriteAheadJournalTest}.
+ */
+public class JournalCrashWriter {
+
+    private static final int THREADS = 4;
+
+    public static void main(String[] args) throws IOException {
+        // Small segments, so the kill can also land while one is being rolled over
+        WriteAheadJournal journal = new WriteAheadJournal(Path.of(args[0]), DataSize.ofKilobytes(64), 64,
+                Duration.ZERO, new SimpleMeterRegistry());
+        AtomicInteger values = new AtomicInteger();
+
+        for (int i = 0; i < THREADS; i++) {
+            new Thread(() -> {
+                while (true) {
+                    int value = values.incrementAndGet();
+                    long sequence = journal.append(WriteAheadJournalTest.payload(value)).join();
+
+                    synchronized (System.out) {
+                        System.out.println(sequence + " " + value);
+                        System.out.flush();
+                    }
+                }
+            }).start();
+        }
+    }
+}
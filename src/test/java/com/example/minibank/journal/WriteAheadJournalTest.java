@@ -0,0 +1,186 @@
+package com.example.minibank.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WriteAheadJournalTest {
+
+    private static final int RECORD_HEADER_BYTES = 16;
+    private static final int PAYLOAD_BYTES = 16;
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WriteAheadJournal journal;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (journal != null) {
+            journal.shutdown();
+        }
+    }
+
+    @Test
+    void canReplayAppendedRecordsAfterRestart() throws Exception {
+        journal = newJournal(DataSize.ofMegabytes(1), Duration.ZERO);
+        for (int i = 1; i <= 10; i++) {
+            assertThat(journal.append(payload(i)).get(5, TimeUnit.SECONDS)).isEqualTo(i);
+        }
+
+        reopen(DataSize.ofMegabytes(1));
+
+        assertThat(journal.getLastRecoveredSequence()).isEqualTo(10);
+        assertThat(replayedPayloads(4)).containsExactly(5, 6, 7, 8, 9, 10);
+        assertThat(journal.append(payload(11)).get(5, TimeUnit.SECONDS)).isEqualTo(11);
+    }
+
+    @Test
+    void willForceConcurrentAppendsTogether() throws Exception {
+        journal = newJournal(DataSize.ofMegabytes(1), Duration.ofMillis(200));
+
+        List<CompletableFuture<Long>> appended = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            appended.add(journal.append(payload(i)));
+        }
+        CompletableFuture.allOf(appended.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(meterRegistry.get("minibank.ledger.journal.force").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("minibank.ledger.journal.batch.size").summary().max()).isEqualTo(10);
+    }
+
+    @Test
+    void canRollOverSegmentsAndReleaseAppliedOnes() throws Exception {
+        journal = newJournal(DataSize.ofBytes(256), Duration.ZERO);
+        for (int i = 1; i <= 50; i++) {
+            journal.append(payload(i)).get(5, TimeUnit.SECONDS);
+        }
+
+        int segments = segmentFiles().size();
+        journal.release(30);
+
+        assertThat(segments).isGreaterThan(5);
+        assertThat(segmentFiles().size()).isLessThan(segments);
+
+        reopen(DataSize.ofBytes(256));
+
+        assertThat(replayedPayloads(30)).containsExactlyElementsOf(range(31, 50));
+    }
+
+    @Test
+    void willDiscardTornRecordAtTheEnd() throws Exception {
+        journal = newJournal(DataSize.ofMegabytes(1), Duration.ZERO);
+        for (int i = 1; i <= 3; i++) {
+            journal.append(payload(i)).get(5, TimeUnit.SECONDS);
+        }
+        journal.shutdown();
+
+        // Flips the last byte of the third record, as if the process died while it was being written
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            int thirdRecordEnd = 3 * (RECORD_HEADER_BYTES + PAYLOAD_BYTES);
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            channel.read(lastByte, thirdRecordEnd - 1);
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) ~lastByte.get(0)}), thirdRecordEnd - 1);
+        }
+
+        journal = newJournal(DataSize.ofMegabytes(1), Duration.ZERO);
+
+        assertThat(journal.getLastRecoveredSequence()).isEqualTo(2);
+        assertThat(journal.append(payload(3)).get(5, TimeUnit.SECONDS)).isEqualTo(3);
+    }
+
+    @Test
+    void willRejectRecordLargerThanSegment() throws Exception {
+        journal = newJournal(DataSize.ofBytes(256), Duration.ZERO);
+
+        assertThrows(IllegalArgumentException.class, () -> journal.append(new byte[512]));
+    }
+
+    @Test
+    void willKeepEveryAcknowledgedRecordWhenKilledMidBatch() throws Exception {
+        Process writer = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                JournalCrashWriter.class.getName(),
+                directory.toString()
+        ).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+        Map<Long, Integer> acknowledged = new HashMap<>();
+
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(writer.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (acknowledged.size() < 2_000 && (line = output.readLine()) != null) {
+                String[] ack = line.split(" ");
+                acknowledged.put(Long.parseLong(ack[0]), Integer.parseInt(ack[1]));
+            }
+
+            // Killed while appends are still being written and forced
+            writer.destroyForcibly().waitFor(30, TimeUnit.SECONDS);
+        }
+
+        journal = newJournal(DataSize.ofMegabytes(1), Duration.ZERO);
+        Map<Long, Integer> replayed = new HashMap<>();
+        journal.replay(0, record -> replayed.put(record.sequence(), ByteBuffer.wrap(record.payload()).getInt()));
+
+        assertThat(acknowledged).hasSizeGreaterThanOrEqualTo(2_000);
+        assertThat(replayed).containsAllEntriesOf(acknowledged);
+    }
+
+    private WriteAheadJournal newJournal(DataSize segmentSize, Duration linger) throws IOException {
+        return new WriteAheadJournal(directory, segmentSize, 64, linger, meterRegistry);
+    }
+
+    private void reopen(DataSize segmentSize) throws Exception {
+        journal.shutdown();
+        journal = newJournal(segmentSize, Duration.ZERO);
+    }
+
+    private List<Integer> replayedPayloads(long afterSequence) throws IOException {
+        List<Integer> payloads = new ArrayList<>();
+        journal.replay(afterSequence, record -> payloads.add(ByteBuffer.wrap(record.payload()).getInt()));
+
+        return payloads;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = from; i <= to; i++) {
+            values.add(i);
+        }
+
+        return values;
+    }
+
+    // Padded so records are larger than their header
+    static byte[] payload(int value) {
+        return ByteBuffer.allocate(PAYLOAD_BYTES).putInt(value).array();
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.minibank.loadtest;
+
+import com.example.minibank.MinibankApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model HTTP load generator for the customer and account endpoints.
+ * <p>
+ * Requests arrive at a fixed average rate with exponentially distributed gaps, independent of how fast the
+ * server answers, and latency is measured from each request's scheduled arrival. Accounts touched by
+ * deposits, transfers and reads are picked with Zipfian skew, so a few accounts are hot.
+ * <p>
+ * Without {@code -DbaseUrl} the application is started in-process on a random port against an in-memory
+ * database; any {@code -Dminibank.*} or {@code -Dspring.*} property is passed to it. Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.minibank.loadtest.LoadTest \
+ *     -Dprofile=transfer-heavy -Drate=500 -Dseconds=60 -Daccounts=1000 -Dzipf=0.99
+ * </pre>
+ * Profiles are {@code onboarding}, {@code deposit-heavy}, {@code transfer-heavy}, {@code history-reads} and
+ * {@code mixed}, or a custom mix such as {@code -Dprofile=transfer:70,deposit:20,read_history:10}.
+ */
+public class LoadTest {
+
+    private static final String BASE_URL = System.getProperty("baseUrl");
+    private static final String PROFILE = System.getProperty("profile", "mixed");
+    private static final int RATE = Integer.getInteger("rate", 200);
+    private static final int SECONDS = Integer.getInteger("seconds", 30);
+    private static final int WARMUP_SECONDS = Integer.getInteger("warmupSeconds", 5);
+    private static final int ACCOUNTS = Integer.getInteger("accounts", 1000);
+    private static final double ZIPF_EXPONENT = Double.parseDouble(System.getProperty("zipf", "0.99"));
+    private static final int MAX_IN_FLIGHT = Integer.getInteger("maxInFlight", 10_000);
+
+    private static final double INITIAL_DEPOSIT = 100_000;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final Workload workload;
+    private final HttpClient httpClient;
+    private final ExecutorService clientExecutor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    private final AtomicLong emailSequence = new AtomicLong();
+
+    private List<String> accountCodes;
+    private ZipfianGenerator hotAccounts;
+
+    LoadTest(String baseUrl, Workload workload) {
+        this.baseUrl = baseUrl;
+        this.workload = workload;
+        this.clientExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "load-test-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Workload workload = Workload.of(PROFILE);
+        ConfigurableApplicationContext context = BASE_URL == null ? startApplication() : null;
+
+        try {
+            String baseUrl = BASE_URL != null
+                    ? BASE_URL
+                    : "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1";
+
+            new LoadTest(baseUrl, workload).run();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication() {
+        return new SpringApplicationBuilder(MinibankApplication.class)
+                .properties(
+                        "server.port=0",
+                        "server.servlet.context-path=/api/v1",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest;LOCK_TIMEOUT=10000",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.open-in-view=false",
+                        "spring.datasource.hikari.maximum-pool-size=32",
+                        "logging.level.root=WARN",
+                        // Version conflicts and deadlocks are retried by the server, errors are counted client side
+                        "logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch=OFF",
+                        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF"
+                )
+                .run();
+    }
+
+    void run() throws Exception {
+        System.out.printf("target=%s profile=%s rate=%d/s seconds=%d accounts=%d zipf=%.2f%n",
+                baseUrl, PROFILE, RATE, SECONDS, ACCOUNTS, ZIPF_EXPONENT);
+
+        try {
+            accountCodes = seedAccounts();
+            hotAccounts = new ZipfianGenerator(accountCodes.size(), ZIPF_EXPONENT);
+
+            generateLoad(WARMUP_SECONDS, null);
+
+            Map<Workload.Operation, LatencyRecorder> recorders = new EnumMap<>(Workload.Operation.class);
+            for (Workload.Operation operation : Workload.Operation.values()) {
+                recorders.put(operation, new LatencyRecorder());
+            }
+
+            long dropped = generateLoad(SECONDS, recorders);
+            report(recorders, dropped);
+        } finally {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Issues requests for the given duration and waits for the in-flight ones. Returns how many arrivals were
+     * dropped because {@code maxInFlight} requests were already outstanding.
+     */
+    private long generateLoad(int seconds, Map<Workload.Operation, LatencyRecorder> recorders) throws InterruptedException {
+        long dropped = 0;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / (double) RATE;
+        long nextArrival = start;
+
+        while (nextArrival < end) {
+            long wait = nextArrival - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            if (inFlight.tryAcquire()) {
+                dispatch(workload.next(), nextArrival, recorders);
+            } else {
+                dropped++;
+            }
+
+            nextArrival += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanGapNanos);
+        }
+
+        if (!inFlight.tryAcquire(MAX_IN_FLIGHT, REQUEST_TIMEOUT.toSeconds() * 2, TimeUnit.SECONDS)) {
+            System.out.println("Gave up waiting for outstanding requests");
+        } else {
+            inFlight.release(MAX_IN_FLIGHT);
+        }
+
+        return dropped;
+    }
+
+    private void dispatch(Workload.Operation operation, long scheduledAt, Map<Workload.Operation, LatencyRecorder> recorders) {
+        execute(operation).whenComplete((successful, error) -> {
+            if (recorders != null) {
+                recorders.get(operation).record(System.nanoTime() - scheduledAt, error == null && successful);
+            }
+
+            inFlight.release();
+        });
+    }
+
+    private CompletableFuture<Boolean> execute(Workload.Operation operation) {
+        return switch (operation) {
+            case ONBOARD -> onboard().thenApply(Objects::nonNull);
+            case DEPOSIT -> send(put("/accounts/" + hotAccount() + "/deposit", "{\"amount\":10}")).thenApply(LoadTest::isSuccessful);
+            case TRANSFER -> transfer();
+            case READ_ACCOUNT -> send(get("/accounts/" + hotAccount())).thenApply(LoadTest::isSuccessful);
+            case READ_HISTORY -> send(get("/accounts/" + hotAccount() + "/transfers/history?limit=20")).thenApply(LoadTest::isSuccessful);
+        };
+    }
+
+    private CompletableFuture<Boolean> transfer() {
+        int sender = hotAccounts.next();
+        int receiver = hotAccounts.next();
+
+        if (receiver == sender) {
+            receiver = (receiver + 1) % accountCodes.size();
+        }
+
+        String body = "{\"receiverAccountCode\":\"" + accountCodes.get(receiver) + "\",\"amount\":1}";
+
+        return send(post("/accounts/" + accountCodes.get(sender) + "/transfers", body)).thenApply(LoadTest::isSuccessful);
+    }
+
+    /**
+     * Creates a customer and opens an account for them. Completes with the account code, or null on failure.
+     */
+    private CompletableFuture<String> onboard() {
+        String body = "{\"name\":\"Load Test\",\"email\":\"load-" + emailSequence.incrementAndGet() + "@example.com\","
+                + "\"dateOfBirth\":\"" + LocalDate.now().minusYears(30) + "\"}";
+
+        return send(post("/customers", body)).thenCompose(customer -> {
+            if (!isSuccessful(customer)) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            return send(post("/customers/" + codeOf(customer) + "/accounts", ""))
+                    .thenApply(account -> isSuccessful(account) ? codeOf(account) : null);
+        });
+    }
+
+    private List<String> seedAccounts() {
+        System.out.printf("Seeding %d accounts...%n", ACCOUNTS);
+        List<CompletableFuture<String>> accounts = new ArrayList<>(ACCOUNTS);
+        Semaphore seeding = new Semaphore(32);
+
+        for (int i = 0; i < ACCOUNTS; i++) {
+            seeding.acquireUninterruptibly();
+            accounts.add(onboard()
+                    .thenCompose(code -> code == null
+                            ? CompletableFuture.completedFuture(null)
+                            : send(put("/accounts/" + code + "/deposit", "{\"amount\":" + INITIAL_DEPOSIT + "}"))
+                                    .thenApply(response -> isSuccessful(response) ? code : null))
+                    .whenComplete((code, error) -> seeding.release()));
+        }
+
+        List<String> codes = accounts.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList();
+
+        if (codes.size() < 2) {
+            throw new IllegalStateException("Could not seed accounts, is the server reachable at " + baseUrl + "?");
+        }
+
+        return codes;
+    }
+
+    private void report(Map<Workload.Operation, LatencyRecorder> recorders, long dropped) {
+        System.out.printf("%n%-14s %9s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        long total = 0;
+        long errors = 0;
+
+        for (Map.Entry<Workload.Operation, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder.Summary summary = entry.getValue().summarize(SECONDS);
+
+            if (summary.count() == 0) {
+                continue;
+            }
+
+            total += summary.count();
+            errors += summary.errors();
+            System.out.printf("%-14s %9d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey().name().toLowerCase(), summary.count(), summary.errors(), summary.throughput(),
+                    millis(summary.p50()), millis(summary.p99()), millis(summary.p999()), millis(summary.max()));
+        }
+
+        System.out.printf("%ntotal %d requests, %d errors, %.1f req/s achieved of %d req/s offered, %d dropped%n",
+                total, errors, total / (double) SECONDS, RATE, dropped);
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest request) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String hotAccount() {
+        return accountCodes.get(hotAccounts.next());
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return request(path).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest put(String path, String body) {
+        return request(path).PUT(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json");
+    }
+
+    private String codeOf(HttpResponse<String> response) {
+        try {
+            return objectMapper.readTree(response.body()).get("code").asText();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unexpected response: " + response.body(), e);
+        }
+    }
+
+    private static boolean isSuccessful(HttpResponse<String> response) {
+        return response.statusCode() / 100 == 2;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
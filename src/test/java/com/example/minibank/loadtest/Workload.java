@@ -0,0 +1,76 @@
+package com.example.minibank.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A weighted mix of the operations the load test issues.
+ */
+class Workload {
+
+    enum Operation {
+        ONBOARD, DEPOSIT, TRANSFER, READ_ACCOUNT, READ_HISTORY
+    }
+
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    private Workload(Map<Operation, Integer> weights) {
+        operations = weights.keySet().toArray(new Operation[0]);
+        cumulativeWeights = new int[operations.length];
+        int sum = 0;
+
+        for (int i = 0; i < operations.length; i++) {
+            sum += weights.get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+
+        if (sum <= 0) {
+            throw new IllegalArgumentException("Workload mix needs at least one positive weight");
+        }
+    }
+
+    /**
+     * Resolves a named profile ({@code onboarding}, {@code deposit-heavy}, {@code transfer-heavy},
+     * {@code history-reads}, {@code mixed}) or a custom mix such as {@code transfer:70,deposit:20,read_history:10}.
+     */
+    static Workload of(String profile) {
+        return switch (profile) {
+            case "onboarding" -> parse("onboard:80,read_account:20");
+            case "deposit-heavy" -> parse("deposit:80,read_account:15,transfer:5");
+            case "transfer-heavy" -> parse("transfer:80,read_account:10,deposit:10");
+            case "history-reads" -> parse("read_history:80,transfer:20");
+            case "mixed" -> parse("transfer:45,deposit:20,read_account:20,read_history:10,onboard:5");
+            default -> parse(profile);
+        };
+    }
+
+    Operation next() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+
+        return operations[operations.length - 1];
+    }
+
+    private static Workload parse(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid workload mix entry: " + entry);
+            }
+
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+
+        return new Workload(weights);
+    }
+}
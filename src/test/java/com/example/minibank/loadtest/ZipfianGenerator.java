@@ -0,0 +1,38 @@
+package com.example.minibank.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks indexes in {@code [0, items)} with Zipfian skew: index 0 is the hottest and the probability of
+ * index {@code i} is proportional to {@code 1 / (i + 1)^exponent}.
+ */
+class ZipfianGenerator {
+
+    private final double[] cumulativeProbabilities;
+
+    ZipfianGenerator(int items, double exponent) {
+        if (items < 1) {
+            throw new IllegalArgumentException("At least one item is required");
+        }
+
+        cumulativeProbabilities = new double[items];
+        double sum = 0;
+
+        for (int i = 0; i < items; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulativeProbabilities[i] = sum;
+        }
+
+        for (int i = 0; i < items; i++) {
+            cumulativeProbabilities[i] /= sum;
+        }
+    }
+
+    int next() {
+        double value = ThreadLocalRandom.current().nextDouble();
+        int index = Arrays.binarySearch(cumulativeProbabilities, value);
+
+        return Math.min(index >= 0 ? index : -index - 1, cumulativeProbabilities.length - 1);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.minibank.metrics;
+
+import org.assertj.core.api.AbstractIntegerAssert;
+import org.junit.jupiter.api.function.Executable;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the SQL statements a service call or HTTP request issues, so tests can pin them to a budget:
+ * <pre>
+ * sqlStatementBudget.perform(get("/customers")).hasAtMost(2);
+ * sqlStatementBudget.measure("deposit", () -> accountService.deposit(code, request)).hasAtMostSelects(1);
+ * </pre>
+ * Statements are counted on the calling thread, which is the thread MockMvc and the service run on.
+ */
+public class SqlStatementBudget {
+
+    private final SqlStatementCounter sqlStatementCounter;
+    private final MockMvc mockMvc;
+
+    public SqlStatementBudget(SqlStatementCounter sqlStatementCounter, MockMvc mockMvc) {
+        this.sqlStatementCounter = sqlStatementCounter;
+        this.mockMvc = mockMvc;
+    }
+
+    public Statements measure(String description, Executable action) throws Throwable {
+        sqlStatementCounter.reset();
+        action.execute();
+
+        return new Statements(description,
+                sqlStatementCounter.getCount("select"),
+                sqlStatementCounter.getCount("insert"),
+                sqlStatementCounter.getCount("update"),
+                sqlStatementCounter.getCount("delete"),
+                sqlStatementCounter.getCount());
+    }
+
+    /**
+     * Performs the request, checks it succeeded and measures the statements it issued, including those of
+     * Hibernate's flush on commit and of rendering the response.
+     */
+    public Statements perform(RequestBuilder request) throws Throwable {
+        return perform(request, status -> status.isBetween(200, 299));
+    }
+
+    /**
+     * Performs a conditional request, checks it was answered with 304 Not Modified and measures the statements
+     * it issued.
+     */
+    public Statements performNotModified(RequestBuilder request) throws Throwable {
+        return perform(request, status -> status.isEqualTo(304));
+    }
+
+    private Statements perform(RequestBuilder request, Consumer<AbstractIntegerAssert<?>> expectedStatus) throws Throwable {
+        MvcResult[] result = new MvcResult[1];
+        Statements statements = measure(describe(request), () -> result[0] = mockMvc.perform(request).andReturn());
+
+        expectedStatus.accept(assertThat(result[0].getResponse().getStatus())
+                .as("%s status, response %s", statements.description(), result[0].getResponse().getContentAsString()));
+
+        return statements;
+    }
+
+    private static String describe(RequestBuilder request) {
+        MockHttpServletRequest built = request.buildRequest(new MockServletContext());
+
+        return built.getMethod() + " " + built.getRequestURI();
+    }
+
+    public record Statements(String description, int selects, int inserts, int updates, int deletes, int total) {
+
+        public Statements hasAtMost(int budget) {
+            assertThat(total).as("SQL statements of %s (%s)", description, this).isLessThanOrEqualTo(budget);
+
+            return this;
+        }
+
+        public Statements hasAtMostSelects(int budget) {
+            assertThat(selects).as("SQL selects of %s (%s)", description, this).isLessThanOrEqualTo(budget);
+
+            return this;
+        }
+
+        public Statements hasAtMostWrites(int budget) {
+            assertThat(inserts + updates + deletes).as("SQL writes of %s (%s)", description, this).isLessThanOrEqualTo(budget);
+
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d selects, %d inserts, %d updates, %d deletes, %d in total",
+                    selects, inserts, updates, deletes, total);
+        }
+    }
+}
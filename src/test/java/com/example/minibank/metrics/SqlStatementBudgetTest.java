@@ -0,0 +1,343 @@
+package com.example.minibank.metrics;
+
+import com.example.minibank.controller.request.DepositRequest;
+import com.example.minibank.controller.request.TransferRequest;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Customer;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.service.AccountService;
+import com.example.minibank.service.AsyncTransferService;
+import com.example.minibank.service.CodeLookupCache;
+import com.example.minibank.service.CodeLookupCaches;
+import com.example.minibank.service.CustomerService;
+import com.example.minibank.service.IdempotencyService;
+import com.example.minibank.service.PessimisticConcurrencyControl;
+import com.example.minibank.service.TransferExportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * SQL statement budgets of every endpoint. The fixture has several customers, accounts and transfers, so a
+ * statement issued per row shows up as a budget overrun. Code lookups are measured with a cold cache. Like the
+ * application, it runs without open-session-in-view, so a response that needs lazy loading fails here.
+ * <p>
+ * Tighten a budget when a change lowers the count; raising one needs a good reason.
+ */
+@SpringBootTest(properties = "spring.jpa.open-in-view=false")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SqlStatementBudgetTest {
+
+    private static final int PAGE_SIZE = 5;
+    // One more than a page, as pages read one row ahead to know whether there is a next page
+    private static final int CUSTOMERS = PAGE_SIZE + 1;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private SqlStatementCounter sqlStatementCounter;
+    @Autowired
+    private CodeLookupCache codeLookupCache;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private TransferExportService transferExportService;
+    @Autowired
+    private AsyncTransferService asyncTransferService;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private SqlStatementBudget sqlStatementBudget;
+    private final List<Customer> customers = new ArrayList<>();
+    private final List<Account> accounts = new ArrayList<>();
+
+    @BeforeAll
+    void seed() {
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Customer customer = customerService.createCustomer(newCustomer());
+            customers.add(customer);
+            accounts.add(customerService.openNewAccount(customer.getCode()));
+        }
+
+        for (Account account : accounts) {
+            accountService.deposit(account.getCode(), newDepositRequest(1_000));
+        }
+
+        for (int i = 0; i < accounts.size(); i++) {
+            Account receiver = accounts.get((i + 1) % accounts.size());
+            accountService.transfer(accounts.get(i).getCode(), newTransferRequest(receiver.getCode(), 10));
+            accountService.transfer(accounts.get(i).getCode(), newTransferRequest(receiver.getCode(), 20));
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        sqlStatementBudget = new SqlStatementBudget(sqlStatementCounter, mockMvc);
+        CodeLookupCaches.invalidateAll(codeLookupCache);
+    }
+
+    @Test
+    void getAccountsIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(get("/accounts").param("limit", String.valueOf(PAGE_SIZE))).hasAtMost(1);
+    }
+
+    // The code lookup, the versions for the ETag, then the account with its customer and both transfer lists
+    @Test
+    void getAccountIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(get("/accounts/{code}", accountCode(0))).hasAtMost(4);
+    }
+
+    // Only the code lookup, the versions and the account's own columns: neither the customer nor the transfers are loaded
+    @Test
+    void getAccountFieldsIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(get("/accounts/{code}", accountCode(0)).param("fields", "code,balance,updatedAt"))
+                .hasAtMost(3);
+    }
+
+    @Test
+    void getAccountWithCustomerIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(get("/accounts/{code}", accountCode(0)).param("include", "customer")).hasAtMost(3);
+    }
+
+    // Only the code lookup and the versions: the account is neither loaded nor rendered
+    @Test
+    void notModifiedAccountIsWithinBudget() throws Throwable {
+        String eTag = eTagOf(get("/accounts/{code}", accountCode(0)));
+        CodeLookupCaches.invalidateAll(codeLookupCache);
+
+        sqlStatementBudget.performNotModified(get("/accounts/{code}", accountCode(0)).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .hasAtMost(2);
+    }
+
+    @Test
+    void getAllTransfersIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(get("/accounts/{code}/transfers", accountCode(0))).hasAtMost(3);
+    }
+
+    @Test
+    void getTransferHistoryIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(get("/accounts/{code}/transfers/history", accountCode(0))).hasAtMost(3);
+    }
+
+    @Test
+    void exportTransfersIsWithinBudget() throws Throwable {
+        // The endpoint streams on an async thread, so the export itself is measured here: one query per direction
+        Integer accountId = accountService.getAccountId(accountCode(0));
+
+        sqlStatementBudget.measure("transfer export",
+                () -> transferExportService.export(accountId, TransferExportService.Format.NDJSON, OutputStream.nullOutputStream()))
+                .hasAtMost(2);
+    }
+
+    // Writes include a ledger entry for each account whose balance changes, and the deposit row for deposits. Rows
+    // of one table are written in one JDBC batch, so a batch of transfers costs as many writes as a single one
+
+    @Test
+    void transferIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(post("/accounts/{code}/transfers", accountCode(1))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"receiverAccountCode\": \"" + accountCode(2) + "\", \"amount\": 1}"))
+                .hasAtMostSelects(2).hasAtMostWrites(3);
+    }
+
+    // Only the two code lookups: the transfer is applied later, on a worker thread
+    @Test
+    void submitTransferIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(post("/accounts/{code}/transfers/async", accountCode(1))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"receiverAccountCode\": \"" + accountCode(2) + "\", \"amount\": 1}"))
+                .hasAtMostSelects(2).hasAtMostWrites(0);
+    }
+
+    @Test
+    void getTransferStatusIsWithinBudget() throws Throwable {
+        String transferCode = asyncTransferService.submit(accountCode(1), newTransferRequest(accountCode(2), 1)).getTransferCode();
+
+        sqlStatementBudget.perform(get("/accounts/{code}/transfers/async/{transferCode}", accountCode(1), transferCode)).hasAtMost(0);
+    }
+
+    @Test
+    void transferBatchIsWithinBudget() throws Throwable {
+        String transfer = "{\"receiverAccountCode\": \"" + accountCode(3) + "\", \"amount\": 1}";
+
+        sqlStatementBudget.perform(post("/accounts/{code}/transfers/batch", accountCode(2))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"mode\": \"ALL_OR_NOTHING\", \"transfers\": [" + transfer + ", " + transfer + ", " + transfer + "]}"))
+                .hasAtMostSelects(4).hasAtMostWrites(3);
+    }
+
+    // The sender's code, every receiver code in one query, then every account locked in one query, however many
+    // receivers the batch has. The application runs optimistic control here, so this one is built by hand
+    @Test
+    void pessimisticBatchLockingIsWithinBudget() throws Throwable {
+        PessimisticConcurrencyControl concurrencyControl = new PessimisticConcurrencyControl(accountRepository,
+                codeLookupCache, transactionManager, new SimpleMeterRegistry());
+        List<String> receiverCodes = accounts.stream().skip(1).map(Account::getCode).toList();
+
+        sqlStatementBudget.measure("PessimisticConcurrencyControl.withAccounts",
+                        () -> concurrencyControl.withAccounts(accountCode(0), receiverCodes, (sender, receivers) -> receivers.size()))
+                .hasAtMostSelects(3).hasAtMostWrites(0);
+    }
+
+    // The code lookup and the account with its customer: the response leaves out the account's transfers
+    @Test
+    void depositIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(put("/accounts/{code}/deposit", accountCode(3))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 5}"))
+                .hasAtMostSelects(2).hasAtMostWrites(3);
+    }
+
+    // The key is inserted in the deposit's transaction and its response added once that has committed
+    @Test
+    void idempotentDepositIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(put("/accounts/{code}/deposit", accountCode(4))
+                        .header(IdempotencyService.HEADER, UUID.randomUUID().toString())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"amount\": 5}"))
+                .hasAtMostSelects(3).hasAtMostWrites(5);
+    }
+
+    // The code lookup and one seek over the account's ledger entries, joined to their deposits and transfers
+    @Test
+    void getActivityIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(get("/accounts/{code}/activity", accountCode(0))).hasAtMost(2);
+    }
+
+    // The code lookup, the latest snapshot and the sum of the entries after it
+    @Test
+    void getBalanceIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(get("/accounts/{code}/balance", accountCode(1))).hasAtMost(3);
+    }
+
+    @Test
+    void getCustomersIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(get("/customers").param("limit", String.valueOf(PAGE_SIZE))).hasAtMost(1);
+    }
+
+    // The code lookup, the version for the ETag and the customer
+    @Test
+    void getCustomerIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(get("/customers/{code}", customers.get(0).getCode())).hasAtMost(3);
+    }
+
+    @Test
+    void notModifiedCustomerIsWithinBudget() throws Throwable {
+        String eTag = eTagOf(get("/customers/{code}", customers.get(0).getCode()));
+        CodeLookupCaches.invalidateAll(codeLookupCache);
+
+        sqlStatementBudget.performNotModified(get("/customers/{code}", customers.get(0).getCode()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .hasAtMost(2);
+    }
+
+    @Test
+    void createCustomerIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(post("/customers")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(customerJson("New Customer", uniqueEmail())))
+                .hasAtMostSelects(1).hasAtMostWrites(2);
+    }
+
+    @Test
+    void updateCustomerIsWithinBudget() throws Throwable {
+        sqlStatementBudget.perform(put("/customers/{code}", customers.get(1).getCode())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(customerJson("Renamed Customer", customers.get(1).getEmail())))
+                .hasAtMostSelects(2).hasAtMostWrites(1);
+    }
+
+    @Test
+    void openNewAccountIsWithinBudget() throws Throwable {
+        Customer customer = customerService.createCustomer(newCustomer());
+
+        sqlStatementBudget.perform(post("/customers/{code}/accounts", customer.getCode())).hasAtMostSelects(2).hasAtMostWrites(2);
+    }
+
+    @Test
+    void importCustomersIsWithinBudget() throws Throwable {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            ndjson.append(customerJson("Imported Customer", uniqueEmail())).append('\n');
+        }
+
+        // One email check and a batch per table for the whole chunk, however many customers it has
+        sqlStatementBudget.perform(post("/customers/import").param("openAccounts", "true").content(ndjson.toString()))
+                .hasAtMostSelects(1).hasAtMostWrites(2);
+    }
+
+    @Test
+    void adminEndpointsDoNotQuery() throws Throwable {
+        sqlStatementBudget.perform(get("/admin/caches")).hasAtMost(0);
+        sqlStatementBudget.perform(get("/admin/traces")).hasAtMost(0);
+    }
+
+    @Test
+    void depositServiceCallIsWithinBudget() throws Throwable {
+        sqlStatementBudget.measure("AccountService.deposit",
+                        () -> accountService.deposit(accountCode(0), newDepositRequest(5)))
+                .hasAtMostSelects(3).hasAtMostWrites(3);
+    }
+
+    private String eTagOf(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private String accountCode(int index) {
+        return accounts.get(index).getCode();
+    }
+
+    private static Customer newCustomer() {
+        Customer customer = new Customer();
+        customer.setName("Budget Customer");
+        customer.setEmail(uniqueEmail());
+        customer.setDateOfBirth(LocalDate.of(1990, 1, 1));
+
+        return customer;
+    }
+
+    private static String customerJson(String name, String email) {
+        return "{\"name\": \"" + name + "\", \"email\": \"" + email + "\", \"dateOfBirth\": \"1990-01-01\"}";
+    }
+
+    private static String uniqueEmail() {
+        return UUID.randomUUID() + "@example.com";
+    }
+
+    private static DepositRequest newDepositRequest(double amount) {
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setAmount(amount);
+
+        return depositRequest;
+    }
+
+    private static TransferRequest newTransferRequest(String receiverAccountCode, double amount) {
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setReceiverAccountCode(receiverAccountCode);
+        transferRequest.setAmount(amount);
+
+        return transferRequest;
+    }
+}
@@ -1,23 +1,40 @@
 package com.example.minibank.service;
 
+import com.example.minibank.controller.request.BatchTransferRequest;
 import com.example.minibank.controller.request.DepositRequest;
 import com.example.minibank.controller.request.TransferRequest;
+import com.example.minibank.controller.response.AccountSummary;
+import com.example.minibank.controller.response.BatchTransferResponse;
+import com.example.minibank.controller.response.CursorPage;
+import com.example.minibank.controller.response.TransferHistoryItem;
 import com.example.minibank.exception.AccountExistsException;
 import com.example.minibank.exception.AccountNotFoundException;
 import com.example.minibank.exception.AccountTransactionException;
 import com.example.minibank.model.Account;
+import com.example.minibank.model.AccountView;
 import com.example.minibank.model.Customer;
+import com.example.minibank.model.Deposit;
+import com.example.minibank.model.LedgerEntry;
 import com.example.minibank.model.Transfer;
 import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.AccountStripeRepository;
+import com.example.minibank.repository.CustomerRepository;
+import com.example.minibank.repository.DepositRepository;
+import com.example.minibank.repository.LedgerEntryRepository;
 import com.example.minibank.repository.TransferRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
@@ -25,7 +42,11 @@ import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,19 +55,50 @@ class AccountServiceTest {
     @Mock
     private AccountRepository accountRepository;
     @Mock
+    private AccountStripeRepository accountStripeRepository;
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
     private TransferRepository transferRepository;
+    @Mock
+    private DepositRepository depositRepository;
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+    @Mock
+    private IdempotencyService idempotencyService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
     private AccountService accountService;
 
     @BeforeEach
     void setUp() {
-        accountService = new AccountService(accountRepository, transferRepository);
+        CodeLookupCache codeLookupCache = new CodeLookupCache(accountRepository, customerRepository, 100, Duration.ofMinutes(1));
+        AccountConcurrencyControl concurrencyControl = new OptimisticConcurrencyControl(accountRepository, codeLookupCache, transactionManager, new SimpleMeterRegistry(), 3, 0);
+        StripedBalanceService stripedBalanceService = new StripedBalanceService(accountRepository, accountStripeRepository, codeLookupCache, transactionManager, Optional.empty());
+        accountService = new AccountService(accountRepository, transferRepository, depositRepository, ledgerEntryRepository, codeLookupCache, concurrencyControl, stripedBalanceService, idempotencyService, Optional.empty());
     }
 
     @Test
     void canGetAllAccounts() {
-        accountService.getAllAccounts();
+        accountService.getAccounts(null, 50, null);
 
-        verify(accountRepository).findAll();
+        verify(accountRepository).findAccountSummaries(0, PageRequest.ofSize(51));
+    }
+
+    @Test
+    void canGetNextAccountsPageFromCursor() {
+        List<AccountSummary> accounts = new ArrayList<>();
+        for (int id = 11; id <= 13; id++) {
+            accounts.add(new AccountSummary(id, UUID.randomUUID().toString(), 0, null, null, 0, 0, null, null));
+        }
+
+        when(accountRepository.findAccountSummaries(10, PageRequest.ofSize(3)))
+                .thenReturn(accounts);
+
+        CursorPage<AccountSummary> page = accountService.getAccounts(CursorPage.encodeCursor(10), 2, null);
+
+        assertThat(page.getItems().size()).isEqualTo(2);
+        assertThat(CursorPage.decodeCursor(page.getNext())).isEqualTo(12);
     }
 
     @Test
@@ -55,15 +107,42 @@ class AccountServiceTest {
         String code = UUID.randomUUID().toString();
 
         Account account = new Account();
+        account.setId(1);
         account.setCode(code);
         account.setBalance(0);
 
         // When
-        when(accountRepository.findAccountByCode(code)).thenReturn(Optional.of(account));
+        when(accountRepository.findAccountIdByCode(code)).thenReturn(Optional.of(1));
+        when(accountRepository.findWithSentTransfersById(1)).thenReturn(Optional.of(account));
         accountService.getAccount(code);
 
         // Then
-        verify(accountRepository).findAccountByCode(code);
+        verify(accountRepository).findWithSentTransfersById(1);
+        verify(accountRepository).findWithReceivedTransfersById(1);
+    }
+
+    @Test
+    void canGetAccountWithoutLoadingAssociations() {
+        String code = UUID.randomUUID().toString();
+
+        Account account = new Account(1, code, 10, LocalDateTime.now(), LocalDateTime.now());
+
+        when(accountRepository.findAccountIdByCode(code)).thenReturn(Optional.of(1));
+        when(accountRepository.findSummaryById(1)).thenReturn(Optional.of(account));
+
+        assertThat(accountService.getAccount(code, AccountView.SUMMARY).getBalance()).isEqualTo(10);
+        verify(accountRepository, never()).findWithSentTransfersById(any());
+        verify(accountRepository, never()).findById(any());
+    }
+
+    @Test
+    void willNotReadVersionsOfUnknownAccount() {
+        String code = UUID.randomUUID().toString();
+
+        when(accountRepository.findAccountIdByCode(code)).thenReturn(Optional.empty());
+
+        assertThat(accountService.getAccountVersions(code)).isEmpty();
+        verify(accountRepository, never()).findVersionsById(any());
     }
 
     @Test
@@ -75,7 +154,8 @@ class AccountServiceTest {
         account.setCode(code);
         account.setBalance(0);
 
-        when(accountRepository.findAccountByCode(code)).thenReturn(Optional.of(account));
+        when(accountRepository.findAccountIdByCode(code)).thenReturn(Optional.of(1));
+        when(accountRepository.findWithSentTransfersById(1)).thenReturn(Optional.of(account));
 
         Map<String, List<Transfer>> expectedTransfers = new HashMap<>();
         expectedTransfers.put("sent", Collections.emptyList());
@@ -84,6 +164,28 @@ class AccountServiceTest {
         assertThat(accountService.getAllTransfers(code)).isEqualTo(expectedTransfers);
     }
 
+    @Test
+    void canGetTransferHistoryMergedNewestFirst() {
+        String code = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+
+        when(accountRepository.findAccountIdByCode(code)).thenReturn(Optional.of(1));
+        when(transferRepository.findSentTransferHistory(eq(1), any(), any(), eq(0), any())).thenReturn(List.of(
+                new TransferHistoryItem(3, "c", "SENT", "x", 10, null, now),
+                new TransferHistoryItem(1, "a", "SENT", "x", 10, null, now.minusMinutes(2))
+        ));
+        when(transferRepository.findReceivedTransferHistory(eq(1), any(), any(), eq(0), any())).thenReturn(List.of(
+                new TransferHistoryItem(2, "b", "RECEIVED", "y", 10, null, now.minusMinutes(1))
+        ));
+
+        CursorPage<TransferHistoryItem> page = accountService.getTransferHistory(code, null, null, null, null, 2);
+
+        assertThat(page.getItems().size()).isEqualTo(2);
+        assertEquals("c", page.getItems().get(0).getCode());
+        assertEquals("b", page.getItems().get(1).getCode());
+        assertThat(CursorPage.decodeTimeCursor(page.getNext()).id()).isEqualTo(2);
+    }
+
     @Test
     void canOpenNewAccountForCustomerWithExistingAccount() {
         String randomCode = UUID.randomUUID().toString();
@@ -122,7 +224,16 @@ class AccountServiceTest {
 
         accountService.deposit(code, depositRequest);
 
+        ArgumentCaptor<Deposit> depositArgumentCaptor = ArgumentCaptor.forClass(Deposit.class);
+        verify(depositRepository).save(depositArgumentCaptor.capture());
+        ArgumentCaptor<LedgerEntry> ledgerEntryArgumentCaptor = ArgumentCaptor.forClass(LedgerEntry.class);
+        verify(ledgerEntryRepository).save(ledgerEntryArgumentCaptor.capture());
+
         assertThat(account.getBalance()).isEqualTo(amountToDeposit);
+        assertThat(depositArgumentCaptor.getValue().getAccount()).isEqualTo(account);
+        assertThat(depositArgumentCaptor.getValue().getAmount()).isEqualTo(amountToDeposit);
+        assertThat(ledgerEntryArgumentCaptor.getValue().getType()).isEqualTo(LedgerEntry.Type.DEPOSIT);
+        assertThat(ledgerEntryArgumentCaptor.getValue().getAmount()).isEqualTo(amountToDeposit);
     }
 
     @Test
@@ -149,6 +260,9 @@ class AccountServiceTest {
 
         ArgumentCaptor<Transfer> transferArgumentCaptor = ArgumentCaptor.forClass(Transfer.class);
         verify(transferRepository).save(transferArgumentCaptor.capture());
+        verify(ledgerEntryRepository).saveAll(argThat((List<LedgerEntry> entries) -> entries.stream()
+                .mapToDouble(LedgerEntry::getAmount)
+                .sum() == 0));
 
         assertThat(senderAccount.getBalance()).isEqualTo(500);
         assertThat(receiverAccount.getBalance()).isEqualTo(500);
@@ -276,16 +390,105 @@ class AccountServiceTest {
                 .isEqualTo(2 * (numberOfThreads * transferRequest.getAmount()));
     }
 
+    @Test
+    void canTransferBatchWithBestEffortMode() {
+        String senderCode = UUID.randomUUID().toString();
+        Account senderAccount = new Account();
+        senderAccount.setCode(senderCode);
+        senderAccount.setBalance(1000);
+
+        String receiverCode = UUID.randomUUID().toString();
+        Account receiverAccount = new Account();
+        receiverAccount.setCode(receiverCode);
+        receiverAccount.setBalance(0);
+
+        BatchTransferRequest batchTransferRequest = new BatchTransferRequest();
+        batchTransferRequest.setMode(BatchTransferRequest.Mode.BEST_EFFORT);
+        batchTransferRequest.setTransfers(List.of(
+                newTransferRequest(receiverCode, 600),
+                newTransferRequest(receiverCode, 600),
+                newTransferRequest(UUID.randomUUID().toString(), 100),
+                newTransferRequest(receiverCode, 400)
+        ));
+
+        when(accountRepository.findAccountByCode(senderCode)).thenReturn(Optional.of(senderAccount));
+        when(accountRepository.findAccountsByCodeIn(anyCollection())).thenReturn(List.of(receiverAccount));
+
+        BatchTransferResponse response = accountService.transferBatch(senderCode, batchTransferRequest);
+
+        assertThat(response.isCommitted()).isTrue();
+        assertThat(response.getCompletedCount()).isEqualTo(2);
+        assertEquals("Insufficient funds to make the transfer", response.getResults().get(1).getMessage());
+        assertEquals("Receiver account not found", response.getResults().get(2).getMessage());
+        assertThat(senderAccount.getBalance()).isEqualTo(0.0);
+        assertThat(receiverAccount.getBalance()).isEqualTo(1000.0);
+        verify(transferRepository).saveAll(anyList());
+    }
+
+    @Test
+    void willNotApplyAnyTransferWhenOneIsRejectedInAllOrNothingBatch() {
+        String senderCode = UUID.randomUUID().toString();
+        Account senderAccount = new Account();
+        senderAccount.setCode(senderCode);
+        senderAccount.setBalance(1000);
+
+        String receiverCode = UUID.randomUUID().toString();
+        Account receiverAccount = new Account();
+        receiverAccount.setCode(receiverCode);
+        receiverAccount.setBalance(0);
+
+        BatchTransferRequest batchTransferRequest = new BatchTransferRequest();
+        batchTransferRequest.setTransfers(List.of(
+                newTransferRequest(receiverCode, 600),
+                newTransferRequest(receiverCode, 600)
+        ));
+
+        when(accountRepository.findAccountByCode(senderCode)).thenReturn(Optional.of(senderAccount));
+        when(accountRepository.findAccountsByCodeIn(anyCollection())).thenReturn(List.of(receiverAccount));
+
+        BatchTransferResponse response = accountService.transferBatch(senderCode, batchTransferRequest);
+
+        assertThat(response.isCommitted()).isFalse();
+        assertThat(response.getResults().get(0).getStatus()).isEqualTo(BatchTransferResponse.Status.NOT_APPLIED);
+        assertThat(response.getResults().get(1).getStatus()).isEqualTo(BatchTransferResponse.Status.REJECTED);
+        assertThat(senderAccount.getBalance()).isEqualTo(1000.0);
+        verify(transferRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void canApplyQueuedTransfersUnderTheirAcceptedCodes() {
+        String senderCode = UUID.randomUUID().toString();
+        Account senderAccount = new Account();
+        senderAccount.setCode(senderCode);
+        senderAccount.setBalance(100);
+
+        String receiverCode = UUID.randomUUID().toString();
+        Account receiverAccount = new Account();
+        receiverAccount.setCode(receiverCode);
+
+        List<String> transferCodes = List.of(UUID.randomUUID().toString(), UUID.randomUUID().toString());
+
+        when(accountRepository.findAccountByCode(senderCode)).thenReturn(Optional.of(senderAccount));
+        when(accountRepository.findAccountsByCodeIn(anyCollection())).thenReturn(List.of(receiverAccount));
+
+        BatchTransferResponse response = accountService.applyQueuedTransfers(senderCode,
+                List.of(newTransferRequest(receiverCode, 60), newTransferRequest(receiverCode, 60)), transferCodes);
+
+        assertThat(response.getResults().get(0).getTransferCode()).isEqualTo(transferCodes.get(0));
+        assertThat(response.getResults().get(1).getStatus()).isEqualTo(BatchTransferResponse.Status.REJECTED);
+        assertThat(senderAccount.getBalance()).isEqualTo(40.0);
+    }
+
     @Test
     void willThrowWhenAccountDoesNotExistOnGetSingleAccount() {
-        when(accountRepository.findAccountByCode(anyString())).thenReturn(Optional.empty());
+        when(accountRepository.findAccountIdByCode(anyString())).thenReturn(Optional.empty());
 
         assertThrows(AccountNotFoundException.class, () -> accountService.getAccount(anyString()));
     }
 
     @Test
     void willThrowWhenAccountDoesNotExistOnGetAllTransfers() {
-        when(accountRepository.findAccountByCode(anyString())).thenReturn(Optional.empty());
+        when(accountRepository.findAccountIdByCode(anyString())).thenReturn(Optional.empty());
 
         assertThrows(AccountNotFoundException.class, () -> accountService.getAllTransfers(anyString()));
     }
@@ -440,4 +643,12 @@ class AccountServiceTest {
 
         assertEquals("Transfer amount cannot be less than 1", thrown.getMessage());
     }
+
+    private static TransferRequest newTransferRequest(String receiverCode, double amount) {
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setReceiverAccountCode(receiverCode);
+        transferRequest.setAmount(amount);
+
+        return transferRequest;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package com.example.minibank.service;
+
+import com.example.minibank.controller.request.TransferRequest;
+import com.example.minibank.controller.response.BatchTransferResponse;
+import com.example.minibank.controller.response.TransferStatus;
+import com.example.minibank.exception.AccountNotFoundException;
+import com.example.minibank.exception.AccountTransactionException;
+import com.example.minibank.exception.TransferNotFoundException;
+import com.example.minibank.exception.TransferQueueFullException;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.CustomerRepository;
+import com.example.minibank.repository.TransferRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferServiceTest {
+
+    private static final String SENDER = UUID.randomUUID().toString();
+    private static final String RECEIVER = UUID.randomUUID().toString();
+
+    @Mock private AccountService accountService;
+    @Mock private AccountRepository accountRepository;
+    @Mock private CustomerRepository customerRepository;
+    @Mock private TransferRepository transferRepository;
+    private AsyncTransferService asyncTransferService;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        asyncTransferService.shutdown();
+    }
+
+    @Test
+    void canApplyQueuedTransfer() throws InterruptedException {
+        asyncTransferService = newAsyncTransferService(100);
+        givenAccountsExist();
+        when(accountService.applyQueuedTransfers(eq(SENDER), anyList(), anyList()))
+                .thenAnswer(invocation -> results(invocation.getArgument(2), null));
+
+        TransferStatus submitted = asyncTransferService.submit(SENDER, newTransferRequest(10));
+
+        assertThat(submitted.getStatus()).isEqualTo(TransferStatus.Status.PENDING);
+        assertThat(awaitStatus(submitted.getTransferCode()).getStatus()).isEqualTo(TransferStatus.Status.COMPLETED);
+    }
+
+    @Test
+    void willReportWhyTransferWasRejected() throws InterruptedException {
+        asyncTransferService = newAsyncTransferService(100);
+        givenAccountsExist();
+        when(accountService.applyQueuedTransfers(eq(SENDER), anyList(), anyList()))
+                .thenAnswer(invocation -> results(invocation.getArgument(2), "Insufficient funds to make the transfer"));
+
+        TransferStatus status = awaitStatus(asyncTransferService.submit(SENDER, newTransferRequest(10)).getTransferCode());
+
+        assertThat(status.getStatus()).isEqualTo(TransferStatus.Status.REJECTED);
+        assertThat(status.getReason()).isEqualTo("Insufficient funds to make the transfer");
+    }
+
+    @Test
+    void willRetryBatchAfterConcurrentUpdate() throws InterruptedException {
+        asyncTransferService = newAsyncTransferService(100);
+        givenAccountsExist();
+        when(accountService.applyQueuedTransfers(eq(SENDER), anyList(), anyList()))
+                .thenThrow(new ObjectOptimisticLockingFailureException("Account", 2))
+                .thenAnswer(invocation -> results(invocation.getArgument(2), null));
+
+        TransferStatus status = awaitStatus(asyncTransferService.submit(SENDER, newTransferRequest(10)).getTransferCode());
+
+        assertThat(status.getStatus()).isEqualTo(TransferStatus.Status.COMPLETED);
+        verify(accountService, times(2)).applyQueuedTransfers(eq(SENDER), anyList(), anyList());
+    }
+
+    @Test
+    void willRejectMissingReceiverWithoutQueueing() {
+        asyncTransferService = newAsyncTransferService(100);
+        when(accountRepository.findAccountIdByCode(SENDER)).thenReturn(Optional.of(1));
+        when(accountRepository.findAccountIdByCode(RECEIVER)).thenReturn(Optional.empty());
+
+        assertThrows(AccountNotFoundException.class, () -> asyncTransferService.submit(SENDER, newTransferRequest(10)));
+        assertThat(asyncTransferService.getQueuedCount()).isZero();
+    }
+
+    @Test
+    void willRejectAmountBelowMinimumWithoutQueueing() {
+        asyncTransferService = newAsyncTransferService(100);
+        givenAccountsExist();
+
+        assertThrows(AccountTransactionException.class, () -> asyncTransferService.submit(SENDER, newTransferRequest(0)));
+        assertThat(asyncTransferService.getQueuedCount()).isZero();
+    }
+
+    @Test
+    void willRejectSubmissionWhenQueueIsFull() throws InterruptedException {
+        asyncTransferService = newAsyncTransferService(1);
+        givenAccountsExist();
+
+        CountDownLatch release = new CountDownLatch(1);
+        when(accountService.applyQueuedTransfers(eq(SENDER), anyList(), anyList())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return results(invocation.getArgument(2), null);
+        });
+
+        // The worker takes the first transfer and blocks on it; the second fills the queue
+        asyncTransferService.submit(SENDER, newTransferRequest(10));
+        verify(accountService, timeout(5_000)).applyQueuedTransfers(eq(SENDER), anyList(), anyList());
+        asyncTransferService.submit(SENDER, newTransferRequest(10));
+
+        assertThrows(TransferQueueFullException.class, () -> asyncTransferService.submit(SENDER, newTransferRequest(10)));
+        release.countDown();
+    }
+
+    @Test
+    void willNotReportTransferOfAnotherAccount() throws InterruptedException {
+        asyncTransferService = newAsyncTransferService(100);
+        givenAccountsExist();
+        when(accountService.applyQueuedTransfers(eq(SENDER), anyList(), anyList()))
+                .thenAnswer(invocation -> results(invocation.getArgument(2), null));
+
+        String transferCode = asyncTransferService.submit(SENDER, newTransferRequest(10)).getTransferCode();
+        awaitStatus(transferCode);
+
+        assertThrows(TransferNotFoundException.class, () -> asyncTransferService.getStatus(RECEIVER, transferCode));
+    }
+
+    @Test
+    void canFindCompletedTransferNoLongerTracked() {
+        asyncTransferService = newAsyncTransferService(100);
+        String transferCode = UUID.randomUUID().toString();
+        when(accountRepository.findAccountIdByCode(SENDER)).thenReturn(Optional.of(1));
+        when(transferRepository.existsByCodeAndSenderAccountId(transferCode, 1)).thenReturn(true);
+
+        assertThat(asyncTransferService.getStatus(SENDER, transferCode).getStatus()).isEqualTo(TransferStatus.Status.COMPLETED);
+    }
+
+    private AsyncTransferService newAsyncTransferService(int queueCapacity) {
+        CodeLookupCache codeLookupCache = new CodeLookupCache(accountRepository, customerRepository, 100, Duration.ofMinutes(1));
+
+        return new AsyncTransferService(accountService, codeLookupCache, transferRepository, new SimpleMeterRegistry(),
+                1, queueCapacity, 100, 3, Duration.ofMinutes(1), 1_000);
+    }
+
+    private void givenAccountsExist() {
+        when(accountRepository.findAccountIdByCode(SENDER)).thenReturn(Optional.of(1));
+        when(accountRepository.findAccountIdByCode(RECEIVER)).thenReturn(Optional.of(2));
+    }
+
+    private TransferStatus awaitStatus(String transferCode) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        TransferStatus status = asyncTransferService.getStatus(SENDER, transferCode);
+
+        while (status.getStatus() == TransferStatus.Status.PENDING && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = asyncTransferService.getStatus(SENDER, transferCode);
+        }
+
+        return status;
+    }
+
+    private static BatchTransferResponse results(List<String> transferCodes, String rejectedReason) {
+        BatchTransferResponse response = new BatchTransferResponse();
+
+        for (int i = 0; i < transferCodes.size(); i++) {
+            if (rejectedReason == null) {
+                response.addResult(i, BatchTransferResponse.Status.COMPLETED, transferCodes.get(i), null);
+            } else {
+                response.addResult(i, BatchTransferResponse.Status.REJECTED, null, rejectedReason);
+            }
+        }
+
+        return response;
+    }
+
+    private static TransferRequest newTransferRequest(double amount) {
+        TransferRequest transferRequest = new TransferRequest();
+        transferRequest.setReceiverAccountCode(RECEIVER);
+        transferRequest.setAmount(amount);
+
+        return transferRequest;
+    }
+}
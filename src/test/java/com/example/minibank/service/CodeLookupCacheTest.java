@@ -0,0 +1,114 @@
+package com.example.minibank.service;
+
+import com.example.minibank.model.Account;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CodeLookupCacheTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private CustomerRepository customerRepository;
+    private CodeLookupCache codeLookupCache;
+
+    @BeforeEach
+    void setUp() {
+        codeLookupCache = new CodeLookupCache(accountRepository, customerRepository, 100, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void canResolveAccountByIdAfterFirstLookup() {
+        Account account = givenAccount(7);
+        when(accountRepository.findAccountByCode(account.getCode())).thenReturn(Optional.of(account));
+        when(accountRepository.findById(7)).thenReturn(Optional.of(account));
+
+        codeLookupCache.findAccount(account.getCode());
+        Optional<Account> cached = codeLookupCache.findAccount(account.getCode());
+
+        assertThat(cached).contains(account);
+        verify(accountRepository, times(1)).findAccountByCode(account.getCode());
+        verify(accountRepository, times(1)).findById(7);
+        assertThat(codeLookupCache.getStats().get(CodeLookupCache.ACCOUNTS).hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void willEvictMappingWhenCachedIdNoLongerExists() {
+        Account account = givenAccount(7);
+        when(accountRepository.findAccountByCode(account.getCode()))
+                .thenReturn(Optional.of(account))
+                .thenReturn(Optional.empty());
+        when(accountRepository.findById(7)).thenReturn(Optional.empty());
+
+        codeLookupCache.findAccount(account.getCode());
+        Optional<Account> missing = codeLookupCache.findAccount(account.getCode());
+
+        assertThat(missing).isEmpty();
+        assertThat(codeLookupCache.getSizes().get(CodeLookupCache.ACCOUNTS)).isZero();
+    }
+
+    @Test
+    void willNotCacheUnknownCodes() {
+        String code = UUID.randomUUID().toString();
+        when(accountRepository.findAccountIdByCode(code)).thenReturn(Optional.empty());
+
+        codeLookupCache.findAccountId(code);
+        codeLookupCache.findAccountId(code);
+
+        verify(accountRepository, times(2)).findAccountIdByCode(code);
+    }
+
+    @Test
+    void canResolveBatchOfAccountIdsWithOneQueryForCodesNotCached() {
+        String cachedCode = UUID.randomUUID().toString();
+        String uncachedCode = UUID.randomUUID().toString();
+        String unknownCode = UUID.randomUUID().toString();
+        when(accountRepository.findAccountIdByCode(cachedCode)).thenReturn(Optional.of(1));
+        when(accountRepository.findAccountIdsByCodeIn(List.of(uncachedCode, unknownCode)))
+                .thenReturn(List.of(codeId(uncachedCode, 2)));
+
+        codeLookupCache.findAccountId(cachedCode);
+        Map<String, Integer> ids = codeLookupCache.findAccountIds(List.of(cachedCode, uncachedCode, unknownCode));
+
+        assertThat(ids).isEqualTo(Map.of(cachedCode, 1, uncachedCode, 2));
+        assertThat(codeLookupCache.findAccountId(uncachedCode)).contains(2);
+        verify(accountRepository, never()).findAccountIdByCode(uncachedCode);
+    }
+
+    static AccountRepository.CodeId codeId(String code, Integer id) {
+        return new AccountRepository.CodeId() {
+            @Override
+            public String getCode() {
+                return code;
+            }
+
+            @Override
+            public Integer getId() {
+                return id;
+            }
+        };
+    }
+
+    private Account givenAccount(Integer id) {
+        Account account = new Account();
+        account.setId(id);
+        account.setCode(UUID.randomUUID().toString());
+
+        return account;
+    }
+}
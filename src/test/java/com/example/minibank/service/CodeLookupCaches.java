@@ -0,0 +1,14 @@
+package com.example.minibank.service;
+
+/**
+ * Lets tests outside this package start from a cold {@link CodeLookupCache}, without making that part of its API.
+ */
+public final class CodeLookupCaches {
+
+    private CodeLookupCaches() {
+    }
+
+    public static void invalidateAll(CodeLookupCache codeLookupCache) {
+        codeLookupCache.invalidateAll();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.minibank.service;
+
+import com.example.minibank.controller.response.CustomerImportReport;
+import com.example.minibank.repository.CustomerRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerImportServiceTest {
+
+    private static final String CSV = "name,email,dateOfBirth\n" +
+            "Jane Doe,jane@example.com,1990-01-01\n" +
+            "John Doe,john@example.com,1985-06-15\n" +
+            "Jim Doe,jim@example.com,1970-12-31\n";
+
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
+    private AccountService accountService;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private CustomerImportService customerImportService;
+
+    @BeforeEach
+    void setUp() {
+        customerImportService = new CustomerImportService(customerRepository, accountService,
+                Validation.buildDefaultValidatorFactory().getValidator(), entityManager, transactionManager,
+                new ObjectMapper().registerModule(new JavaTimeModule()), 2, 100);
+    }
+
+    @Test
+    void willImportChunkWithoutEmailTakenWhileItWasInserted() throws IOException {
+        when(customerRepository.findTakenEmails(anyCollection()))
+                .thenReturn(List.of())
+                .thenReturn(List.of("john@example.com"))
+                .thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("Unique index violated")).doNothing().when(customerRepository).flush();
+
+        CustomerImportReport report = importCsv();
+
+        assertThat(report.getImported()).isEqualTo(2);
+        assertThat(report.getRejected()).isEqualTo(1);
+        assertThat(report.getErrors()).singleElement().satisfies(error -> {
+            assertThat(error.getLine()).isEqualTo(3);
+            assertThat(error.getMessage()).isEqualTo("Customer email is already taken");
+        });
+    }
+
+    @Test
+    void willRejectChunkAndContinueWhenRetryAlsoFails() throws IOException {
+        when(customerRepository.findTakenEmails(anyCollection())).thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("Unique index violated"))
+                .doThrow(new DataIntegrityViolationException("Unique index violated"))
+                .doNothing()
+                .when(customerRepository).flush();
+
+        CustomerImportReport report = importCsv();
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getRejected()).isEqualTo(2);
+        assertThat(report.getErrors()).extracting(CustomerImportReport.RowError::getLine).containsExactly(2L, 3L);
+        verify(customerRepository, times(3)).flush();
+    }
+
+    private CustomerImportReport importCsv() throws IOException {
+        return customerImportService.importCustomers(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)),
+                CustomerImportService.Format.CSV, false);
+    }
+}
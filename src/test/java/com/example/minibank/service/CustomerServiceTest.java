@@ -3,6 +3,7 @@ package com.example.minibank.service;
 import com.example.minibank.exception.CustomerIneligibleException;
 import com.example.minibank.exception.CustomerNotFoundException;
 import com.example.minibank.model.Customer;
+import com.example.minibank.repository.AccountRepository;
 import com.example.minibank.repository.CustomerRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,8 +11,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -27,23 +30,25 @@ class CustomerServiceTest {
 
     @Mock private CustomerRepository customerRepository;
     @Mock private AccountService accountService;
+    @Mock private AccountRepository accountRepository;
     private CustomerService customerService;
 
     private int minimumRequiredDateOfBirthYear;
 
     @BeforeEach
     void setUp() {
-        customerService = new CustomerService(customerRepository, accountService);
+        customerService = new CustomerService(customerRepository, accountService,
+                new CodeLookupCache(accountRepository, customerRepository, 100, Duration.ofMinutes(1)));
         minimumRequiredDateOfBirthYear = (LocalDate.now().getYear() - CustomerService.CUSTOMER_MIN_AGE_REQUIRED);
     }
 
     @Test
     void canGetAllCustomers() {
         // When
-        customerService.getAllCustomers();
+        customerService.getCustomers(null, 50, null);
 
         // Then
-        verify(customerRepository).findAll();
+        verify(customerRepository).findCustomerSummaries(0, PageRequest.ofSize(51));
     }
 
     @Test
@@ -65,6 +70,18 @@ class CustomerServiceTest {
         verify(customerRepository).findCustomerByCode(code);
     }
 
+    @Test
+    void canGetCustomerVersionWithoutLoadingCustomer() {
+        String code = UUID.randomUUID().toString();
+
+        when(customerRepository.findCustomerIdByCode(code)).thenReturn(Optional.of(1));
+        when(customerRepository.findVersionById(1)).thenReturn(Optional.of(3L));
+
+        assertThat(customerService.getCustomerVersion(code)).contains(3L);
+        verify(customerRepository, never()).findCustomerByCode(any());
+        verify(customerRepository, never()).findById(any());
+    }
+
     @Test
     void canCreateNewCustomerWithUniqueEmail() {
         // Given
@@ -0,0 +1,224 @@
+package com.example.minibank.service;
+
+import com.example.minibank.controller.request.DepositRequest;
+import com.example.minibank.exception.IdempotencyKeyException;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.IdempotencyRecord;
+import com.example.minibank.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    private static final String OPERATION = "PUT /accounts/abc/deposit";
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(idempotencyRecordRepository,
+                Jackson2ObjectMapperBuilder.json().build(), Duration.ofHours(1), 100);
+    }
+
+    @Test
+    void willReplayResponseWithoutRunningActionAgain() {
+        AtomicInteger calls = new AtomicInteger();
+        DepositRequest depositRequest = newDepositRequest(100);
+
+        ResponseEntity<Account> first = idempotencyService.execute("key-1", OPERATION, depositRequest, Account.class,
+                () -> deposit(calls));
+        ResponseEntity<Account> second = idempotencyService.execute("key-1", OPERATION, depositRequest, Account.class,
+                () -> deposit(calls));
+
+        assertEquals(1, calls.get());
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertThat(second.getBody().getCode()).isEqualTo(first.getBody().getCode());
+        assertThat(second.getBody().getBalance()).isEqualTo(100.0);
+        verify(idempotencyRecordRepository, times(1)).save(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void willRejectKeyReusedForDifferentRequest() {
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute("key-1", OPERATION, newDepositRequest(100), Account.class, () -> deposit(calls));
+
+        IdempotencyKeyException thrown = assertThrows(
+                IdempotencyKeyException.class,
+                () -> idempotencyService.execute("key-1", OPERATION, newDepositRequest(200), Account.class, () -> deposit(calls))
+        );
+
+        assertEquals("Idempotency key was already used for a different request", thrown.getMessage());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void willReplayStoredResponseAfterRestart() {
+        AtomicInteger calls = new AtomicInteger();
+        DepositRequest depositRequest = newDepositRequest(100);
+        idempotencyService.execute("key-1", OPERATION, depositRequest, Account.class, () -> deposit(calls));
+
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(idempotencyRecordRepository).save(captor.capture());
+        IdempotencyRecord record = captor.getValue();
+        record.setCreatedAt(LocalDateTime.now());
+        when(idempotencyRecordRepository.findById("key-1")).thenReturn(Optional.of(record));
+
+        IdempotencyService restarted = new IdempotencyService(idempotencyRecordRepository,
+                Jackson2ObjectMapperBuilder.json().build(), Duration.ofHours(1), 100);
+        ResponseEntity<Account> replayed = restarted.execute("key-1", OPERATION, depositRequest, Account.class,
+                () -> deposit(calls));
+
+        assertEquals(1, calls.get());
+        assertThat(replayed.getBody().getBalance()).isEqualTo(100.0);
+    }
+
+    @Test
+    void willRunConcurrentDuplicatesOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        DepositRequest depositRequest = newDepositRequest(100);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            Future<ResponseEntity<Account>> original = executor.submit(() ->
+                    idempotencyService.execute("key-1", OPERATION, depositRequest, Account.class, () -> {
+                        started.countDown();
+                        await(release);
+                        return deposit(calls);
+                    }));
+            started.await();
+
+            Future<?>[] duplicates = new Future<?>[8];
+            for (int i = 0; i < duplicates.length - 1; i++) {
+                duplicates[i] = executor.submit(() ->
+                        idempotencyService.execute("key-1", OPERATION, depositRequest, Account.class, () -> deposit(calls)));
+            }
+            release.countDown();
+
+            assertThat(original.get(5, TimeUnit.SECONDS).getBody().getBalance()).isEqualTo(100.0);
+            for (int i = 0; i < duplicates.length - 1; i++) {
+                duplicates[i].get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void willRunActionAgainAfterFailure() {
+        AtomicInteger calls = new AtomicInteger();
+        DepositRequest depositRequest = newDepositRequest(100);
+
+        assertThrows(IllegalStateException.class, () ->
+                idempotencyService.execute("key-1", OPERATION, depositRequest, Account.class, () -> {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("Database unavailable");
+                }));
+        idempotencyService.execute("key-1", OPERATION, depositRequest, Account.class, () -> deposit(calls));
+
+        assertEquals(2, calls.get());
+        verify(idempotencyRecordRepository, never()).deleteExpired(any());
+        verify(idempotencyRecordRepository, times(2)).findById(anyString());
+    }
+
+    @Test
+    void willNotRunActionAgainWhenItsResponseCannotBeStored() {
+        AtomicInteger calls = new AtomicInteger();
+        DepositRequest depositRequest = newDepositRequest(100);
+
+        idempotencyService.execute("key-1", OPERATION, depositRequest, Object.class, () -> {
+            calls.incrementAndGet();
+            return ResponseEntity.ok(new Object());
+        });
+
+        IdempotencyKeyException thrown = assertThrows(
+                IdempotencyKeyException.class,
+                () -> idempotencyService.execute("key-1", OPERATION, depositRequest, Object.class,
+                        () -> ResponseEntity.ok(deposit(calls)))
+        );
+
+        assertEquals("Request was already applied, but its response is not available", thrown.getMessage());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void willKeepKeyClaimedByCommittedTransactionWhenRequestFailsAfterwards() {
+        AtomicInteger calls = new AtomicInteger();
+        DepositRequest depositRequest = newDepositRequest(100);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThrows(IllegalStateException.class, () ->
+                    idempotencyService.execute("key-1", OPERATION, depositRequest, Account.class, () -> {
+                        calls.incrementAndGet();
+                        idempotencyService.claimInCurrentTransaction();
+                        TransactionSynchronizationUtils.triggerAfterCommit();
+                        throw new IllegalStateException("Response cannot be rendered");
+                    }));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThrows(IdempotencyKeyException.class, () ->
+                idempotencyService.execute("key-1", OPERATION, depositRequest, Account.class, () -> deposit(calls)));
+
+        assertEquals(1, calls.get());
+        verify(idempotencyRecordRepository).save(argThat(record -> record.getKey().equals("key-1") && record.getStatusCode() == 0));
+    }
+
+    private static ResponseEntity<Account> deposit(AtomicInteger calls) {
+        calls.incrementAndGet();
+
+        Account account = new Account();
+        account.setCode(UUID.randomUUID().toString());
+        account.setBalance(100);
+        account.setCreatedAt(LocalDateTime.now());
+        account.setUpdatedAt(LocalDateTime.now());
+
+        return new ResponseEntity<>(account, HttpStatus.OK);
+    }
+
+    private static DepositRequest newDepositRequest(double amount) {
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setAmount(amount);
+
+        return depositRequest;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.minibank.service;
+
+import com.example.minibank.MinibankApplication;
+import com.example.minibank.controller.request.DepositRequest;
+import com.example.minibank.model.Account;
+import com.example.minibank.repository.AccountRepository;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Transfers between two accounts through the journaled ledger from several threads until it is killed, printing
+ * the code of every transfer once it is acknowledged. Started in its own process by {@link LedgerJournalRecoveryTest}.
+ */
+public class LedgerCrashWorkload {
+
+    static final double INITIAL_DEPOSIT = 100_000;
+
+    private static final int THREADS = 4;
+
+    public static void main(String[] args) {
+        ConfigurableApplicationContext context = start(Path.of(args[0]));
+        LedgerEngine ledgerEngine = context.getBean(LedgerEngine.class);
+
+        List<Account> accounts = context.getBean(AccountRepository.class).saveAll(List.of(newAccount(), newAccount()));
+        String senderCode = accounts.get(0).getCode();
+        String receiverCode = accounts.get(1).getCode();
+
+        // The accounts are written directly rather than through the journal, so they are forced to disk here
+        context.getBean(JdbcTemplate.class).execute("CHECKPOINT SYNC");
+
+        DepositRequest depositRequest = new DepositRequest();
+        depositRequest.setAmount(INITIAL_DEPOSIT);
+        context.getBean(AccountService.class).deposit(senderCode, depositRequest);
+
+        System.out.println("accounts " + senderCode + " " + receiverCode);
+
+        for (int i = 0; i < THREADS; i++) {
+            new Thread(() -> {
+                while (true) {
+                    String transferCode = ledgerEngine.transfer(senderCode, receiverCode, 1, null);
+
+                    synchronized (System.out) {
+                        System.out.println("ack " + transferCode);
+                        System.out.flush();
+                    }
+                }
+            }).start();
+        }
+    }
+
+    /**
+     * The application with the journaled ledger over a database file, both in {@code directory}.
+     */
+    static ConfigurableApplicationContext start(Path directory) {
+        return new SpringApplicationBuilder(MinibankApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:file:" + directory.resolve("minibank") + ";FILE_LOCK=NO",
+                        "spring.jpa.hibernate.ddl-auto=update",
+                        "spring.jpa.show-sql=false",
+                        "minibank.ledger.enabled=true",
+                        "minibank.ledger.journal.enabled=true",
+                        "minibank.ledger.journal.directory=" + directory.resolve("journal"),
+                        "minibank.ledger.journal.segment-size=64KB",
+                        "logging.level.root=WARN"
+                )
+                .run();
+    }
+
+    private static Account newAccount() {
+        Account account = new Account();
+        account.setCode(UUID.randomUUID().toString());
+
+        return account;
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.minibank.service;
+
+import com.example.minibank.exception.AccountNotFoundException;
+import com.example.minibank.exception.AccountTransactionException;
+import com.example.minibank.journal.WriteAheadJournal;
+import com.example.minibank.model.Account;
+import com.example.minibank.model.Deposit;
+import com.example.minibank.model.LedgerEntry;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.DepositRepository;
+import com.example.minibank.repository.JournalCheckpointRepository;
+import com.example.minibank.repository.LedgerEntryRepository;
+import com.example.minibank.repository.TransferRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerEngineTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private TransferRepository transferRepository;
+    @Mock
+    private DepositRepository depositRepository;
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+    @Mock
+    private JournalCheckpointRepository journalCheckpointRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private LedgerEngine ledgerEngine;
+
+    @BeforeEach
+    void setUp() {
+        ledgerEngine = new LedgerEngine(accountRepository, transferRepository, depositRepository, ledgerEntryRepository,
+                journalCheckpointRepository, Optional.empty(), transactionManager, 4, 100);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        ledgerEngine.shutdown();
+    }
+
+    @Test
+    void canDepositIntoAccount() {
+        Account account = givenAccount(1, 0);
+
+        Account updated = ledgerEngine.deposit(account.getCode(), 1000);
+
+        assertThat(updated.getBalance()).isEqualTo(1000.0);
+        verify(accountRepository, timeout(1000)).addToBalance(1, 1000);
+        verify(depositRepository).saveAll(argThat((List<Deposit> deposits) -> deposits.size() == 1));
+    }
+
+    @Test
+    void willRetryWritesThatFailToPersist() {
+        Account account = givenAccount(1, 0);
+        when(accountRepository.addToBalance(1, 1000))
+                .thenThrow(new IllegalStateException("Database unavailable"))
+                .thenReturn(1);
+
+        ledgerEngine.deposit(account.getCode(), 1000);
+
+        verify(accountRepository, timeout(5000).times(2)).addToBalance(1, 1000);
+    }
+
+    @Test
+    void canTransferValidAmountToAnotherAccount() throws InterruptedException {
+        Account senderAccount = givenAccount(1, 1000);
+        Account receiverAccount = givenAccount(2, 0);
+
+        ledgerEngine.transfer(senderAccount.getCode(), receiverAccount.getCode(), 500, "Rent");
+        ledgerEngine.shutdown();
+
+        verify(transferRepository).saveAll(anyList());
+        verify(ledgerEntryRepository).saveAll(argThat((List<LedgerEntry> entries) -> entries.size() == 2));
+        verify(accountRepository).addToBalance(1, -500);
+        verify(accountRepository).addToBalance(2, 500);
+    }
+
+    @Test
+    void canHandleSingleAccountTransfersConcurrently() throws InterruptedException {
+        Account senderAccount = givenAccount(1, 1000);
+        Account receiverAccount = givenAccount(2, 0);
+
+        int numberOfThreads = 100;
+        ExecutorService service = Executors.newFixedThreadPool(20);
+        CountDownLatch latch = new CountDownLatch(numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            service.execute(() -> {
+                ledgerEngine.transfer(senderAccount.getCode(), receiverAccount.getCode(), 2, null);
+                latch.countDown();
+            });
+        }
+
+        latch.await();
+
+        assertThat(ledgerEngine.getAccount(senderAccount.getCode()).getBalance()).isEqualTo(800.0);
+        assertThat(ledgerEngine.getAccount(receiverAccount.getCode()).getBalance()).isEqualTo(200.0);
+    }
+
+    @Test
+    void willThrowWhenSenderDoesNotHaveEnoughFundsOnTransfer() {
+        Account senderAccount = givenAccount(1, 1000);
+        Account receiverAccount = givenAccount(2, 0);
+
+        AccountTransactionException thrown = assertThrows(
+                AccountTransactionException.class,
+                () -> ledgerEngine.transfer(senderAccount.getCode(), receiverAccount.getCode(), 2000, null)
+        );
+
+        assertEquals("Insufficient funds to make the transfer", thrown.getMessage());
+        assertThat(ledgerEngine.getAccount(senderAccount.getCode()).getBalance()).isEqualTo(1000.0);
+    }
+
+    @Test
+    void willThrowWhenReceiverAccountDoesNotExistOnTransfer() {
+        Account senderAccount = givenAccount(1, 1000);
+        String receiverCode = UUID.randomUUID().toString();
+
+        when(accountRepository.findAccountByCode(receiverCode)).thenReturn(Optional.empty());
+
+        AccountNotFoundException thrown = assertThrows(
+                AccountNotFoundException.class,
+                () -> ledgerEngine.transfer(senderAccount.getCode(), receiverCode, 10, null)
+        );
+
+        assertEquals("Receiver account not found", thrown.getMessage());
+    }
+
+    @Test
+    void willLeaveBalancesUntouchedWhenJournalFails() throws InterruptedException {
+        WriteAheadJournal journal = mock(WriteAheadJournal.class);
+        when(journal.append(any())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Journal is not accepting records")));
+        ledgerEngine.shutdown();
+        ledgerEngine = new LedgerEngine(accountRepository, transferRepository, depositRepository, ledgerEntryRepository,
+                journalCheckpointRepository, Optional.of(journal), transactionManager, 4, 100);
+
+        Account senderAccount = givenAccount(1, 1000);
+        Account receiverAccount = givenAccount(2, 0);
+
+        assertThrows(IllegalStateException.class, () -> ledgerEngine.deposit(senderAccount.getCode(), 500));
+        assertThrows(IllegalStateException.class,
+                () -> ledgerEngine.transfer(senderAccount.getCode(), receiverAccount.getCode(), 300, null));
+
+        assertThat(ledgerEngine.getAccount(senderAccount.getCode()).getBalance()).isEqualTo(1000.0);
+        assertThat(ledgerEngine.getAccount(receiverAccount.getCode()).getBalance()).isEqualTo(0.0);
+    }
+
+    @Test
+    void willLeaveBalanceUntouchedWhenJournalRefusesAppend() throws InterruptedException {
+        WriteAheadJournal journal = mock(WriteAheadJournal.class);
+        when(journal.append(any())).thenThrow(new IllegalStateException("Journal is not accepting records"));
+        ledgerEngine.shutdown();
+        ledgerEngine = new LedgerEngine(accountRepository, transferRepository, depositRepository, ledgerEntryRepository,
+                journalCheckpointRepository, Optional.of(journal), transactionManager, 4, 100);
+
+        Account account = givenAccount(1, 1000);
+
+        assertThrows(IllegalStateException.class, () -> ledgerEngine.deposit(account.getCode(), 500));
+
+        assertThat(ledgerEngine.getAccount(account.getCode()).getBalance()).isEqualTo(1000.0);
+    }
+
+    private Account givenAccount(Integer id, double balance) {
+        Account account = new Account();
+        account.setId(id);
+        account.setCode(UUID.randomUUID().toString());
+        account.setBalance(balance);
+
+        lenient().when(accountRepository.findAccountByCode(account.getCode())).thenReturn(Optional.of(account));
+
+        return account;
+    }
+}
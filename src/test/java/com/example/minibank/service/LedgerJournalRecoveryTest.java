@@ -0,0 +1,67 @@
+package com.example.minibank.service;
+
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.TransferRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LedgerJournalRecoveryTest {
+
+    private static final int ACKNOWLEDGED_BEFORE_KILL = 1_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void willKeepEveryAcknowledgedTransferWhenKilledMidBatch() throws Exception {
+        Process workload = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                LedgerCrashWorkload.class.getName(),
+                directory.toString()
+        ).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+
+        String[] accountCodes = null;
+        List<String> acknowledged = new ArrayList<>();
+
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(workload.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (acknowledged.size() < ACKNOWLEDGED_BEFORE_KILL && (line = output.readLine()) != null) {
+                if (line.startsWith("accounts ")) {
+                    accountCodes = line.substring("accounts ".length()).split(" ");
+                } else if (line.startsWith("ack ")) {
+                    acknowledged.add(line.substring("ack ".length()));
+                }
+            }
+
+            // Killed while transfers are being journaled and applied to the database
+            workload.destroyForcibly().waitFor(30, TimeUnit.SECONDS);
+        }
+
+        assertThat(acknowledged).hasSize(ACKNOWLEDGED_BEFORE_KILL);
+
+        // Restarting replays whatever the journal holds past the database's checkpoint
+        try (ConfigurableApplicationContext context = LedgerCrashWorkload.start(directory)) {
+            AccountRepository accountRepository = context.getBean(AccountRepository.class);
+            TransferRepository transferRepository = context.getBean(TransferRepository.class);
+            Integer senderId = accountRepository.findAccountIdByCode(accountCodes[0]).orElseThrow();
+            double senderBalance = accountRepository.findById(senderId).orElseThrow().getBalance();
+            double receiverBalance = accountRepository.findAccountByCode(accountCodes[1]).orElseThrow().getBalance();
+
+            assertThat(acknowledged).allMatch(transferCode -> transferRepository.existsByCodeAndSenderAccountId(transferCode, senderId));
+            assertThat(receiverBalance).isEqualTo(transferRepository.count());
+            assertThat(senderBalance + receiverBalance).isEqualTo(LedgerCrashWorkload.INITIAL_DEPOSIT);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.minibank.service;
+
+import com.example.minibank.exception.AccountTransactionException;
+import com.example.minibank.model.Account;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticConcurrencyControlTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private OptimisticConcurrencyControl concurrencyControl;
+
+    @BeforeEach
+    void setUp() {
+        concurrencyControl = new OptimisticConcurrencyControl(accountRepository,
+                new CodeLookupCache(accountRepository, customerRepository, 100, Duration.ofMinutes(1)), transactionManager, new SimpleMeterRegistry(), 3, 0);
+    }
+
+    @Test
+    void canRetryAfterConcurrentUpdate() {
+        String code = UUID.randomUUID().toString();
+        Account account = new Account();
+        account.setCode(code);
+
+        when(accountRepository.findAccountByCode(code)).thenReturn(Optional.of(account));
+
+        AtomicInteger attempts = new AtomicInteger();
+        Account result = concurrencyControl.withAccount(code, loadedAccount -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException(Account.class, 1);
+            }
+
+            return loadedAccount;
+        });
+
+        assertThat(result).isEqualTo(account);
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(concurrencyControl.getRetryCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void canRetryBatchAfterConcurrentUpdate() {
+        String senderCode = UUID.randomUUID().toString();
+        Account senderAccount = new Account();
+        senderAccount.setCode(senderCode);
+
+        String receiverCode = UUID.randomUUID().toString();
+        Account receiverAccount = new Account();
+        receiverAccount.setCode(receiverCode);
+
+        when(accountRepository.findAccountByCode(senderCode)).thenReturn(Optional.of(senderAccount));
+        when(accountRepository.findAccountsByCodeIn(List.of(receiverCode))).thenReturn(List.of(receiverAccount));
+
+        AtomicInteger attempts = new AtomicInteger();
+        Account result = concurrencyControl.withAccounts(senderCode, List.of(receiverCode), (sender, receivers) -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException(Account.class, 1);
+            }
+
+            return receivers.get(receiverCode);
+        });
+
+        assertThat(result).isEqualTo(receiverAccount);
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(concurrencyControl.getRetryCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void willThrowWhenRetriesAreExhausted() {
+        String code = UUID.randomUUID().toString();
+
+        when(accountRepository.findAccountByCode(code)).thenReturn(Optional.of(new Account()));
+
+        assertThrows(AccountTransactionException.class, () -> concurrencyControl.withAccount(code, account -> {
+            throw new ObjectOptimisticLockingFailureException(Account.class, 1);
+        }));
+
+        assertThat(concurrencyControl.getRetryCount()).isEqualTo(2L);
+        assertThat(concurrencyControl.getExhaustedCount()).isEqualTo(1L);
+    }
+}
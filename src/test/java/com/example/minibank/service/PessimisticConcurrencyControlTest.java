@@ -0,0 +1,98 @@
+package com.example.minibank.service;
+
+import com.example.minibank.model.Account;
+import com.example.minibank.repository.AccountRepository;
+import com.example.minibank.repository.CustomerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PessimisticConcurrencyControlTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+    @Mock
+    private CustomerRepository customerRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    private PessimisticConcurrencyControl concurrencyControl;
+
+    @BeforeEach
+    void setUp() {
+        concurrencyControl = new PessimisticConcurrencyControl(accountRepository,
+                new CodeLookupCache(accountRepository, customerRepository, 100, Duration.ofMinutes(1)), transactionManager, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void canLockAccountsInIdOrderRegardlessOfDirection() {
+        Account lowerAccount = givenAccount(1);
+        Account higherAccount = givenAccount(2);
+
+        concurrencyControl.withAccounts(higherAccount.getCode(), lowerAccount.getCode(), (senderAccount, receiverAccount) -> {
+            assertThat(senderAccount).isEqualTo(higherAccount);
+            assertThat(receiverAccount).isEqualTo(lowerAccount);
+            return null;
+        });
+
+        InOrder lockOrder = inOrder(accountRepository);
+        lockOrder.verify(accountRepository).findAccountByIdForUpdate(1);
+        lockOrder.verify(accountRepository).findAccountByIdForUpdate(2);
+    }
+
+    @Test
+    void canLockBatchSenderAndReceiversWithOneQuery() {
+        Account firstReceiver = newAccount(1);
+        Account senderAccount = newAccount(2);
+        Account secondReceiver = newAccount(3);
+        String unknownCode = UUID.randomUUID().toString();
+        List<String> receiverCodes = List.of(secondReceiver.getCode(), unknownCode, firstReceiver.getCode());
+
+        when(accountRepository.findAccountIdByCode(senderAccount.getCode())).thenReturn(Optional.of(2));
+        when(accountRepository.findAccountIdsByCodeIn(receiverCodes)).thenReturn(List.of(
+                CodeLookupCacheTest.codeId(secondReceiver.getCode(), 3), CodeLookupCacheTest.codeId(firstReceiver.getCode(), 1)));
+        when(accountRepository.findAccountsByIdInForUpdate(Set.of(1, 2, 3)))
+                .thenReturn(List.of(firstReceiver, senderAccount, secondReceiver));
+
+        concurrencyControl.withAccounts(senderAccount.getCode(), receiverCodes, (sender, receivers) -> {
+            assertThat(sender).isEqualTo(senderAccount);
+            assertThat(receivers).isEqualTo(Map.of(firstReceiver.getCode(), firstReceiver, secondReceiver.getCode(), secondReceiver));
+            return null;
+        });
+
+        verify(accountRepository, never()).findAccountByIdForUpdate(any());
+    }
+
+    private Account givenAccount(Integer id) {
+        Account account = newAccount(id);
+
+        when(accountRepository.findAccountIdByCode(account.getCode())).thenReturn(Optional.of(id));
+        when(accountRepository.findAccountByIdForUpdate(id)).thenReturn(Optional.of(account));
+
+        return account;
+    }
+
+    private static Account newAccount(Integer id) {
+        Account account = new Account();
+        account.setId(id);
+        account.setCode(UUID.randomUUID().toString());
+
+        return account;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.minibank.service;
+
+import com.example.minibank.controller.response.TransferHistoryItem;
+import com.example.minibank.repository.TransferRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransferExportServiceTest {
+
+    @Mock
+    private TransferRepository transferRepository;
+    private TransferExportService transferExportService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        transferExportService = new TransferExportService(transferRepository, objectMapper);
+    }
+
+    @Test
+    void canExportTransfersAsCsv() throws IOException {
+        when(transferRepository.streamSentByAccountId(1)).thenReturn(Stream.of(
+                newRow(1, "t1", TransferHistoryItem.Direction.SENT, "Rent, March", 10)
+        ));
+        when(transferRepository.streamReceivedByAccountId(1)).thenReturn(Stream.of(
+                newRow(2, "t2", TransferHistoryItem.Direction.RECEIVED, null, 10)
+        ));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        transferExportService.export(1, TransferExportService.Format.CSV, outputStream);
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "code,direction,counterpartyAccountCode,amount,remarks,createdAt\n" +
+                "t1,SENT,john,10.0,\"Rent, March\",2022-09-01T10:00\n" +
+                "t2,RECEIVED,john,10.0,,2022-09-01T10:00\n"
+        );
+    }
+
+    @Test
+    void canExportTransfersAsNdjson() throws IOException {
+        when(transferRepository.streamSentByAccountId(1)).thenReturn(Stream.of(
+                newRow(1, "t1", TransferHistoryItem.Direction.SENT, null, 10)
+        ));
+        when(transferRepository.streamReceivedByAccountId(1)).thenReturn(Stream.empty());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        transferExportService.export(1, TransferExportService.Format.NDJSON, outputStream);
+
+        String output = outputStream.toString(StandardCharsets.UTF_8);
+        assertThat(output).startsWith("{\"code\":\"t1\",\"direction\":\"SENT\",\"counterpartyAccountCode\":\"john\"");
+        assertThat(output).endsWith("}\n");
+    }
+
+    @Test
+    void willMergeSentAndReceivedTransfersOldestFirst() throws IOException {
+        when(transferRepository.streamSentByAccountId(1)).thenReturn(Stream.of(
+                newRow(1, "t1", TransferHistoryItem.Direction.SENT, null, 10),
+                newRow(4, "t4", TransferHistoryItem.Direction.SENT, null, 12)
+        ));
+        when(transferRepository.streamReceivedByAccountId(1)).thenReturn(Stream.of(
+                newRow(2, "t2", TransferHistoryItem.Direction.RECEIVED, null, 10),
+                newRow(3, "t3", TransferHistoryItem.Direction.RECEIVED, null, 11)
+        ));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        transferExportService.export(1, TransferExportService.Format.CSV, outputStream);
+
+        assertThat(outputStream.toString(StandardCharsets.UTF_8).lines().skip(1).map(line -> line.substring(0, 2)))
+                .containsExactly("t1", "t2", "t3", "t4");
+    }
+
+    private static TransferHistoryItem newRow(Integer id, String code, TransferHistoryItem.Direction direction,
+                                              String remarks, int hour) {
+        return new TransferHistoryItem(id, code, direction.name(), "john", 10, remarks,
+                LocalDateTime.of(2022, 9, 1, hour, 0));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.minibank.tracing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TracingTest {
+
+    @AfterEach
+    void tearDown() {
+        Tracing.stop();
+    }
+
+    @Test
+    void canRecordNestedSpansWithSql() {
+        RequestTrace trace = Tracing.start("POST", "/accounts/abc/transfers");
+
+        try (Tracing.Scope service = Tracing.span("AccountService.transfer")) {
+            try (Tracing.Scope repository = Tracing.span("AccountRepository.findAccountByCode")) {
+                Tracing.sql("select * from accounts where code=?");
+            }
+            try (Tracing.Scope commit = Tracing.span("commit")) {
+                Tracing.sql("update accounts set balance=? where id=?");
+            }
+        }
+        trace.finish(204);
+
+        Span service = trace.getRoot().getChildren().get(0);
+        assertThat(service.getName()).isEqualTo("AccountService.transfer");
+        assertThat(service.getChildren()).extracting(Span::getName)
+                .containsExactly("AccountRepository.findAccountByCode", "commit");
+        assertThat(service.getChildren().get(0).getChildren().get(0).getSql())
+                .isEqualTo("select * from accounts where code=?");
+        assertThat(trace.getSqlStatements()).isEqualTo(2);
+        assertThat(trace.getStatus()).isEqualTo(204);
+        assertThat(trace.getDurationMs()).isNotNull();
+    }
+
+    @Test
+    void willCloseSpansLeftOpenWhenParentEnds() {
+        RequestTrace trace = Tracing.start("GET", "/accounts");
+
+        Tracing.Scope outer = Tracing.span("outer");
+        Tracing.span("inner");
+        outer.close();
+        trace.finish(200);
+
+        Span inner = trace.getRoot().getChildren().get(0).getChildren().get(0);
+        assertThat(inner.getDurationMs()).isNotNull();
+    }
+
+    @Test
+    void willIgnoreSpansWhenNotTracing() {
+        try (Tracing.Scope scope = Tracing.span("AccountService.transfer")) {
+            Tracing.sql("select 1");
+            assertThat(scope).isNotNull();
+        }
+    }
+
+    @Test
+    void canKeepOnlySlowestRequests() throws InterruptedException {
+        SlowRequestLog slowRequestLog = new SlowRequestLog(2);
+
+        slowRequestLog.offer(finishedTrace("/fast", 0));
+        slowRequestLog.offer(finishedTrace("/slowest", 30));
+        slowRequestLog.offer(finishedTrace("/slow", 10));
+
+        List<RequestTrace> slowest = slowRequestLog.getSlowest();
+        assertThat(slowest).extracting(RequestTrace::getUri).containsExactly("/slowest", "/slow");
+    }
+
+    private static RequestTrace finishedTrace(String uri, long sleepMillis) throws InterruptedException {
+        RequestTrace trace = Tracing.start("GET", uri);
+        Thread.sleep(sleepMillis);
+        trace.finish(200);
+        Tracing.stop();
+
+        return trace;
+    }
+}
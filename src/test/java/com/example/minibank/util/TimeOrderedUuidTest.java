@@ -0,0 +1,31 @@
+package com.example.minibank.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class TimeOrderedUuidTest {
+
+    @Test
+    void canGenerateVersion7Uuid() {
+        UUID uuid = TimeOrderedUuid.generate();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void canGenerateUuidsInIncreasingOrder() {
+        UUID previous = TimeOrderedUuid.generate();
+
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = TimeOrderedUuid.generate();
+
+            // Compare the string form, which is what ends up being sorted in the database
+            assertThat(next.toString().compareTo(previous.toString())).isGreaterThan(0);
+            previous = next;
+        }
+    }
+}